@@ -1,14 +1,24 @@
 package com.mgnrega.backend;
 
+import com.mgnrega.backend.config.InboundTrafficFilter;
+import com.mgnrega.backend.controller.CacheWarmer;
 import com.mgnrega.backend.repository.PerformanceRecordRepository;
+import com.mgnrega.backend.repository.StatePeriodRollupRepository;
+import com.mgnrega.backend.service.DataVersions;
+import com.mgnrega.backend.service.PerformanceRecordMigration;
+import com.mgnrega.backend.service.PlaceDictionary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import com.mgnrega.backend.entity.PerformanceRecord;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import java.util.HashMap;
@@ -16,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 
 @SpringBootApplication(exclude = {SecurityAutoConfiguration.class})
+@EnableScheduling
 public class BackendApplication {
     public static void main(String[] args) {
         SpringApplication.run(BackendApplication.class, args);
@@ -24,10 +35,31 @@ public class BackendApplication {
     @RestController
     @RequestMapping("/api/health")
     public static class HealthController {
+        @Autowired(required = false)
+        private CacheWarmer cacheWarmer;
+
+        @Autowired(required = false)
+        private InboundTrafficFilter trafficFilter;
+
         @GetMapping
         public Map<String, String> health() {
             return Map.of("status", "UP");
         }
+
+        // Load balancers should route here only after the cache warm-up has finished or timed out
+        @GetMapping("/ready")
+        public ResponseEntity<Map<String, Object>> ready() {
+            if (cacheWarmer == null) {
+                return ResponseEntity.ok(Map.of("status", "READY"));
+            }
+            return ResponseEntity.status(cacheWarmer.isReady() ? 200 : 503).body(cacheWarmer.status());
+        }
+
+        // Under /api/health so it stays reachable while the API sheds load
+        @GetMapping("/traffic")
+        public Map<String, Object> traffic() {
+            return trafficFilter == null ? Map.of() : trafficFilter.stats();
+        }
     }
 
     @RestController
@@ -37,24 +69,61 @@ public class BackendApplication {
         @Autowired(required = false)
         private PerformanceRecordRepository performanceRecordRepository;
         
-        @GetMapping("/clear-null-records")
+        @Autowired(required = false)
+        private PerformanceRecordMigration migration;
+
+        @Autowired(required = false)
+        private DataVersions dataVersions;
+
+        @Autowired(required = false)
+        private StatePeriodRollupRepository rollups;
+
+        @Autowired(required = false)
+        private PlaceDictionary places;
+
+        @Autowired(required = false)
+        private PlatformTransactionManager transactionManager;
+        
+        // Both delete rows, so neither may be reachable by a crawler or prefetch following a link
+        @PostMapping("/deduplicate")
+        public ResponseEntity<String> deduplicate() {
+            try {
+                if (migration == null) {
+                    return ResponseEntity.status(500).body("{\"error\":\"Repository not available\"}");
+                }
+                int deleted = migration.deduplicate();
+                return ResponseEntity.ok("{\"message\":\"Deleted " + deleted + " duplicate records\",\"deletedCount\":" + deleted + "}");
+            } catch (Exception e) {
+                return ResponseEntity.status(500).body("{\"error\":\"" + e.getMessage() + "\"}");
+            }
+        }
+        
+        @PostMapping("/clear-null-records")
         public ResponseEntity<String> clearNullRecords() {
             try {
-                if (performanceRecordRepository == null) {
+                if (performanceRecordRepository == null || transactionManager == null) {
                     return ResponseEntity.status(500).body("{\"error\":\"Repository not available\"}");
                 }
                 
-                List<PerformanceRecord> allRecords = performanceRecordRepository.findAll();
-                List<PerformanceRecord> nullRecords = allRecords.stream()
-                    .filter(r -> r.getPersondaysGenerated() == null && 
-                               r.getHouseholdsWorked() == null && 
-                               r.getAvgWageRate() == null && 
-                               r.getTotalWages() == null)
-                    .collect(java.util.stream.Collectors.toList());
-                
-                if (!nullRecords.isEmpty()) {
+                // One transaction, so the rollups never miss the delete or sum rows already gone
+                Integer deleted = new TransactionTemplate(transactionManager).execute(status -> {
+                    List<PerformanceRecord> allRecords = performanceRecordRepository.findAll();
+                    List<PerformanceRecord> nullRecords = allRecords.stream()
+                        .filter(r -> r.getPersondaysGenerated() == null && 
+                                   r.getHouseholdsWorked() == null && 
+                                   r.getAvgWageRate() == null && 
+                                   r.getTotalWages() == null)
+                        .collect(java.util.stream.Collectors.toList());
+                    if (nullRecords.isEmpty()) return 0;
                     performanceRecordRepository.deleteAll(nullRecords);
-                    return ResponseEntity.ok("{\"message\":\"Deleted " + nullRecords.size() + " records with null data\",\"deletedCount\":" + nullRecords.size() + "}");
+                    performanceRecordRepository.flush();
+                    if (rollups != null) rollups.rebuildAll();
+                    if (dataVersions != null) dataVersions.changedAll();
+                    return nullRecords.size();
+                });
+                
+                if (deleted != null && deleted > 0) {
+                    return ResponseEntity.ok("{\"message\":\"Deleted " + deleted + " records with null data\",\"deletedCount\":" + deleted + "}");
                 } else {
                     return ResponseEntity.ok("{\"message\":\"No null records found\",\"deletedCount\":0}");
                 }
@@ -67,7 +136,7 @@ public class BackendApplication {
         public Map<String, Object> getStatesInDatabase() {
             Map<String, Object> result = new HashMap<>();
             try {
-                if (performanceRecordRepository == null) {
+                if (performanceRecordRepository == null || places == null) {
                     result.put("error", "Repository not available");
                     return result;
                 }
@@ -78,10 +147,11 @@ public class BackendApplication {
                 java.util.Map<String, java.util.Set<String>> stateDistricts = new java.util.HashMap<>();
                 
                 for (com.mgnrega.backend.entity.PerformanceRecord rec : allRecords) {
-                    if (rec.getStateName() != null) {
-                        states.add(rec.getStateName());
-                        stateDistricts.computeIfAbsent(rec.getStateName(), k -> new java.util.HashSet<>())
-                            .add(rec.getDistrictName());
+                    String state = places.stateName(rec.getStateId());
+                    if (state != null) {
+                        states.add(state);
+                        stateDistricts.computeIfAbsent(state, k -> new java.util.HashSet<>())
+                            .add(places.districtName(rec.getDistrictId()));
                     }
                 }
                 
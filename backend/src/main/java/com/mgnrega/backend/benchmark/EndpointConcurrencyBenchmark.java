@@ -0,0 +1,141 @@
+package com.mgnrega.backend.benchmark;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency percentiles and throughput of /api/performance (blocking) versus
+ * /api/performance/reactive at increasing numbers of concurrent clients.
+ * Run with: mvn spring-boot:run -Dspring-boot.run.profiles=benchmark-endpoints
+ * Lower server.tomcat.threads.max (e.g. 16) to see worker exhaustion on the blocking path.
+ * All requests come from one client, so raise app.clientRateLimitPerMinute/Burst or they are answered 429.
+ * Each request uses a distinct month so single-flight and the response cache do not hide the work.
+ */
+@Component
+@Profile("benchmark-endpoints")
+public class EndpointConcurrencyBenchmark implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(EndpointConcurrencyBenchmark.class);
+    private static final String[] PATHS = {"/api/performance", "/api/performance/reactive"};
+
+    private final Environment environment;
+    private final String state;
+    private final String district;
+    private final int[] concurrencyLevels;
+    private final int requestsPerLevel;
+    private final boolean uniqueKeys;
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    public EndpointConcurrencyBenchmark(Environment environment,
+                                        @Value("${benchmark.state:UTTAR PRADESH}") String state,
+                                        @Value("${benchmark.district:LUCKNOW}") String district,
+                                        @Value("${benchmark.concurrency:1,8,32,128,256}") int[] concurrencyLevels,
+                                        @Value("${benchmark.requests:1000}") int requestsPerLevel,
+                                        @Value("${benchmark.uniqueKeys:true}") boolean uniqueKeys) {
+        this.environment = environment;
+        this.state = state;
+        this.district = district;
+        this.concurrencyLevels = concurrencyLevels;
+        this.requestsPerLevel = requestsPerLevel;
+        this.uniqueKeys = uniqueKeys;
+    }
+
+    @Override
+    public void run(String... args) {
+        String base = "http://localhost:" + environment.getProperty("local.server.port", "9090");
+        logger.info("Endpoint benchmark against {} for {} / {}: {} requests per level", base, state, district, requestsPerLevel);
+        // Warm up JIT, connection pools and the database cache for both paths
+        for (String path : PATHS) {
+            measure(base + path, 8, Math.min(200, requestsPerLevel), "warmup");
+        }
+        for (int concurrency : concurrencyLevels) {
+            for (String path : PATHS) {
+                Result r = measure(base + path, concurrency, requestsPerLevel, "c" + concurrency);
+                logger.info("📊 {} concurrency={}: {} req/s, p50={} ms, p95={} ms, p99={} ms, max={} ms, errors={}",
+                    path, concurrency, r.throughput, r.percentile(50), r.percentile(95), r.percentile(99),
+                    r.percentile(100), r.errors);
+            }
+        }
+    }
+
+    private Result measure(String url, int concurrency, int requests, String tag) {
+        AtomicLongArray latencies = new AtomicLongArray(requests);
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        long start = System.nanoTime();
+        // Each "client" issues its next request as soon as the previous one answers
+        CompletableFuture<?>[] clients = new CompletableFuture<?>[concurrency];
+        for (int c = 0; c < concurrency; c++) {
+            clients[c] = sendNext(url, tag, requests, next, latencies, errors);
+        }
+        CompletableFuture.allOf(clients).join();
+        long elapsed = System.nanoTime() - start;
+
+        long[] sorted = new long[requests];
+        for (int i = 0; i < requests; i++) sorted[i] = latencies.get(i);
+        Arrays.sort(sorted);
+        return new Result(sorted, Math.round(requests / (elapsed / 1_000_000_000.0)), errors.get());
+    }
+
+    private CompletableFuture<Void> sendNext(String url, String tag, int requests, AtomicInteger next,
+                                             AtomicLongArray latencies, AtomicInteger errors) {
+        int i = next.getAndIncrement();
+        if (i >= requests) return CompletableFuture.completedFuture(null);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + query(tag, i)))
+            .timeout(Duration.ofSeconds(60))
+            .GET()
+            .build();
+        long sent = System.nanoTime();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .handle((response, error) -> {
+                latencies.set(i, System.nanoTime() - sent);
+                if (error != null || response.statusCode() >= 400) errors.incrementAndGet();
+                return null;
+            })
+            .thenCompose(ignored -> sendNext(url, tag, requests, next, latencies, errors));
+    }
+
+    private String query(String tag, int i) {
+        String q = "?state=" + encode(state) + "&district=" + encode(district);
+        // month is part of the cache and single-flight key but not of the database lookup
+        return uniqueKeys ? q + "&month=" + encode("BENCH-" + tag + "-" + i) : q;
+    }
+
+    private static String encode(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+
+    private static final class Result {
+        final long[] sortedNanos;
+        final long throughput;
+        final int errors;
+
+        Result(long[] sortedNanos, long throughput, int errors) {
+            this.sortedNanos = sortedNanos;
+            this.throughput = throughput;
+            this.errors = errors;
+        }
+
+        long percentile(int p) {
+            if (sortedNanos.length == 0) return 0;
+            int index = (int) Math.ceil(p / 100.0 * sortedNanos.length) - 1;
+            return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))] / 1_000_000;
+        }
+    }
+}
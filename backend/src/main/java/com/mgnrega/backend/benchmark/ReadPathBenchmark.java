@@ -0,0 +1,99 @@
+package com.mgnrega.backend.benchmark;
+
+import com.mgnrega.backend.entity.PerformanceRecord;
+import com.mgnrega.backend.repository.PerformanceRecordReadRepository;
+import com.mgnrega.backend.repository.PerformanceRecordRepository;
+import com.mgnrega.backend.service.PlaceDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Latency and heap allocated per read of one district's recent records:
+ * managed JPA entities versus rows mapped by PerformanceRecordReadRepository.
+ * Run with: mvn spring-boot:run -Dspring-boot.run.profiles=benchmark-reads
+ * Point benchmark.state/benchmark.district at a district with data; raise
+ * benchmark.limit to see the per-row cost dominate the per-query cost.
+ */
+@Component
+@Profile("benchmark-reads")
+public class ReadPathBenchmark implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(ReadPathBenchmark.class);
+
+    private final PerformanceRecordRepository repository;
+    private final PerformanceRecordReadRepository reads;
+    private final PlaceDictionary places;
+    private final String state;
+    private final String district;
+    private final int limit;
+    private final int iterations;
+
+    public ReadPathBenchmark(PerformanceRecordRepository repository,
+                             PerformanceRecordReadRepository reads,
+                             PlaceDictionary places,
+                             @Value("${benchmark.state:UTTAR PRADESH}") String state,
+                             @Value("${benchmark.district:LUCKNOW}") String district,
+                             @Value("${benchmark.limit:120}") int limit,
+                             @Value("${benchmark.iterations:2000}") int iterations) {
+        this.repository = repository;
+        this.reads = reads;
+        this.places = places;
+        this.state = state;
+        this.district = district;
+        this.limit = limit;
+        this.iterations = iterations;
+    }
+
+    @Override
+    public void run(String... args) {
+        logger.info("Read path benchmark for {} / {}: limit={}, {} iterations per path", state, district, limit, iterations);
+        Integer districtId = places.districtId(state, district);
+        Supplier<List<PerformanceRecord>> entities =
+            () -> repository.findRecentByDistrictId(districtId, PageRequest.of(0, limit));
+        Supplier<List<PerformanceRecord>> rows =
+            () -> reads.findRecentByDistrict(state, district, null, limit);
+        int rowCount = rows.get().size();
+        if (rowCount == 0) {
+            logger.warn("⚠️ No rows for {} / {}; set benchmark.state and benchmark.district", state, district);
+            return;
+        }
+        // Warm up JIT, the connection pool and the database cache for both paths
+        measure("warmup", entities, Math.min(200, iterations));
+        measure("warmup", rows, Math.min(200, iterations));
+        measure("JPA entities", entities, iterations);
+        measure("JDBC row mapper", rows, iterations);
+    }
+
+    private void measure(String name, Supplier<List<PerformanceRecord>> read, int count) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long[] latencies = new long[count];
+        int rowCount = 0;
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < count; i++) {
+            long start = System.nanoTime();
+            rowCount = read.get().size();
+            latencies[i] = System.nanoTime() - start;
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        if ("warmup".equals(name)) return;
+        Arrays.sort(latencies);
+        logger.info("📊 {}: {} rows per read, p50={} µs, p95={} µs, p99={} µs, {} KB allocated per read",
+            name, rowCount, percentile(latencies, 50), percentile(latencies, 95), percentile(latencies, 99),
+            allocated / count / 1024);
+    }
+
+    private static long percentile(long[] sorted, int p) {
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1_000;
+    }
+}
@@ -0,0 +1,135 @@
+package com.mgnrega.backend.benchmark;
+
+import com.mgnrega.backend.entity.PerformanceRecord;
+import com.mgnrega.backend.repository.PerformanceRecordCopyLoader;
+import com.mgnrega.backend.repository.PerformanceRecordJdbcRepository;
+import com.mgnrega.backend.repository.PerformanceRecordRepository;
+import com.mgnrega.backend.service.PlaceDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rows-per-second for each write strategy against the configured PostgreSQL.
+ * Run with: mvn spring-boot:run -Dspring-boot.run.profiles=benchmark-writes
+ * Each strategy writes under its own scratch state, whose rows are deleted afterwards.
+ */
+@Component
+@Profile("benchmark-writes")
+public class WriteStrategyBenchmark implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(WriteStrategyBenchmark.class);
+    private static final String[] MONTHS = {"Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec", "Jan", "Feb", "Mar"};
+
+    private final PerformanceRecordRepository repository;
+    private final PerformanceRecordJdbcRepository jdbcRepository;
+    private final PerformanceRecordCopyLoader copyLoader;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PlaceDictionary places;
+    private final int rows;
+
+    public WriteStrategyBenchmark(PerformanceRecordRepository repository,
+                                  PerformanceRecordJdbcRepository jdbcRepository,
+                                  PerformanceRecordCopyLoader copyLoader,
+                                  JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  PlaceDictionary places,
+                                  @Value("${benchmark.rows:10000}") int rows) {
+        this.repository = repository;
+        this.jdbcRepository = jdbcRepository;
+        this.copyLoader = copyLoader;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.places = places;
+        this.rows = rows;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        logger.info("Write benchmark: {} rows per strategy", rows);
+        // Warm up the id sequence alignment and JIT on a small load first
+        jdbcRepository.upsertAll(records("BENCHMARK-WARMUP", 500));
+        cleanup("BENCHMARK-WARMUP");
+
+        measure("row-by-row INSERT", state -> {
+            for (PerformanceRecord r : records(state, rows)) {
+                jdbcTemplate.update("INSERT INTO performance_records (id, fin_year, month, state_id, district_id, " +
+                    "households_worked, persondays_generated, created_at) " +
+                    "VALUES (nextval('performance_records_seq'), ?, ?, ?, ?, ?, ?, now())",
+                    r.getFinYear(), r.getMonth(), r.getStateId(), r.getDistrictId(),
+                    r.getHouseholdsWorked(), r.getPersondaysGenerated());
+            }
+        });
+        measure("JPA saveAll (pooled sequence, batched)", state ->
+            transactionTemplate.executeWithoutResult(status -> repository.saveAll(records(state, rows))));
+        measure("JDBC batch upsert", state ->
+            transactionTemplate.executeWithoutResult(status -> jdbcRepository.upsertAll(records(state, rows))));
+        measure("JDBC batch upsert (all unchanged)", state -> {
+            List<PerformanceRecord> data = records(state, rows);
+            jdbcRepository.upsertAll(data);
+            long start = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> jdbcRepository.upsertAll(data));
+            logger.info("  re-upsert of {} unchanged rows: {} rows/s", rows, rate(rows, System.nanoTime() - start));
+        });
+        measure("COPY + merge", state -> copyLoader.load(records(state, rows)));
+    }
+
+    private void measure(String name, Strategy strategy) {
+        String state = "BENCHMARK-" + name.replaceAll("[^A-Za-z]", "").toUpperCase();
+        cleanup(state);
+        long start = System.nanoTime();
+        try {
+            strategy.write(state);
+            long elapsed = System.nanoTime() - start;
+            logger.info("📊 {}: {} rows in {} ms = {} rows/s", name, rows, elapsed / 1_000_000, rate(rows, elapsed));
+        } catch (Exception e) {
+            logger.error("❌ {} failed: {}", name, e.getMessage(), e);
+        } finally {
+            cleanup(state);
+        }
+    }
+
+    private static long rate(int count, long elapsedNanos) {
+        return Math.round(count / (elapsedNanos / 1_000_000_000.0));
+    }
+
+    private void cleanup(String state) {
+        jdbcTemplate.update("DELETE FROM performance_records WHERE state_id = ?", places.stateIdFor(state));
+    }
+
+    private List<PerformanceRecord> records(String state, int count) {
+        int stateId = places.stateIdFor(state);
+        List<PerformanceRecord> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            PerformanceRecord r = new PerformanceRecord();
+            r.setStateName(state);
+            r.setDistrictName("DISTRICT-" + (i / (MONTHS.length * 10)));
+            r.setStateId(stateId);
+            r.setDistrictId(places.districtIdFor(stateId, r.getDistrictName()));
+            r.setFinYear((2015 + (i / MONTHS.length) % 10) + "-" + (2016 + (i / MONTHS.length) % 10));
+            r.setMonth(MONTHS[i % MONTHS.length]);
+            r.setHouseholdsWorked(1000L + i);
+            r.setPersondaysGenerated(50_000L + i * 7L);
+            r.setWomenPersondaysPercent(40.0 + (i % 20));
+            r.setNoOfOngoingWorks(100 + i % 50);
+            r.setNoOfCompletedWorks(20 + i % 30);
+            r.setAvgWageRate(250.0 + (i % 40));
+            r.setTotalWages(1.0e6 + i);
+            list.add(r);
+        }
+        return list;
+    }
+
+    @FunctionalInterface
+    private interface Strategy {
+        void write(String state) throws Exception;
+    }
+}
@@ -0,0 +1,364 @@
+package com.mgnrega.backend.config;
+
+import com.mgnrega.backend.service.RateLimiter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Turns excess API traffic away with 429 before any work starts. Each client
+ * (configured API key, else IP) has its own token bucket, and each endpoint has
+ * a concurrency limit that adapts to latency: it grows by one per round of fast
+ * responses and shrinks by a fraction when responses get slow or fail, so a
+ * struggling database sheds load instead of queueing it. Clients choose their
+ * headers and paths, so only configured keys, configured proxies' IP headers
+ * and mapped endpoints get buckets or limits of their own. Trusted proxies are
+ * addresses or CIDR ranges.
+ */
+@Component
+public class InboundTrafficFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(InboundTrafficFilter.class);
+    private static final String API_KEY_HEADER = "X-API-Key";
+    // Paths no controller maps share one limit rather than growing the map without bound
+    private static final String OTHER_ENDPOINT = "other";
+    private static final double DECREASE_FACTOR = 0.9;
+    // Header values are client-supplied: only literals are parsed, so a host name never triggers a DNS lookup
+    private static final Pattern IPV4_LITERAL = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+
+    private final RateLimiter clientLimiter;
+    private final String clientIpHeader;
+    private final Set<String> trustedApiKeys;
+    private final List<Subnet> trustedProxies;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final Map<String, EndpointLimit> endpoints = new ConcurrentHashMap<>();
+    // Most specific first, as the handler mapping would pick them
+    private volatile List<PathPattern> endpointPatterns = List.of();
+    private final LongAdder clientRejections = new LongAdder();
+    private final AtomicBoolean untrustedProxyWarned = new AtomicBoolean();
+
+    public InboundTrafficFilter(@Value("${app.clientRateLimitPerMinute:120}") double clientPerMinute,
+                                @Value("${app.clientRateLimitBurst:40}") int clientBurst,
+                                @Value("${app.clientIpHeader:X-Real-IP}") String clientIpHeader,
+                                @Value("${app.trustedApiKeys:}") String trustedApiKeys,
+                                @Value("${app.trustedProxies:127.0.0.1,0:0:0:0:0:0:0:1}") String trustedProxies,
+                                @Value("${app.concurrencyInitialLimit:20}") int initialLimit,
+                                @Value("${app.concurrencyMinLimit:2}") int minLimit,
+                                @Value("${app.concurrencyMaxLimit:200}") int maxLimit,
+                                @Value("${app.concurrencyLatencyTargetMs:2000}") long latencyTargetMs) {
+        this.clientLimiter = new RateLimiter(clientPerMinute, clientBurst);
+        this.clientIpHeader = clientIpHeader;
+        this.trustedApiKeys = commaSeparated(trustedApiKeys);
+        this.trustedProxies = commaSeparated(trustedProxies).stream()
+            .map(InboundTrafficFilter::subnet)
+            .filter(subnet -> subnet != null)
+            .toList();
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.initialLimit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(latencyTargetMs);
+        endpoints.put(OTHER_ENDPOINT, new EndpointLimit(this.initialLimit));
+    }
+
+    // Filters are built before the handler mappings, so the endpoint list is read once the context is up
+    @EventListener(ContextRefreshedEvent.class)
+    public void registerEndpoints(ContextRefreshedEvent event) {
+        RequestMappingHandlerMapping mapping = event.getApplicationContext()
+            .getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+        List<PathPattern> patterns = new ArrayList<>();
+        mapping.getHandlerMethods().keySet().forEach(info -> info.getPatternValues().forEach(path -> {
+            patterns.add(PathPatternParser.defaultInstance.parse(path));
+            endpoints.computeIfAbsent(path, k -> new EndpointLimit(initialLimit));
+        }));
+        patterns.sort(PathPattern.SPECIFICITY_COMPARATOR);
+        endpointPatterns = List.copyOf(patterns);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        // Health checks must answer even when the API is shedding
+        return !path.startsWith("/api/") || path.startsWith("/api/health") || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = clientKey(request);
+        if (!clientLimiter.tryAcquire(client, 0)) {
+            clientRejections.increment();
+            long retryAfterNanos = clientLimiter.nanosUntilAvailable(client, 0);
+            logger.debug("Client {} over its request rate", client);
+            reject(response, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos) + 1),
+                "Too many requests. Please slow down.");
+            return;
+        }
+
+        EndpointLimit limit = endpointLimit(request.getRequestURI());
+        if (!limit.tryEnter()) {
+            limit.shed.increment();
+            reject(response, 1, "Server is busy. Please try again shortly.");
+            return;
+        }
+        long startedAt = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                // Reactive endpoints finish after this returns; hold the slot until they do
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        release(limit, released, startedAt, response.getStatus() >= 500);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        release(limit, released, startedAt, true);
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        release(limit, released, startedAt, true);
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                release(limit, released, startedAt, failed || response.getStatus() >= 500);
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("clientRejections", clientRejections.sum());
+        Map<String, Object> perEndpoint = new LinkedHashMap<>();
+        endpoints.forEach((path, limit) -> perEndpoint.put(path, limit.snapshot()));
+        stats.put("endpoints", perEndpoint);
+        return stats;
+    }
+
+    // Idle client buckets are full again and carry nothing worth keeping
+    @Scheduled(fixedDelayString = "${app.clientRateLimitCleanupMs:300000}")
+    public void cleanup() {
+        clientLimiter.cleanup();
+    }
+
+    private void release(EndpointLimit limit, AtomicBoolean released, long startedAt, boolean failed) {
+        if (released.compareAndSet(false, true)) {
+            limit.exit(System.nanoTime() - startedAt, failed);
+        }
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        // An unknown key would otherwise buy a fresh bucket per request
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        if (apiKey != null && trustedApiKeys.contains(apiKey.trim())) return "key:" + apiKey.trim();
+        String remote = request.getRemoteAddr();
+        if (clientIpHeader == null || clientIpHeader.isBlank()) return "ip:" + remote;
+        String forwarded = request.getHeader(clientIpHeader);
+        if (forwarded == null || forwarded.isBlank()) return "ip:" + remote;
+        if (!isTrustedProxy(remote)) {
+            warnIfUntrustedProxy(remote);
+            return "ip:" + remote;
+        }
+        // Proxies append, so the last hop that is not one of ours is the client; anything before it is client-supplied
+        String[] hops = forwarded.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty() && !isTrustedProxy(hop)) return "ip:" + hop;
+        }
+        return "ip:" + remote;
+    }
+
+    private boolean isTrustedProxy(String address) {
+        byte[] bytes = literalAddress(address);
+        if (bytes == null) return false;
+        for (Subnet subnet : trustedProxies) {
+            if (subnet.contains(bytes)) return true;
+        }
+        return false;
+    }
+
+    // A private peer sending the IP header is most likely our own proxy missing from app.trustedProxies,
+    // which would put every client behind it in one bucket
+    private void warnIfUntrustedProxy(String remote) {
+        if (untrustedProxyWarned.get()) return;
+        InetAddress address = literalInetAddress(remote);
+        if (address == null || !isPrivate(address)) return;
+        if (untrustedProxyWarned.compareAndSet(false, true)) {
+            logger.warn("⚠️ {} header received from {}, which is not in app.trustedProxies (TRUSTED_PROXIES); " +
+                "all clients behind that proxy share one rate limit", clientIpHeader, remote);
+        }
+    }
+
+    private EndpointLimit endpointLimit(String uri) {
+        // "/api/performance/" is served by "/api/performance"
+        String path = uri.length() > 1 && uri.endsWith("/") ? uri.substring(0, uri.length() - 1) : uri;
+        PathContainer container = PathContainer.parsePath(path);
+        for (PathPattern pattern : endpointPatterns) {
+            if (pattern.matches(container)) return endpoints.get(pattern.getPatternString());
+        }
+        return endpoints.get(OTHER_ENDPOINT);
+    }
+
+    private static boolean isPrivate(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        // fc00::/7 is IPv6's private range, which isSiteLocalAddress does not cover
+        return address.isSiteLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+            || (bytes.length == 16 && (bytes[0] & 0xfe) == 0xfc);
+    }
+
+    private static Subnet subnet(String entry) {
+        int slash = entry.indexOf('/');
+        byte[] network = literalAddress(slash < 0 ? entry : entry.substring(0, slash));
+        if (network == null) {
+            logger.warn("⚠️ Ignoring trusted proxy {}: not an IP address or CIDR range", entry);
+            return null;
+        }
+        int prefix = network.length * 8;
+        if (slash >= 0) {
+            try {
+                prefix = Integer.parseInt(entry.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                prefix = -1;
+            }
+            if (prefix < 0 || prefix > network.length * 8) {
+                logger.warn("⚠️ Ignoring trusted proxy {}: bad prefix length", entry);
+                return null;
+            }
+        }
+        return new Subnet(network, prefix);
+    }
+
+    private static byte[] literalAddress(String value) {
+        InetAddress address = literalInetAddress(value);
+        return address == null ? null : address.getAddress();
+    }
+
+    private static InetAddress literalInetAddress(String value) {
+        String literal = value.trim();
+        if (literal.startsWith("[") && literal.endsWith("]")) literal = literal.substring(1, literal.length() - 1);
+        if (!literal.contains(":") && !IPV4_LITERAL.matcher(literal).matches()) return null;
+        try {
+            return InetAddress.getByName(literal);
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static Set<String> commaSeparated(String value) {
+        return Arrays.stream(value.split(","))
+            .map(String::trim)
+            .filter(v -> !v.isEmpty())
+            .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterSeconds, String message) throws IOException {
+        response.setStatus(429);
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+
+    private record Subnet(byte[] network, int prefix) {
+        boolean contains(byte[] address) {
+            // IPv4 and IPv6 never match each other; an IPv4-mapped IPv6 literal already parses as IPv4
+            if (address.length != network.length) return false;
+            int fullBytes = prefix / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) return false;
+            }
+            int rest = prefix % 8;
+            if (rest == 0) return true;
+            int mask = 0xff << (8 - rest);
+            return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+
+    private final class EndpointLimit {
+        final AtomicInteger inFlight = new AtomicInteger();
+        // Thousandths of a request, so additive steps smaller than one add up
+        final AtomicLong limitMillis;
+        final LongAdder shed = new LongAdder();
+        final LongAdder completed = new LongAdder();
+
+        EndpointLimit(int initial) {
+            this.limitMillis = new AtomicLong(initial * 1000L);
+        }
+
+        int limit() {
+            return (int) (limitMillis.get() / 1000);
+        }
+
+        boolean tryEnter() {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= limit()) return false;
+                if (inFlight.compareAndSet(current, current + 1)) return true;
+            }
+        }
+
+        void exit(long latencyNanos, boolean failed) {
+            int wasInFlight = inFlight.getAndDecrement();
+            completed.increment();
+            if (failed || latencyNanos > latencyTargetNanos) {
+                limitMillis.updateAndGet(l -> Math.max(minLimit * 1000L, (long) (l * DECREASE_FACTOR)));
+            } else if (wasInFlight * 2 >= limit()) {
+                // Only grow while the limit is actually in use; idle endpoints keep theirs
+                limitMillis.updateAndGet(l -> Math.min(maxLimit * 1000L, l + Math.max(1, 1_000_000L / l)));
+            }
+        }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("limit", limit());
+            s.put("inFlight", inFlight.get());
+            s.put("completed", completed.sum());
+            s.put("shed", shed.sum());
+            return s;
+        }
+    }
+}
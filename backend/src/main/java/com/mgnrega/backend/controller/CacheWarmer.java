@@ -0,0 +1,115 @@
+package com.mgnrega.backend.controller;
+
+import com.mgnrega.backend.entity.RequestFrequency;
+import com.mgnrega.backend.service.RequestFrequencyTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * After startup, pre-builds the responses for the most requested district
+ * queries from performance_records (never upstream) so a fresh deploy does
+ * not serve its popular districts cold. The instance reports ready once the
+ * warm-up finishes or its time budget runs out.
+ */
+@Component
+public class CacheWarmer {
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmer.class);
+
+    private final PerformanceController controller;
+    private final RequestFrequencyTracker tracker;
+    private final boolean enabled;
+    private final int topKeys;
+    private final long budgetMs;
+    private final int lookbackDays;
+    private final AtomicInteger warmed = new AtomicInteger();
+    private final AtomicInteger attempted = new AtomicInteger();
+    private volatile boolean ready;
+    private volatile long startedAtMs;
+    private volatile long finishedAtMs;
+
+    public CacheWarmer(PerformanceController controller,
+                       RequestFrequencyTracker tracker,
+                       @Value("${app.warmupEnabled:true}") boolean enabled,
+                       @Value("${app.warmupTopKeys:200}") int topKeys,
+                       @Value("${app.warmupBudgetMs:30000}") long budgetMs,
+                       @Value("${app.warmupLookbackDays:30}") int lookbackDays) {
+        this.controller = controller;
+        this.tracker = tracker;
+        this.enabled = enabled;
+        this.topKeys = topKeys;
+        this.budgetMs = budgetMs;
+        this.lookbackDays = lookbackDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        startedAtMs = System.currentTimeMillis();
+        if (!enabled || topKeys <= 0) {
+            markReady();
+            return;
+        }
+        long deadline = startedAtMs + budgetMs;
+        CompletableFuture.runAsync(() -> warm(deadline), runnable -> {
+                Thread thread = new Thread(runnable, "cache-warmup");
+                thread.setDaemon(true);
+                thread.start();
+            })
+            // A slow query must not hold readiness past the budget; the thread finishes on its own
+            .orTimeout(budgetMs, TimeUnit.MILLISECONDS)
+            .whenComplete((ignored, error) -> {
+                if (error != null) {
+                    logger.warn("⚠️ Cache warm-up stopped early: {}", error.toString());
+                }
+                markReady();
+            });
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("status", ready ? "READY" : "WARMING_UP");
+        status.put("warmedKeys", warmed.get());
+        status.put("attemptedKeys", attempted.get());
+        if (finishedAtMs > 0) {
+            status.put("warmupMs", finishedAtMs - startedAtMs);
+        }
+        return status;
+    }
+
+    private void warm(long deadline) {
+        List<RequestFrequency> popular = tracker.topRequested(topKeys, lookbackDays);
+        logger.info("🔄 Warming response cache for up to {} popular queries ({} ms budget)", popular.size(), budgetMs);
+        for (RequestFrequency f : popular) {
+            if (System.currentTimeMillis() >= deadline) break;
+            attempted.incrementAndGet();
+            try {
+                if (controller.warmFromDatabase(f.getStateName(), f.getDistrictName(), f.getMonth(), f.getFinYear(), f.getRecordLimit())) {
+                    warmed.incrementAndGet();
+                }
+            } catch (Exception e) {
+                logger.debug("Could not warm {}: {}", f.getRequestKey(), e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void markReady() {
+        if (ready) return;
+        finishedAtMs = System.currentTimeMillis();
+        ready = true;
+        logger.info("✅ Cache warm-up done: {} of {} queries cached in {} ms", warmed.get(), attempted.get(), finishedAtMs - startedAtMs);
+    }
+}
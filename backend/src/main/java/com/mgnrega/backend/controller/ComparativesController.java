@@ -1,26 +1,29 @@
 package com.mgnrega.backend.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mgnrega.backend.entity.PerformanceRecord;
-import com.mgnrega.backend.repository.PerformanceRecordRepository;
+import com.mgnrega.backend.service.FiscalPeriod;
+import com.mgnrega.backend.service.NameCanonicalizer;
+import com.mgnrega.backend.service.PerformanceSnapshot;
+import com.mgnrega.backend.service.PerformanceSnapshot.StateBlock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/comparatives")
 @CrossOrigin(origins = "*")
 public class ComparativesController {
     private static final Logger logger = LoggerFactory.getLogger(ComparativesController.class);
-    private final PerformanceRecordRepository repository;
+    private final NameCanonicalizer names;
+    private final PerformanceSnapshot snapshot;
     private final ObjectMapper objectMapper;
 
-    public ComparativesController(PerformanceRecordRepository repository) {
-        this.repository = repository;
+    public ComparativesController(NameCanonicalizer names, PerformanceSnapshot snapshot) {
+        this.names = names;
+        this.snapshot = snapshot;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -30,189 +33,74 @@ public class ComparativesController {
                                                     @RequestParam(required = false) String finYear,
                                                     @RequestParam(required = false) String month) {
         try {
-            // First try exact match
-            List<PerformanceRecord> stateRecords = repository.findRecentByState(state);
+            // Stored names are canonical, so case and spacing differences match exactly
+            String canonicalState = names.state(state);
+            String canonicalDistrict = names.district(canonicalState, district);
+            StateBlock stateData = snapshot.state(canonicalState);
             
-            // If exact match not found, try case-insensitive search
-            if (stateRecords.isEmpty()) {
-                logger.info("No exact match for state '{}', trying case-insensitive search...", state);
-                List<PerformanceRecord> allRecords = repository.findAll();
-                stateRecords = allRecords.stream()
-                    .filter(r -> r.getStateName() != null && 
-                        r.getStateName().equalsIgnoreCase(state))
-                    .sorted((a, b) -> {
-                        int yearComp = (b.getFinYear() != null && a.getFinYear() != null) 
-                            ? b.getFinYear().compareTo(a.getFinYear()) : 0;
-                        if (yearComp != 0) return yearComp;
-                        return (b.getMonth() != null && a.getMonth() != null) 
-                            ? b.getMonth().compareTo(a.getMonth()) : 0;
-                    })
-                    .collect(Collectors.toList());
+            if (stateData == null && canonicalState != null) {
+                // Try partial match (contains) against the snapshot's list of states
+                logger.info("No match for state '{}', trying partial match...", state);
+                String closest = snapshot.closestState(canonicalState);
+                if (closest != null) {
+                    stateData = snapshot.state(closest);
+                }
                 
-                if (!stateRecords.isEmpty()) {
-                    logger.info("✅ Found {} records with case-insensitive match for state '{}'", stateRecords.size(), state);
-                    logger.info("Actual state name in DB: '{}'", stateRecords.get(0).getStateName());
-                } else {
-                    // Try partial match (contains)
-                    logger.info("No case-insensitive match, trying partial match...");
-                    stateRecords = allRecords.stream()
-                        .filter(r -> r.getStateName() != null && 
-                            (r.getStateName().toLowerCase().contains(state.toLowerCase()) ||
-                             state.toLowerCase().contains(r.getStateName().toLowerCase())))
-                        .sorted((a, b) -> {
-                            int yearComp = (b.getFinYear() != null && a.getFinYear() != null) 
-                                ? b.getFinYear().compareTo(a.getFinYear()) : 0;
-                            if (yearComp != 0) return yearComp;
-                            return (b.getMonth() != null && a.getMonth() != null) 
-                                ? b.getMonth().compareTo(a.getMonth()) : 0;
-                        })
-                        .collect(Collectors.toList());
-                    
-                    if (!stateRecords.isEmpty()) {
-                        logger.info("✅ Found {} records with partial match for state '{}'", stateRecords.size(), state);
-                    }
+                if (stateData != null) {
+                    logger.info("✅ Found {} records with partial match for state '{}'", stateData.rowCount(), state);
                 }
             }
             
             Map<String, Object> response = new HashMap<>();
             
-            if (stateRecords.isEmpty()) {
+            if (stateData == null) {
                 // Check what states are actually available in database
-                List<PerformanceRecord> allRecords = repository.findAll();
-                Set<String> availableStates = allRecords.stream()
-                    .filter(r -> r.getStateName() != null)
-                    .map(r -> r.getStateName())
-                    .collect(Collectors.toSet());
+                List<String> availableStates = snapshot.stateNames();
                 
                 logger.warn("No state records found for: {}. Available states in DB: {}", state, availableStates);
                 response.put("error", "No data available for state: " + state + ". Please fetch performance data first by clicking 'View Performance'.");
                 if (!availableStates.isEmpty()) {
-                    response.put("availableStates", new ArrayList<>(availableStates));
+                    response.put("availableStates", availableStates);
                     response.put("hint", "Available states in database: " + String.join(", ", availableStates));
                 }
                 return ResponseEntity.ok(objectMapper.writeValueAsString(response));
             }
 
             // Get latest month/year from records
-            PerformanceRecord latest = stateRecords.get(0);
-            String year = finYear != null ? finYear : latest.getFinYear();
-            String mon = month != null ? month : latest.getMonth();
-
-            // Calculate state averages for the specified period
-            // Use the actual state name from records (case-insensitive match)
-            String actualStateName = stateRecords.get(0).getStateName();
-            Double avgPersondays = repository.findStateAveragePersondays(actualStateName, year, mon);
-            Double avgHouseholds = repository.findStateAverageHouseholds(actualStateName, year, mon);
-            
-            // If averages are null, calculate manually from available records
-            if (avgPersondays == null || avgHouseholds == null) {
-                logger.info("Calculating average manually from {} records for state '{}', year '{}', month '{}'", 
-                    stateRecords.size(), actualStateName, year, mon);
-                
-                List<PerformanceRecord> recordsForPeriod = stateRecords.stream()
-                    .filter(r -> year.equals(r.getFinYear()) && mon.equals(r.getMonth()))
-                    .collect(Collectors.toList());
-                
-                if (!recordsForPeriod.isEmpty()) {
-                    avgPersondays = recordsForPeriod.stream()
-                        .filter(r -> r.getPersondaysGenerated() != null)
-                        .mapToDouble(r -> r.getPersondaysGenerated().doubleValue())
-                        .average()
-                        .orElse(0.0);
-                    
-                    avgHouseholds = recordsForPeriod.stream()
-                        .filter(r -> r.getHouseholdsWorked() != null)
-                        .mapToLong(r -> r.getHouseholdsWorked())
-                        .average()
-                        .orElse(0.0);
-                    
-                    logger.info("✅ Calculated average from {} records: persondays={}, households={}", 
-                        recordsForPeriod.size(), avgPersondays, avgHouseholds);
-                } else {
-                    // If no records for exact period, use all available records for the state
-                    logger.info("No records for exact period '{}'/'{}', calculating from all available records for state", year, mon);
-                    if (!stateRecords.isEmpty()) {
-                        List<PerformanceRecord> recordsWithData = stateRecords.stream()
-                            .filter(r -> r.getPersondaysGenerated() != null || r.getHouseholdsWorked() != null)
-                            .collect(Collectors.toList());
-                        
-                        if (!recordsWithData.isEmpty()) {
-                            avgPersondays = recordsWithData.stream()
-                                .filter(r -> r.getPersondaysGenerated() != null)
-                                .mapToDouble(r -> r.getPersondaysGenerated().doubleValue())
-                                .average()
-                                .orElse(0.0);
-                            
-                            avgHouseholds = recordsWithData.stream()
-                                .filter(r -> r.getHouseholdsWorked() != null)
-                                .mapToLong(r -> r.getHouseholdsWorked())
-                                .average()
-                                .orElse(0.0);
-                            
-                            logger.info("✅ Calculated average from {} records: persondays={}, households={}", 
-                                recordsWithData.size(), avgPersondays, avgHouseholds);
-                        }
-                    }
-                }
+            String year = finYear != null ? finYear : stateData.finYear(0);
+            String mon = month != null ? month : stateData.month(0);
+            int period = stateData.periodIndex(FiscalPeriod.periodKey(year, mon));
+
+            // State averages for the period; the state's whole history if the period has no data
+            String actualStateName = stateData.state();
+            double avgPersondays = stateData.averagePersondays(period);
+            double avgHouseholds = stateData.averageHouseholds(period);
+            if (Double.isNaN(avgPersondays) || Double.isNaN(avgHouseholds)) {
+                logger.info("No averages for period '{}'/'{}', calculating from all available records for state", year, mon);
+                avgPersondays = stateData.averagePersondays(-1);
+                avgHouseholds = stateData.averageHouseholds(-1);
             }
             
             // Ensure we have values (default to 0 if still null)
-            if (avgPersondays == null) avgPersondays = 0.0;
-            if (avgHouseholds == null) avgHouseholds = 0.0;
+            if (Double.isNaN(avgPersondays)) avgPersondays = 0.0;
+            if (Double.isNaN(avgHouseholds)) avgHouseholds = 0.0;
 
             // Get district data if specified
             Double districtPersondays = null;
             Long districtHouseholds = null;
             
             if (district != null) {
-                // Try exact month/year match first
-                List<PerformanceRecord> districtRecords = stateRecords.stream()
-                    .filter(r -> district != null && r.getDistrictName() != null && 
-                        district.equalsIgnoreCase(r.getDistrictName()))
-                    .filter(r -> year.equals(r.getFinYear()) && mon.equals(r.getMonth()))
-                    .collect(Collectors.toList());
+                // Exact month/year if the district reported it, else its latest record
+                int row = stateData.districtRow(canonicalDistrict, period);
                 
-                // If no exact match, try to find latest record for this district
-                if (districtRecords.isEmpty()) {
-                    logger.info("No exact match for district '{}' in period {}/{}, trying latest available...", district, mon, year);
-                    districtRecords = stateRecords.stream()
-                        .filter(r -> district != null && r.getDistrictName() != null && 
-                            district.equalsIgnoreCase(r.getDistrictName()))
-                        .sorted((a, b) -> {
-                            int yearComp = (b.getFinYear() != null && a.getFinYear() != null) 
-                                ? b.getFinYear().compareTo(a.getFinYear()) : 0;
-                            if (yearComp != 0) return yearComp;
-                            return (b.getMonth() != null && a.getMonth() != null) 
-                                ? b.getMonth().compareTo(a.getMonth()) : 0;
-                        })
-                        .limit(1)
-                        .collect(Collectors.toList());
-                    
-                    if (!districtRecords.isEmpty()) {
-                        PerformanceRecord foundRecord = districtRecords.get(0);
-                        logger.info("✅ Found latest record for district '{}': {}/{}", 
-                            district, foundRecord.getMonth(), foundRecord.getFinYear());
-                        // Use the year/month from the found record for comparison
-                        // But keep original year/mon for state average calculation
-                    } else {
-                        // List available districts for this state
-                        Set<String> availableDistricts = stateRecords.stream()
-                            .filter(r -> r.getDistrictName() != null)
-                            .map(r -> r.getDistrictName())
-                            .collect(Collectors.toSet());
-                        logger.warn("District '{}' not found in state '{}'. Available districts: {}", 
-                            district, actualStateName, availableDistricts);
-                    }
-                }
-                
-                if (!districtRecords.isEmpty()) {
-                    PerformanceRecord distRec = districtRecords.get(0);
-                    districtPersondays = distRec.getPersondaysGenerated() != null ? 
-                        distRec.getPersondaysGenerated().doubleValue() : null;
-                    districtHouseholds = distRec.getHouseholdsWorked();
+                if (row >= 0) {
+                    Long persondays = stateData.persondaysGenerated(row);
+                    districtPersondays = persondays != null ? persondays.doubleValue() : null;
+                    districtHouseholds = stateData.householdsWorked(row);
                     logger.info("District '{}' data: persondays={}, households={}", district, districtPersondays, districtHouseholds);
                 } else {
-                    logger.warn("No records found for district '{}' in state '{}'", district, actualStateName);
+                    logger.warn("District '{}' not found in state '{}'. Available districts: {}", 
+                        district, actualStateName, stateData.districtNames());
                 }
             }
 
@@ -220,16 +108,16 @@ public class ComparativesController {
             response.put("requestedState", state); // Keep original for reference
             response.put("year", year);
             response.put("month", mon);
-            response.put("stateAveragePersondays", avgPersondays != null ? Math.round(avgPersondays) : 0);
-            response.put("stateAverageHouseholds", avgHouseholds != null ? Math.round(avgHouseholds) : 0);
-            response.put("recordsUsed", stateRecords.size()); // Debug info
+            response.put("stateAveragePersondays", Math.round(avgPersondays));
+            response.put("stateAverageHouseholds", Math.round(avgHouseholds));
+            response.put("recordsUsed", stateData.rowCount()); // Debug info
             
             if (district != null) {
                 response.put("district", district);
                 response.put("districtPersondays", districtPersondays != null ? Math.round(districtPersondays) : null);
                 response.put("districtHouseholds", districtHouseholds);
                 
-                if (avgPersondays != null && avgPersondays > 0 && districtPersondays != null && districtPersondays > 0) {
+                if (avgPersondays > 0 && districtPersondays != null && districtPersondays > 0) {
                     double percentage = ((districtPersondays - avgPersondays) / avgPersondays) * 100;
                     response.put("persondaysDifferencePercent", Math.round(percentage * 100.0) / 100.0);
                     response.put("aboveStateAverage", districtPersondays > avgPersondays);
@@ -241,11 +129,7 @@ public class ComparativesController {
                         response.put("districtDataMissing", true);
                         response.put("message", "District data not available for comparison period");
                         // Include available districts for this state
-                        Set<String> availableDistricts = stateRecords.stream()
-                            .filter(r -> r.getDistrictName() != null)
-                            .map(r -> r.getDistrictName())
-                            .collect(Collectors.toSet());
-                        response.put("availableDistricts", new ArrayList<>(availableDistricts));
+                        response.put("availableDistricts", stateData.districtNames());
                     }
                 }
             }
@@ -264,108 +148,44 @@ public class ComparativesController {
                                                      @RequestParam(required = false) String finYear,
                                                      @RequestParam(required = false) String month) {
         try {
-            List<PerformanceRecord> allRecords = repository.findRecentByState(state);
+            // Stored names are canonical, so case and spacing differences match exactly
+            String canonicalState = names.state(state);
+            String canonical1 = names.district(canonicalState, district1);
+            String canonical2 = names.district(canonicalState, district2);
+            StateBlock stateData = snapshot.state(canonicalState);
             
-            // If exact match not found, try case-insensitive search
-            if (allRecords.isEmpty()) {
-                logger.info("No exact match for state '{}', trying case-insensitive search...", state);
-                List<PerformanceRecord> allRecordsInDB = repository.findAll();
-                allRecords = allRecordsInDB.stream()
-                    .filter(r -> r.getStateName() != null && 
-                        r.getStateName().equalsIgnoreCase(state))
-                    .sorted((a, b) -> {
-                        int yearComp = (b.getFinYear() != null && a.getFinYear() != null) 
-                            ? b.getFinYear().compareTo(a.getFinYear()) : 0;
-                        if (yearComp != 0) return yearComp;
-                        return (b.getMonth() != null && a.getMonth() != null) 
-                            ? b.getMonth().compareTo(a.getMonth()) : 0;
-                    })
-                    .collect(Collectors.toList());
-                
-                if (!allRecords.isEmpty()) {
-                    logger.info("Found {} records with case-insensitive match for state '{}'", allRecords.size(), state);
-                }
-            }
-            
-            if (allRecords.isEmpty()) {
+            if (stateData == null) {
                 // Check what states are actually available
-                List<PerformanceRecord> allRecordsInDB = repository.findAll();
-                Set<String> availableStates = allRecordsInDB.stream()
-                    .filter(r -> r.getStateName() != null)
-                    .map(r -> r.getStateName())
-                    .collect(Collectors.toSet());
+                List<String> availableStates = snapshot.stateNames();
                 
                 logger.warn("No records found for state: {}. Available states in DB: {}", state, availableStates);
                 Map<String, Object> errorResponse = new HashMap<>();
                 errorResponse.put("error", "No data available for state: " + state + ". Please fetch performance data first.");
                 if (!availableStates.isEmpty()) {
-                    errorResponse.put("availableStates", new ArrayList<>(availableStates));
+                    errorResponse.put("availableStates", availableStates);
                     errorResponse.put("hint", "Available states in database: " + String.join(", ", availableStates));
                 }
                 return ResponseEntity.ok(objectMapper.writeValueAsString(errorResponse));
             }
 
-            PerformanceRecord latest = allRecords.get(0);
-            String year = finYear != null ? finYear : latest.getFinYear();
-            String mon = month != null ? month : latest.getMonth();
+            String year = finYear != null ? finYear : stateData.finYear(0);
+            String mon = month != null ? month : stateData.month(0);
+            int period = stateData.periodIndex(FiscalPeriod.periodKey(year, mon));
 
-            // Find districts with case-insensitive matching and flexible month/year matching
-            PerformanceRecord d1 = allRecords.stream()
-                .filter(r -> district1 != null && r.getDistrictName() != null && 
-                    district1.equalsIgnoreCase(r.getDistrictName()))
-                .filter(r -> {
-                    // Try exact match first
-                    if (year.equals(r.getFinYear()) && mon.equals(r.getMonth())) return true;
-                    // If no exact match, try latest month/year for this district
-                    return year == null || mon == null || 
-                        (r.getFinYear() != null && r.getMonth() != null);
-                })
-                .sorted((a, b) -> {
-                    // Prefer exact month/year match
-                    boolean aExact = year.equals(a.getFinYear()) && mon.equals(a.getMonth());
-                    boolean bExact = year.equals(b.getFinYear()) && mon.equals(b.getMonth());
-                    if (aExact && !bExact) return -1;
-                    if (!aExact && bExact) return 1;
-                    // Then by year/month descending
-                    int yearComp = (b.getFinYear() != null && a.getFinYear() != null) 
-                        ? b.getFinYear().compareTo(a.getFinYear()) : 0;
-                    if (yearComp != 0) return yearComp;
-                    return (b.getMonth() != null && a.getMonth() != null) 
-                        ? b.getMonth().compareTo(a.getMonth()) : 0;
-                })
-                .findFirst()
-                .orElse(null);
-
-            PerformanceRecord d2 = allRecords.stream()
-                .filter(r -> district2 != null && r.getDistrictName() != null && 
-                    district2.equalsIgnoreCase(r.getDistrictName()))
-                .filter(r -> {
-                    if (year.equals(r.getFinYear()) && mon.equals(r.getMonth())) return true;
-                    return year == null || mon == null || 
-                        (r.getFinYear() != null && r.getMonth() != null);
-                })
-                .sorted((a, b) -> {
-                    boolean aExact = year.equals(a.getFinYear()) && mon.equals(a.getMonth());
-                    boolean bExact = year.equals(b.getFinYear()) && mon.equals(b.getMonth());
-                    if (aExact && !bExact) return -1;
-                    if (!aExact && bExact) return 1;
-                    int yearComp = (b.getFinYear() != null && a.getFinYear() != null) 
-                        ? b.getFinYear().compareTo(a.getFinYear()) : 0;
-                    if (yearComp != 0) return yearComp;
-                    return (b.getMonth() != null && a.getMonth() != null) 
-                        ? b.getMonth().compareTo(a.getMonth()) : 0;
-                })
-                .findFirst()
-                .orElse(null);
+            // Find districts by canonical name: the requested month/year, else each district's latest
+            int d1 = stateData.districtRow(canonical1, period);
+            int d2 = stateData.districtRow(canonical2, period);
 
             Map<String, Object> response = new HashMap<>();
             response.put("year", year);
             response.put("month", mon);
-            response.put("district1", createDistrictData(district1, d1));
-            response.put("district2", createDistrictData(district2, d2));
+            response.put("district1", createDistrictData(district1, stateData, d1));
+            response.put("district2", createDistrictData(district2, stateData, d2));
 
-            if (d1 != null && d2 != null && d1.getPersondaysGenerated() != null && d2.getPersondaysGenerated() != null) {
-                long diff = d1.getPersondaysGenerated() - d2.getPersondaysGenerated();
+            Long persondays1 = d1 >= 0 ? stateData.persondaysGenerated(d1) : null;
+            Long persondays2 = d2 >= 0 ? stateData.persondaysGenerated(d2) : null;
+            if (persondays1 != null && persondays2 != null) {
+                long diff = persondays1 - persondays2;
                 response.put("differencePersondays", diff);
                 response.put("betterDistrict", diff > 0 ? district1 : district2);
             }
@@ -377,20 +197,19 @@ public class ComparativesController {
         }
     }
 
-    private Map<String, Object> createDistrictData(String name, PerformanceRecord record) {
+    private Map<String, Object> createDistrictData(String name, StateBlock stateData, int row) {
         Map<String, Object> data = new HashMap<>();
         data.put("name", name);
-        if (record != null) {
-            data.put("persondaysGenerated", record.getPersondaysGenerated());
-            data.put("householdsWorked", record.getHouseholdsWorked());
-            data.put("womenPersondaysPercent", record.getWomenPersondaysPercent());
-            data.put("noOfOngoingWorks", record.getNoOfOngoingWorks());
-            data.put("noOfCompletedWorks", record.getNoOfCompletedWorks());
-            data.put("avgWageRate", record.getAvgWageRate());
+        if (row >= 0) {
+            data.put("persondaysGenerated", stateData.persondaysGenerated(row));
+            data.put("householdsWorked", stateData.householdsWorked(row));
+            data.put("womenPersondaysPercent", stateData.womenPersondaysPercent(row));
+            data.put("noOfOngoingWorks", stateData.noOfOngoingWorks(row));
+            data.put("noOfCompletedWorks", stateData.noOfCompletedWorks(row));
+            data.put("avgWageRate", stateData.avgWageRate(row));
         } else {
             data.put("error", "No data available");
         }
         return data;
     }
 }
-
@@ -0,0 +1,91 @@
+package com.mgnrega.backend.controller;
+
+import com.mgnrega.backend.entity.HarvestCheckpoint;
+import com.mgnrega.backend.entity.SyncWatermark;
+import com.mgnrega.backend.service.BulkHarvester;
+import com.mgnrega.backend.service.DeltaSyncService;
+import com.mgnrega.backend.service.PlaceDictionary;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/harvest")
+@CrossOrigin(origins = "*")
+public class HarvestController {
+    private final BulkHarvester harvester;
+    private final DeltaSyncService syncService;
+    private final PlaceDictionary places;
+
+    public HarvestController(BulkHarvester harvester, DeltaSyncService syncService, PlaceDictionary places) {
+        this.harvester = harvester;
+        this.syncService = syncService;
+        this.places = places;
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> startHarvest(@RequestParam(required = false) String finYear) {
+        try {
+            HarvestCheckpoint checkpoint = harvester.start(finYear);
+            return ResponseEntity.accepted().body(toMap(checkpoint));
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getStatus(@RequestParam(required = false) String finYear) {
+        return harvester.status(finYear)
+            .map(checkpoint -> ResponseEntity.ok(toMap(checkpoint)))
+            .orElseGet(() -> {
+                Map<String, Object> error = new HashMap<>();
+                error.put("error", "No harvest has been started for this financial year");
+                return ResponseEntity.status(404).body(error);
+            });
+    }
+
+    @PostMapping("/sync")
+    public ResponseEntity<Map<String, Object>> startSync() {
+        Map<String, Object> data = new HashMap<>();
+        boolean started = syncService.startAsync();
+        data.put("status", started ? "started" : "already-running");
+        return ResponseEntity.accepted().body(data);
+    }
+
+    @GetMapping("/sync/lag")
+    public List<Map<String, Object>> getSyncLag() {
+        return syncService.lagReport().stream().map(this::toMap).collect(Collectors.toList());
+    }
+
+    private Map<String, Object> toMap(SyncWatermark watermark) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("state", places.stateName(watermark.getStateId()));
+        data.put("district", places.districtName(watermark.getDistrictId()));
+        data.put("finYear", watermark.getFinYear());
+        data.put("month", watermark.getMonth());
+        data.put("lagMonths", watermark.getLagMonths());
+        data.put("lastSyncedAt", watermark.getLastSyncedAt() != null ? watermark.getLastSyncedAt().toString() : null);
+        return data;
+    }
+
+    private Map<String, Object> toMap(HarvestCheckpoint checkpoint) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("job", checkpoint.getJobKey());
+        data.put("finYear", checkpoint.getFinYear());
+        data.put("status", checkpoint.getStatus());
+        data.put("pageSize", checkpoint.getPageSize());
+        data.put("totalRecords", checkpoint.getTotalRecords());
+        data.put("nextOffset", checkpoint.getNextOffset());
+        data.put("recordsSaved", checkpoint.getRecordsSaved());
+        data.put("lastError", checkpoint.getLastError());
+        data.put("startedAt", checkpoint.getStartedAt() != null ? checkpoint.getStartedAt().toString() : null);
+        data.put("updatedAt", checkpoint.getUpdatedAt() != null ? checkpoint.getUpdatedAt().toString() : null);
+        return data;
+    }
+}
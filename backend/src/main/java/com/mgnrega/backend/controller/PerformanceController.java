@@ -1,20 +1,47 @@
 package com.mgnrega.backend.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.mgnrega.backend.entity.PerformanceRecord;
+import com.mgnrega.backend.service.CachedResponse;
 import com.mgnrega.backend.service.DataGovClient;
+import com.mgnrega.backend.service.DataVersions;
+import com.mgnrega.backend.service.FiscalPeriod;
+import com.mgnrega.backend.service.IngestResult;
+import com.mgnrega.backend.service.NameCanonicalizer;
 import com.mgnrega.backend.service.PerformanceDataService;
-import com.mgnrega.backend.service.RateLimiter;
-import com.mgnrega.backend.service.SimpleCache;
+import com.mgnrega.backend.service.PerformanceResponseCache;
+import com.mgnrega.backend.service.UpstreamCallScheduler;
+import com.mgnrega.backend.service.UpstreamCallScheduler.Priority;
+import com.mgnrega.backend.service.UpstreamPermitException;
+import com.mgnrega.backend.service.RequestFrequencyTracker;
+import com.mgnrega.backend.service.SingleFlight;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
 @RequestMapping("/api/performance")
@@ -23,120 +50,193 @@ public class PerformanceController {
     private static final Logger logger = LoggerFactory.getLogger(PerformanceController.class);
     private final DataGovClient client;
     private final PerformanceDataService dataService;
-    private final RateLimiter rateLimiter;
-    private final SimpleCache<String, String> cache;
+    private final UpstreamCallScheduler upstream;
+    private final PerformanceResponseCache cache;
+    private final RequestFrequencyTracker requestStats;
+    private final DataVersions dataVersions;
+    private final NameCanonicalizer names;
+    private final SingleFlight<String, ResponseEntity<CachedResponse>> inFlight = new SingleFlight<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    // Refreshes block on the database, upstream and permits, so they get their own threads, not the common pool
+    private final ScheduledExecutorService refreshExecutor;
     private final ObjectMapper objectMapper;
     private final String resourceId;
     private final boolean useDatabase;
+    private final long singleFlightWaitMs;
+    private final long permitWaitMs;
 
     public PerformanceController(DataGovClient client,
                                  PerformanceDataService dataService,
-                                 RateLimiter rateLimiter,
+                                 UpstreamCallScheduler upstream,
+                                 PerformanceResponseCache cache,
+                                 RequestFrequencyTracker requestStats,
+                                 DataVersions dataVersions,
+                                 NameCanonicalizer names,
                                  @Value("${datagov.resourceId:ee03643a-ee4c-48c2-ac30-9f2ff26ab722}") String resourceId,
-                                 @Value("${datagov.cacheTtlSeconds:900}") long ttlSeconds,
-                                 @Value("${app.useDatabase:true}") boolean useDatabase) {
+                                 @Value("${app.useDatabase:true}") boolean useDatabase,
+                                 @Value("${app.singleFlightWaitMs:10000}") long singleFlightWaitMs,
+                                 @Value("${app.permitWaitMs:1000}") long permitWaitMs,
+                                 @Value("${app.refreshThreads:2}") int refreshThreads) {
         this.client = client;
         this.dataService = dataService;
-        this.rateLimiter = rateLimiter;
+        this.upstream = upstream;
         this.resourceId = resourceId;
         this.useDatabase = useDatabase;
-        this.cache = new SimpleCache<>(ttlSeconds * 1000);
+        this.singleFlightWaitMs = singleFlightWaitMs;
+        this.permitWaitMs = permitWaitMs;
+        this.cache = cache;
+        this.requestStats = requestStats;
+        this.dataVersions = dataVersions;
+        this.names = names;
         this.objectMapper = new ObjectMapper();
+        AtomicInteger refreshThreadCount = new AtomicInteger();
+        this.refreshExecutor = Executors.newScheduledThreadPool(Math.max(1, refreshThreads), runnable -> {
+            Thread thread = new Thread(runnable, "stale-refresh-" + refreshThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        refreshExecutor.shutdownNow();
     }
 
     @GetMapping
-    public ResponseEntity<String> getPerformance(@RequestParam(required = false) String state,
-                                                   @RequestParam(required = false) String district,
-                                                   @RequestParam(required = false) String month,
-                                                   @RequestParam(required = false) String year,
-                                                   @RequestParam(required = false, defaultValue = "12") String limit) {
+    public ResponseEntity<byte[]> getPerformance(@RequestParam(required = false) String state,
+                                                 @RequestParam(required = false) String district,
+                                                 @RequestParam(required = false) String month,
+                                                 @RequestParam(required = false) String year,
+                                                 @RequestParam(required = false, defaultValue = "12") String limit,
+                                                 @RequestParam(required = false) Integer cursor,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Integer rows = parseLimit(limit);
+        if (rows == null) return render(badLimit(), ifNoneMatch, acceptEncoding);
+        // "Uttar Pradesh" and " UTTAR PRADESH" share one cache entry, one flight and one database lookup
+        String canonicalState = names.state(state);
+        String canonicalDistrict = names.district(canonicalState, district);
+        if (cursor != null) {
+            // Older pages are history the database already has; only the first page ever goes upstream
+            return render(olderPage(canonicalState, canonicalDistrict, rows, cursor), ifNoneMatch, acceptEncoding);
+        }
+        String cacheKey = cacheKey(canonicalState, canonicalDistrict, month, year, rows);
+        requestStats.record(canonicalState, canonicalDistrict, month, year, String.valueOf(rows));
+        // Concurrent misses for the same query share one database read and one upstream call
+        ResponseEntity<CachedResponse> result = inFlight.execute(flightKey(canonicalState, canonicalDistrict, month, year, rows),
+            () -> loadPerformance(canonicalState, canonicalDistrict, month, year, rows, cacheKey, Priority.INTERACTIVE),
+            singleFlightWaitMs,
+            () -> staleOrBusy(cacheKey));
+        return render(result, ifNoneMatch, acceptEncoding);
+    }
+
+    @GetMapping("/cache/stats")
+    public Map<String, Object> cacheStats() {
+        return cache.stats();
+    }
+
+    @GetMapping("/upstream/stats")
+    public Map<String, Object> upstreamStats() {
+        return upstream.stats();
+    }
+
+    /**
+     * Caches the database-backed response for a query without calling upstream,
+     * as {@link #getPerformance} would build it. False if the database has no
+     * usable rows for it.
+     */
+    boolean warmFromDatabase(String rawState, String rawDistrict, String month, String year, String rawLimit) throws JsonProcessingException {
+        String state = names.state(rawState);
+        String district = names.district(state, rawDistrict);
+        Integer limit = parseLimit(rawLimit);
+        if (!useDatabase || state == null || district == null || limit == null) return false;
+        String cacheKey = cacheKey(state, district, month, year, limit);
+        long dataVersion = dataVersions.current(state, district);
+        if (cache.get(cacheKey, dataVersion) != null) return true;
+        List<PerformanceRecord> dbRecords = dataService.getFromDatabase(state, district, limit);
+        if (dbRecords.isEmpty() || !hasRealData(dbRecords) || missingWomenPercent(dbRecords)) return false;
+        cache.putUntilChanged(cacheKey, CachedResponse.of(recordsResponse(dbRecords, "database")), dataVersion);
+        return true;
+    }
+
+    /** The page after {@code cursor}, a nextCursor from an earlier response. Expects canonical names. */
+    private ResponseEntity<CachedResponse> olderPage(String state, String district, int limit, int cursor) {
+        if (!useDatabase || state == null || district == null) {
+            return ResponseEntity.badRequest()
+                .body(CachedResponse.of("{\"error\":\"cursor needs a state and a district\"}"));
+        }
         try {
-            String cacheKey = (state == null ? "" : state) + "|" + (district == null ? "" : district) + "|" + (month == null ? "" : month) + "|" + (year == null ? "" : year) + "|" + limit;
-            
-            // Try database first if enabled
+            String cacheKey = cacheKey(state, district, null, null, limit) + "|" + cursor;
+            long dataVersion = dataVersions.current(state, district);
+            CachedResponse cached = cache.get(cacheKey, dataVersion);
+            if (cached != null) return ResponseEntity.ok(cached);
+            List<PerformanceRecord> page = dataService.getFromDatabase(state, district, limit, cursor);
+            CachedResponse response = CachedResponse.of(recordsResponse(page, "database"));
+            cache.putUntilChanged(cacheKey, response, dataVersion);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("❌ Error reading page before {} for {}/{}: {}", cursor, state, district, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(CachedResponse.of("{\"error\":\"Failed to load older records\"}"));
+        }
+    }
+
+    private ResponseEntity<CachedResponse> staleOrBusy(String cacheKey) {
+        CachedResponse stale = cache.getStale(cacheKey);
+        if (stale != null) {
+            logger.info("Identical request still in flight, returning stale cached data for key: {}", cacheKey);
+            return ResponseEntity.ok(stale);
+        }
+        logger.warn("Identical request still in flight after {} ms and nothing cached for key: {}", singleFlightWaitMs, cacheKey);
+        return ResponseEntity.status(503)
+            .header("Retry-After", "2")
+            .body(CachedResponse.of("{\"error\":\"Data is still loading. Please try again shortly.\"}"));
+    }
+
+    /** The row count asked for, or null when it is not a non-negative number. */
+    private static Integer parseLimit(String limit) {
+        try {
+            int rows = Integer.parseInt(limit.trim());
+            return rows < 0 ? null : rows;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static ResponseEntity<CachedResponse> badLimit() {
+        return ResponseEntity.badRequest().body(CachedResponse.of("{\"error\":\"limit must be a non-negative number\"}"));
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase();
+    }
+
+    private ResponseEntity<CachedResponse> loadPerformance(String state, String district, String month,
+                                                   String year, int limit, String cacheKey, Priority priority) {
+        try {
+            // Read before the rows, so a write landing meanwhile outdates what we cache
+            long dataVersion = dataVersions.current(state, district);
+            // Cached responses (including ones pre-built at warm-up) skip the database
+            CachedResponse cached = cache.get(cacheKey, dataVersion);
+            if (cached != null) {
+                logger.info("Returning cached data for key: {}", cacheKey);
+                return ResponseEntity.ok(cached);
+            }
+
+            // Try database next if enabled
             if (useDatabase && state != null && district != null) {
-                List<PerformanceRecord> dbRecords = dataService.getFromDatabase(state, district, Integer.parseInt(limit));
+                List<PerformanceRecord> dbRecords = dataService.getFromDatabase(state, district, limit);
                 // Check if database records have actual data (not all nulls)
-                boolean hasRealData = dbRecords.stream().anyMatch(r -> 
-                    r.getPersondaysGenerated() != null || 
-                    r.getHouseholdsWorked() != null || 
-                    r.getAvgWageRate() != null || 
-                    r.getTotalWages() != null
-                );
-                
+                boolean hasRealData = hasRealData(dbRecords);
                 // Check if women_persondays_percent is missing (even if other data exists)
-                boolean missingWomenPercent = dbRecords.stream().anyMatch(r -> 
-                    r.getWomenPersondaysPercent() == null && 
-                    (r.getPersondaysGenerated() != null || r.getHouseholdsWorked() != null)
-                );
+                boolean missingWomenPercent = missingWomenPercent(dbRecords);
                 
                 if (!dbRecords.isEmpty() && hasRealData && !missingWomenPercent) {
                     logger.info("Returning {} records from database (with data)", dbRecords.size());
                     
                     // Convert PerformanceRecord objects to snake_case format (matching API response format)
-                    List<Map<String, Object>> recordsList = new java.util.ArrayList<>();
-                    for (PerformanceRecord pr : dbRecords) {
-                        Map<String, Object> record = new HashMap<>();
-                        record.put("fin_year", pr.getFinYear());
-                        record.put("month", pr.getMonth());
-                        record.put("state_name", pr.getStateName());
-                        record.put("district_name", pr.getDistrictName());
-                        record.put("households_worked", pr.getHouseholdsWorked());
-                        
-                        // Calculate persondays_generated if null - we can't recalculate from raw API data
-                        // but we'll use what's stored or try to infer
-                        Long persondays = pr.getPersondaysGenerated();
-                        record.put("persondays_generated", persondays);
-                        record.put("Total_Persondays_Generated", persondays);
-                        record.put("Persondays_of_Central_Liability_so_far", persondays);
-                        
-                        // Calculate women_persondays_percent if null
-                        // Note: We don't have Women_Persondays stored separately, so we can't recalculate
-                        // This is why we need fresh data from API
-                        Double womenPercent = pr.getWomenPersondaysPercent();
-                        
-                        // If women percent is null but we have persondays, we can't calculate without Women_Persondays
-                        // However, we can check if the data should be refreshed from API
-                        if (womenPercent == null && persondays == null) {
-                            logger.warn("Record {} - {} has null persondays and women percent. Should fetch fresh from API.", 
-                                pr.getDistrictName(), pr.getStateName());
-                        }
-                        
-                        record.put("women_persondays_percent", womenPercent);
-                        record.put("Women_Persondays_Percent", womenPercent);
-                        
-                        record.put("no_of_ongoing_works", pr.getNoOfOngoingWorks());
-                        record.put("no_of_completed_works", pr.getNoOfCompletedWorks());
-                        // Wage fields - ensure they're included even if null
-                        record.put("avg_wage_rate", pr.getAvgWageRate());
-                        record.put("total_wages", pr.getTotalWages());
-                        // Also include alternative field names for compatibility
-                        record.put("Average_Wage_rate_per_day_per_person", pr.getAvgWageRate());
-                        record.put("Material_and_skilled_Wages", pr.getTotalWages());
-                        record.put("Total_Households_Worked", pr.getHouseholdsWorked());
-                        record.put("Number_of_Ongoing_Works", pr.getNoOfOngoingWorks());
-                        record.put("Number_of_Completed_Works", pr.getNoOfCompletedWorks());
-                        
-                        // Calculate Women_Persondays if we have both persondays and percent
-                        if (persondays != null && womenPercent != null) {
-                            long womenPersondays = (long)(persondays * womenPercent / 100.0);
-                            record.put("Women_Persondays", womenPersondays);
-                        } else {
-                            record.put("Women_Persondays", null);
-                        }
-                        
-                        recordsList.add(record);
-                    }
-                    
-                    logger.info("✅ Converted {} database records to API format", recordsList.size());
-                    
-                    Map<String, Object> response = new HashMap<>();
-                    response.put("records", recordsList);
-                    response.put("source", "database");
-                    response.put("total", recordsList.size());
-                    response.put("count", recordsList.size());
-                    String jsonResponse = objectMapper.writeValueAsString(response);
-                    cache.put(cacheKey, jsonResponse);
+                    CachedResponse jsonResponse = CachedResponse.of(recordsResponse(dbRecords, "database"));
+                    cache.putUntilChanged(cacheKey, jsonResponse, dataVersion);
                     return ResponseEntity.ok(jsonResponse);
                 } else if (!dbRecords.isEmpty() && (!hasRealData || missingWomenPercent)) {
                     // Database has records but they're all null OR missing women_persondays_percent - fetch fresh from API
@@ -148,55 +248,32 @@ public class PerformanceController {
                     // Continue to API fetch below to get fresh data with calculated values
                 }
             }
-            
-            // Check cache AFTER database check (if database had no real data)
-            String cached = cache.get(cacheKey);
-            if (cached != null) {
-                logger.info("Returning cached data for key: {}", cacheKey);
-                return ResponseEntity.ok(cached);
+
+
+            // Upstream is failing: answer from what we have instead of waiting on it
+            if (client.isCircuitOpen()) {
+                return serveLastKnownGood(state, district, month, year, limit, cacheKey);
             }
 
-            // Rate limiting check
-            if (!rateLimiter.allowRequest("datagov-api")) {
-                logger.warn("Rate limit exceeded, returning database data if available");
-                if (useDatabase && state != null && district != null) {
-                    List<PerformanceRecord> dbRecords = dataService.getFromDatabase(state, district, Integer.parseInt(limit));
-                    if (!dbRecords.isEmpty()) {
-                        Map<String, Object> response = new HashMap<>();
-                        response.put("records", dbRecords);
-                        response.put("source", "database");
-                        response.put("note", "Rate limited - showing cached data");
-                        return ResponseEntity.ok(objectMapper.writeValueAsString(response));
-                    }
-                }
-                return ResponseEntity.status(429).body("{\"error\":\"Rate limit exceeded. Please try again later.\"}");
+            // Every upstream call below waits briefly for its own permit rather than fail at the edge
+            if (useDatabase && state != null) {
+                return ingestAndRead(state, district, month, year, limit, cacheKey, priority);
             }
 
             // Fetch from API
-            Map<String, String> q = new HashMap<>();
-            q.put("limit", limit);
-            if (state != null && !state.isBlank()) {
-                q.put("filters[state_name]", state);
-                logger.info("Filtering by state: {}", state);
+            Map<String, String> q = upstreamQuery(state, district, month, year, limit);
+            String result;
+            try {
+                result = client.fetchResourceJson(resourceId, q, priority, permitWaitMs);
+            } catch (UpstreamPermitException e) {
+                return rateLimited(state, district, limit);
             }
-            if (district != null && !district.isBlank()) {
-                q.put("filters[district_name]", district);
-                logger.info("Filtering by district: {}", district);
+            if (result.contains("\"error\"") && client.isCircuitOpen()) {
+                return serveLastKnownGood(state, district, month, year, limit, cacheKey);
             }
-            if (month != null && !month.isBlank()) q.put("filters[month]", month);
-            if (year != null && !year.isBlank()) q.put("filters[fin_year]", year);
-            
-            logger.info("API query parameters: {}", q);
-            String result = client.fetchResourceJson(resourceId, q);
             
             // Check if API returned empty results - use more flexible matching
-            boolean isEmptyResult = result != null && (
-                result.contains("\"total\":0") || 
-                result.contains("\"total\": 0") ||
-                result.contains("\"count\":0") ||
-                result.contains("\"count\": 0") ||
-                (result.contains("\"records\"") && result.contains("[]"))
-            );
+            boolean isEmptyResult = isEmptyResult(result);
             
             if (isEmptyResult && district != null && !district.isBlank() && state != null && !state.isBlank()) {
                 logger.warn("API returned 0 records for district-specific query (state: '{}', district: '{}')", state, district);
@@ -205,28 +282,17 @@ public class PerformanceController {
                 // Try without district filter to get state data
                 Map<String, String> stateOnlyQuery = new HashMap<>();
                 stateOnlyQuery.put("limit", "100");
-                stateOnlyQuery.put("filters[state_name]", state);
+                stateOnlyQuery.put("filters[state_name]", names.upstreamState(state));
                 
                 try {
-                    String stateResult = client.fetchResourceJson(resourceId, stateOnlyQuery);
+                    String stateResult = client.fetchResourceJson(resourceId, stateOnlyQuery, priority, permitWaitMs);
                     
                     // Check if state query has data
-                    boolean hasStateData = stateResult != null && 
-                        !stateResult.contains("\"error\"") &&
-                        !stateResult.contains("\"total\":0") &&
-                        !stateResult.contains("\"total\": 0") &&
-                        stateResult.contains("\"records\"") &&
-                        !stateResult.contains("\"records\":[]");
+                    boolean hasStateData = hasStateData(stateResult);
                     
                     if (hasStateData) {
                         logger.info("✅ Success! Found data when querying state only (without district filter)");
-                        logger.info("This suggests district name '{}' might not match exactly in API. Saving state-level data...", district);
-                        
-                        // Save the state data (multiple districts)
-                        if (useDatabase) {
-                            dataService.savePerformanceData(stateResult);
-                            logger.info("✅ Saved state-level data to database. State comparisons will now work.");
-                        }
+                        logger.info("This suggests district name '{}' might not match exactly in API", district);
                         
                         // Update result to use state data if we got it, otherwise keep original
                         // This way user gets data even if district filter didn't work
@@ -238,98 +304,18 @@ public class PerformanceController {
                         try {
                             Map<String, String> unfilteredQuery = new HashMap<>();
                             unfilteredQuery.put("limit", "100"); // Get more records to ensure we find data
-                            String unfilteredResult = client.fetchResourceJson(resourceId, unfilteredQuery);
+                            String unfilteredResult = client.fetchResourceJson(resourceId, unfilteredQuery, priority, permitWaitMs);
                             
                             // Check if unfiltered query returned data
-                            boolean hasUnfilteredData = unfilteredResult != null && 
-                                !unfilteredResult.contains("\"error\"") &&
-                                unfilteredResult.contains("\"records\"") &&
-                                !unfilteredResult.contains("\"records\":[]");
-                            
-                            // Also check if total/count indicates data exists
-                            if (hasUnfilteredData) {
-                                try {
-                                    com.fasterxml.jackson.databind.ObjectMapper testMapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                                    com.fasterxml.jackson.databind.JsonNode testRoot = testMapper.readTree(unfilteredResult);
-                                    com.fasterxml.jackson.databind.JsonNode testRecords = testRoot.get("records");
-                                    if (testRecords != null && testRecords.isArray() && testRecords.size() > 0) {
-                                        hasUnfilteredData = true;
-                                    } else {
-                                        hasUnfilteredData = false;
-                                    }
-                                } catch (Exception e) {
-                                    // If parsing fails, rely on string check
-                                }
-                            }
+                            boolean hasUnfilteredData = hasRecords(unfilteredResult);
                             
                             if (hasUnfilteredData) {
                                 logger.info("✅ API is working! Found data without filters.");
-                                logger.info("This suggests state name '{}' might not match exactly. Saving unfiltered data...", state);
-                                
-                                // Save unfiltered data to see what states/districts are available
-                                if (useDatabase) {
-                                    dataService.savePerformanceData(unfilteredResult);
-                                    logger.info("✅ Saved sample data. This will help identify correct state/district names.");
-                                    
-                                    // Log what states we found
-                                    try {
-                                        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                                        com.fasterxml.jackson.databind.JsonNode root = mapper.readTree(unfilteredResult);
-                                        com.fasterxml.jackson.databind.JsonNode records = root.get("records");
-                                        if (records != null && records.isArray() && records.size() > 0) {
-                                            java.util.Set<String> foundStates = new java.util.HashSet<>();
-                                            java.util.Set<String> foundDistricts = new java.util.HashSet<>();
-                                            for (com.fasterxml.jackson.databind.JsonNode rec : records) {
-                                                if (rec.get("state_name") != null) foundStates.add(rec.get("state_name").asText());
-                                                if (rec.get("district_name") != null) foundDistricts.add(rec.get("district_name").asText());
-                                            }
-                                            logger.info("📋 Found {} states in sample: {}", foundStates.size(), foundStates);
-                                            logger.info("📋 Found {} districts in sample: {}", foundDistricts.size(), 
-                                                foundDistricts.size() > 10 ? foundDistricts.stream().limit(10).toList() + "..." : foundDistricts);
-                                            logger.info("💡 Tip: Check these names to see if '{}' matches any state name", state);
-                                        }
-                                    } catch (Exception e) {
-                                        logger.debug("Could not parse sample data for logging: {}", e.getMessage());
-                                    }
-                                }
+                                logger.info("This suggests state name '{}' might not match exactly", state);
                                 
                                 // Filter unfiltered data to show only requested state/district if possible
                                 // But if no state match, show all data so user at least sees something
-                                try {
-                                    com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                                    com.fasterxml.jackson.databind.JsonNode root = mapper.readTree(unfilteredResult);
-                                    com.fasterxml.jackson.databind.JsonNode records = root.get("records");
-                                    
-                                    if (records != null && records.isArray()) {
-                                        // Try to filter for the requested state (case-insensitive)
-                                        java.util.List<com.fasterxml.jackson.databind.JsonNode> filtered = new java.util.ArrayList<>();
-                                        boolean foundStateMatch = false;
-                                        
-                                        for (com.fasterxml.jackson.databind.JsonNode rec : records) {
-                                            if (rec.get("state_name") != null) {
-                                                String recState = rec.get("state_name").asText();
-                                                if (recState != null && recState.equalsIgnoreCase(state)) {
-                                                    filtered.add(rec);
-                                                    foundStateMatch = true;
-                                                }
-                                            }
-                                        }
-                                        
-                                        if (foundStateMatch && !filtered.isEmpty()) {
-                                            // Create filtered response with only matching state
-                                            root = mapper.createObjectNode();
-                                            ((com.fasterxml.jackson.databind.node.ObjectNode) root).putArray("records").addAll(filtered);
-                                            ((com.fasterxml.jackson.databind.node.ObjectNode) root).put("total", filtered.size());
-                                            ((com.fasterxml.jackson.databind.node.ObjectNode) root).put("count", filtered.size());
-                                            unfilteredResult = mapper.writeValueAsString(root);
-                                            logger.info("✅ Filtered unfiltered data to show only '{}' records ({} found)", state, filtered.size());
-                                        } else {
-                                            logger.info("No records found for state '{}' in unfiltered data. Showing all available data.", state);
-                                        }
-                                    }
-                                } catch (Exception e) {
-                                    logger.debug("Could not filter unfiltered data: {}", e.getMessage());
-                                }
+                                unfilteredResult = filterToState(unfilteredResult, state);
                                 
                                 // Use unfiltered data so user sees something
                                 result = unfilteredResult;
@@ -350,85 +336,511 @@ public class PerformanceController {
                 }
             }
             
-            // Save to database if enabled (only if not already saved in fallback)
-            // Check if result is empty - if fallback already saved state data, don't save empty result
-            boolean isResultEmpty = result != null && (
-                result.contains("\"total\":0") || 
-                result.contains("\"total\": 0") ||
-                (result.contains("\"records\"") && result.contains("[]"))
-            );
-            
+            // Queries with a state were streamed into the database above; this one is returned as fetched
             if (useDatabase) {
                 if (result.contains("\"error\"")) {
                     logger.warn("Skipping save due to error in API response. Response preview: {}", 
                         result.substring(0, Math.min(200, result.length())));
-                } else if (isResultEmpty && district != null && !district.isBlank()) {
-                    // Don't save empty district-specific results if we already tried fallback
-                    // (fallback would have saved state data if available)
-                    logger.debug("Skipping save of empty district-specific result");
                 } else {
-                    logger.info("Attempting to save performance data to database for state={}, district={}", state, district);
                     dataService.savePerformanceData(result);
-                    
-                    // After saving, retrieve the processed data from database to return calculated fields
-                    if (state != null && district != null) {
-                        List<PerformanceRecord> savedRecords = dataService.getFromDatabase(state, district, Integer.parseInt(limit));
-                        if (!savedRecords.isEmpty()) {
-                            logger.info("Retrieving {} saved records from database with calculated fields", savedRecords.size());
-                            
-                            // Convert PerformanceRecord objects to snake_case format
-                            List<Map<String, Object>> recordsList = new java.util.ArrayList<>();
-                            for (PerformanceRecord pr : savedRecords) {
-                                Map<String, Object> record = new HashMap<>();
-                                record.put("fin_year", pr.getFinYear());
-                                record.put("month", pr.getMonth());
-                                record.put("state_name", pr.getStateName());
-                                record.put("district_name", pr.getDistrictName());
-                                record.put("households_worked", pr.getHouseholdsWorked());
-                                record.put("persondays_generated", pr.getPersondaysGenerated());
-                                record.put("women_persondays_percent", pr.getWomenPersondaysPercent());
-                                record.put("no_of_ongoing_works", pr.getNoOfOngoingWorks());
-                                record.put("no_of_completed_works", pr.getNoOfCompletedWorks());
-                                record.put("avg_wage_rate", pr.getAvgWageRate());
-                                record.put("total_wages", pr.getTotalWages());
-                                // Also include alternative field names for compatibility
-                                record.put("Average_Wage_rate_per_day_per_person", pr.getAvgWageRate());
-                                record.put("Material_and_skilled_Wages", pr.getTotalWages());
-                                record.put("Total_Households_Worked", pr.getHouseholdsWorked());
-                                record.put("Total_Persondays_Generated", pr.getPersondaysGenerated());
-                                record.put("Persondays_of_Central_Liability_so_far", pr.getPersondaysGenerated());
-                                record.put("Number_of_Ongoing_Works", pr.getNoOfOngoingWorks());
-                                record.put("Number_of_Completed_Works", pr.getNoOfCompletedWorks());
-                                record.put("Women_Persondays_Percent", pr.getWomenPersondaysPercent());
-                                if (pr.getPersondaysGenerated() != null && pr.getWomenPersondaysPercent() != null) {
-                                    long womenPersondays = (long)(pr.getPersondaysGenerated() * pr.getWomenPersondaysPercent() / 100.0);
-                                    record.put("Women_Persondays", womenPersondays);
-                                } else {
-                                    record.put("Women_Persondays", null);
-                                }
-                                recordsList.add(record);
-                            }
-                            
-                            Map<String, Object> response = new HashMap<>();
-                            response.put("records", recordsList);
-                            response.put("source", "api-saved-to-db");
-                            response.put("total", recordsList.size());
-                            response.put("count", recordsList.size());
-                            String jsonResponse = objectMapper.writeValueAsString(response);
-                            cache.put(cacheKey, jsonResponse);
-                            return ResponseEntity.ok(jsonResponse);
-                        }
-                    }
                 }
             } else {
                 logger.debug("Database saving is disabled (useDatabase=false)");
             }
             
-            cache.put(cacheKey, result);
-            return ResponseEntity.ok(result);
+            CachedResponse response = CachedResponse.of(result);
+            cache.put(cacheKey, response, dataVersion);
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error fetching performance data: {}", e.getMessage(), e);
-            return ResponseEntity.status(500).body("{\"error\":\"" + e.getMessage() + "\"}");
+            return ResponseEntity.status(500).body(CachedResponse.of("{\"error\":\"" + e.getMessage() + "\"}"));
+        }
+    }
+
+    /**
+     * Streams the upstream page for a query straight into the database and
+     * answers from the stored rows, so the body is never held whole or parsed
+     * into a tree. An empty district page falls back to the state's page and
+     * then an unfiltered one, as the pass-through path does.
+     */
+    private ResponseEntity<CachedResponse> ingestAndRead(String state, String district, String month, String year,
+                                                         int limit, String cacheKey, Priority priority) throws IOException {
+        try {
+            IngestResult fetched = dataService.ingestFromUpstream(resourceId, upstreamQuery(state, district, month, year, limit),
+                priority, permitWaitMs);
+            if (fetched.getSaved() == 0 && district != null) {
+                ingestFallback(state, district, priority);
+            }
+        } catch (UpstreamPermitException e) {
+            return rateLimited(state, district, limit);
+        } catch (IOException e) {
+            if (client.isCircuitOpen()) {
+                return serveLastKnownGood(state, district, month, year, limit, cacheKey);
+            }
+            logger.error("❌ Upstream fetch for {}/{} failed: {}", state, district, e.getMessage());
+            List<PerformanceRecord> dbRecords = district == null
+                ? dataService.getStateData(state, limit)
+                : dataService.getFromDatabase(state, district, limit);
+            if (!dbRecords.isEmpty()) {
+                return ResponseEntity.ok(CachedResponse.of(recordsResponse(dbRecords, "database")));
+            }
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                .body(CachedResponse.of(objectMapper.writeValueAsString(Map.of("error", String.valueOf(e.getMessage())))));
+        }
+        // Every batch has committed and bumped the version; the rows read next are at least this new
+        long dataVersion = dataVersions.current(state, district);
+        if (district != null) {
+            List<PerformanceRecord> savedRecords = dataService.getFromDatabase(state, district, limit);
+            if (!savedRecords.isEmpty()) {
+                CachedResponse response = CachedResponse.of(recordsResponse(savedRecords, "api-saved-to-db"));
+                cache.putUntilChanged(cacheKey, response, dataVersion);
+                return ResponseEntity.ok(response);
+            }
+        }
+        // A state-wide query, or a district upstream's filter did not match: answer with the state's rows
+        CachedResponse response = CachedResponse.of(recordsResponse(dataService.getStateData(state, limit), "api-saved-to-db"));
+        cache.put(cacheKey, response, dataVersion);
+        return ResponseEntity.ok(response);
+    }
+
+    /** State-only, then unfiltered page into the database, for a district page that came back empty. */
+    private void ingestFallback(String state, String district, Priority priority) {
+        logger.warn("API returned 0 records for district-specific query (state: '{}', district: '{}')", state, district);
+        try {
+            Map<String, String> stateOnlyQuery = new HashMap<>();
+            stateOnlyQuery.put("limit", "100");
+            stateOnlyQuery.put("filters[state_name]", names.upstreamState(state));
+            if (dataService.ingestFromUpstream(resourceId, stateOnlyQuery, priority, permitWaitMs).getSaved() > 0) {
+                logger.info("✅ Saved state-level data; district name '{}' might not match exactly in API", district);
+                return;
+            }
+            logger.warn("Even state-only query returned 0 records. Trying unfiltered query to check API...");
+            Map<String, String> unfilteredQuery = new HashMap<>();
+            unfilteredQuery.put("limit", "100");
+            int saved = dataService.ingestFromUpstream(resourceId, unfilteredQuery, priority, permitWaitMs).getSaved();
+            if (saved > 0) {
+                logger.info("✅ API is working! Saved {} unfiltered records; state name '{}' might not match exactly", saved, state);
+            } else {
+                logger.error("❌ API returned no data even without filters. API might be empty or down.");
+            }
+        } catch (IOException e) {
+            logger.error("Error in fallback state query: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reactive variant of {@link #getPerformance}: database, cache, upstream
+     * fetch with the same fallbacks, and persistence as one Mono, so no servlet
+     * thread waits. Pass-through fetches (no database, or no state) run on the
+     * WebClient event loop and hold no thread through I/O or retry backoff.
+     * The database-backed path does not: it streams the page into the database
+     * with the blocking parser and JDBC, so a boundedElastic thread waits on the
+     * download, retry backoff and permit for the whole fetch.
+     */
+    @GetMapping("/reactive")
+    public Mono<ResponseEntity<byte[]>> getPerformanceReactive(@RequestParam(required = false) String state,
+                                                               @RequestParam(required = false) String district,
+                                                               @RequestParam(required = false) String month,
+                                                               @RequestParam(required = false) String year,
+                                                               @RequestParam(required = false, defaultValue = "12") String limit,
+                                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Integer rows = parseLimit(limit);
+        if (rows == null) return Mono.just(render(badLimit(), ifNoneMatch, acceptEncoding));
+        String canonicalState = names.state(state);
+        String canonicalDistrict = names.district(canonicalState, district);
+        String cacheKey = cacheKey(canonicalState, canonicalDistrict, month, year, rows);
+        requestStats.record(canonicalState, canonicalDistrict, month, year, String.valueOf(rows));
+        // suppressCancel: a client disconnect must not cancel the flight other requests share
+        return Mono.fromFuture(() -> inFlight.executeAsync(flightKey(canonicalState, canonicalDistrict, month, year, rows),
+                () -> loadPerformanceReactive(canonicalState, canonicalDistrict, month, year, rows, cacheKey).toFuture(),
+                singleFlightWaitMs,
+                () -> staleOrBusy(cacheKey)), true)
+            .map(result -> render(result, ifNoneMatch, acceptEncoding));
+    }
+
+    /**
+     * Writes the pre-encoded bytes: gzip when the client accepts it, 304 when
+     * If-None-Match already names this version. Errors carry no ETag.
+     */
+    private static ResponseEntity<byte[]> render(ResponseEntity<CachedResponse> result, String ifNoneMatch, String acceptEncoding) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(result.getHeaders());
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        CachedResponse body = result.getBody();
+        if (body == null) {
+            return new ResponseEntity<>(headers, result.getStatusCode());
+        }
+        if (result.getStatusCode().is2xxSuccessful()) {
+            headers.setETag(body.etag());
+            if (body.matches(ifNoneMatch)) {
+                return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+            }
+        }
+        if (body.gzipBody() != null && acceptsGzip(acceptEncoding)) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return new ResponseEntity<>(body.gzipBody(), headers, result.getStatusCode());
+        }
+        return new ResponseEntity<>(body.body(), headers, result.getStatusCode());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip") && !parts[0].trim().equals("*")) continue;
+            // gzip;q=0 explicitly refuses it
+            boolean refused = parts.length > 1 && parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            if (!refused) return true;
+        }
+        return false;
+    }
+
+    private Mono<ResponseEntity<CachedResponse>> loadPerformanceReactive(String state, String district, String month,
+                                                                         String year, int limit, String cacheKey) {
+        long dataVersion = dataVersions.current(state, district);
+        CachedResponse cached = cache.get(cacheKey, dataVersion);
+        if (cached != null) {
+            return Mono.just(ResponseEntity.ok(cached));
+        }
+        Mono<CachedResponse> fromDatabase = Mono.empty();
+        if (useDatabase && state != null && district != null) {
+            fromDatabase = blocking(() -> {
+                List<PerformanceRecord> dbRecords = dataService.getFromDatabase(state, district, limit);
+                if (dbRecords.isEmpty() || !hasRealData(dbRecords) || missingWomenPercent(dbRecords)) return null;
+                logger.info("Returning {} records from database (with data)", dbRecords.size());
+                CachedResponse jsonResponse = CachedResponse.of(recordsResponse(dbRecords, "database"));
+                cache.putUntilChanged(cacheKey, jsonResponse, dataVersion);
+                return jsonResponse;
+            });
+        }
+        return fromDatabase
+            .map(ResponseEntity::ok)
+            .switchIfEmpty(Mono.defer(() -> fetchReactive(state, district, month, year, limit, cacheKey, dataVersion)))
+            .onErrorResume(e -> {
+                logger.error("Error fetching performance data: {}", e.getMessage(), e);
+                return Mono.just(ResponseEntity.status(500).body(CachedResponse.of("{\"error\":\"" + e.getMessage() + "\"}")));
+            });
+    }
+
+    private Mono<ResponseEntity<CachedResponse>> fetchReactive(String state, String district, String month,
+                                                               String year, int limit, String cacheKey, long dataVersion) {
+        if (client.isCircuitOpen()) {
+            return blocking(() -> serveLastKnownGood(state, district, month, year, limit, cacheKey));
+        }
+        if (useDatabase && state != null) {
+            // The stream parser and JDBC block, so this holds a boundedElastic thread for the whole download
+            return blocking(() -> ingestAndRead(state, district, month, year, limit, cacheKey, Priority.INTERACTIVE));
+        }
+        // The permit wait is a timer, not a parked thread
+        return fetchUpstreamReactive(state, district, month, year, limit, cacheKey, dataVersion)
+            .onErrorResume(UpstreamPermitException.class, e -> rateLimitedReactive(state, district, limit));
+    }
+
+    private ResponseEntity<CachedResponse> rateLimited(String state, String district, int limit) throws JsonProcessingException {
+        logger.warn("Rate limit exceeded, returning database data if available");
+        if (useDatabase && state != null && district != null) {
+            List<PerformanceRecord> dbRecords = dataService.getFromDatabase(state, district, limit);
+            if (!dbRecords.isEmpty()) {
+                return ResponseEntity.ok(CachedResponse.of(rateLimitedResponse(dbRecords)));
+            }
+        }
+        return ResponseEntity.status(429).body(CachedResponse.of("{\"error\":\"Rate limit exceeded. Please try again later.\"}"));
+    }
+
+    private Mono<ResponseEntity<CachedResponse>> rateLimitedReactive(String state, String district, int limit) {
+        logger.warn("Rate limit exceeded, returning database data if available");
+        Mono<ResponseEntity<CachedResponse>> rateLimited = Mono.just(
+            ResponseEntity.status(429).body(CachedResponse.of("{\"error\":\"Rate limit exceeded. Please try again later.\"}")));
+        if (!useDatabase || state == null || district == null) return rateLimited;
+        return blocking(() -> {
+                List<PerformanceRecord> dbRecords = dataService.getFromDatabase(state, district, limit);
+                return dbRecords.isEmpty() ? null : CachedResponse.of(rateLimitedResponse(dbRecords));
+            })
+            .map(ResponseEntity::ok)
+            .switchIfEmpty(rateLimited);
+    }
+
+    private Mono<ResponseEntity<CachedResponse>> fetchUpstreamReactive(String state, String district, String month,
+                                                                       String year, int limit, String cacheKey, long dataVersion) {
+        return client.fetchResourceJsonAsync(resourceId, upstreamQuery(state, district, month, year, limit),
+                Priority.INTERACTIVE, permitWaitMs)
+            .flatMap(result -> {
+                if (result.contains("\"error\"") && client.isCircuitOpen()) {
+                    return blocking(() -> serveLastKnownGood(state, district, month, year, limit, cacheKey));
+                }
+                Mono<String> withFallback = isEmptyResult(result) && district != null && !district.isBlank() && state != null && !state.isBlank()
+                    ? fallbackReactive(state, district, result)
+                    : Mono.just(result);
+                return withFallback
+                    .flatMap(response -> persistReactive(response, cacheKey, dataVersion))
+                    .map(ResponseEntity::ok);
+            });
+    }
+
+    /**
+     * data.gov.in is failing: answer from the last good cached response or from
+     * whatever the database holds, and refresh the key in the background once the
+     * breaker lets a probe through. Requests never wait on the failing upstream.
+     */
+    private ResponseEntity<CachedResponse> serveLastKnownGood(String state, String district, String month,
+                                                      String year, int limit, String cacheKey) throws JsonProcessingException {
+        scheduleRefresh(state, district, month, year, limit, cacheKey);
+        CachedResponse stale = cache.getStale(cacheKey);
+        if (stale != null) {
+            logger.info("Upstream unavailable, returning stale cached data for key: {}", cacheKey);
+            return ResponseEntity.ok(stale);
+        }
+        if (useDatabase && state != null && district != null) {
+            List<PerformanceRecord> dbRecords = dataService.getFromDatabase(state, district, limit);
+            if (!dbRecords.isEmpty()) {
+                logger.info("Upstream unavailable, returning {} records from database", dbRecords.size());
+                return ResponseEntity.ok(CachedResponse.of(recordsResponse(dbRecords, "database")));
+            }
+        }
+        long retryAfterSeconds = Math.max(1, (client.circuitRetryAfterMs() + 999) / 1000);
+        return ResponseEntity.status(503)
+            .header("Retry-After", String.valueOf(retryAfterSeconds))
+            .body(CachedResponse.of("{\"error\":\"data.gov.in is temporarily unavailable. Please try again later.\"}"));
+    }
+
+    private void scheduleRefresh(String state, String district, String month, String year, int limit, String cacheKey) {
+        if (!refreshing.add(cacheKey)) return;
+        // One pending refresh per key, so the queue is bounded by the keys being served stale
+        refreshExecutor.schedule(() -> {
+            try {
+                // Still open (another probe running)? This returns stale data at once and the next request reschedules
+                inFlight.execute(flightKey(state, district, month, year, limit),
+                    () -> loadPerformance(state, district, month, year, limit, cacheKey, Priority.REFRESH),
+                    singleFlightWaitMs,
+                    () -> null);
+            } finally {
+                refreshing.remove(cacheKey);
+            }
+        }, client.circuitRetryAfterMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /** State-only, then unfiltered query, as in the blocking path; {@code original} if neither has data. */
+    private Mono<String> fallbackReactive(String state, String district, String original) {
+        logger.warn("API returned 0 records for district-specific query (state: '{}', district: '{}')", state, district);
+        Map<String, String> stateOnlyQuery = new HashMap<>();
+        stateOnlyQuery.put("limit", "100");
+        stateOnlyQuery.put("filters[state_name]", names.upstreamState(state));
+        return client.fetchResourceJsonAsync(resourceId, stateOnlyQuery, Priority.INTERACTIVE, permitWaitMs)
+            .flatMap(stateResult -> {
+                if (hasStateData(stateResult)) {
+                    logger.info("✅ Found data when querying state only (without district filter)");
+                    return Mono.just(stateResult);
+                }
+                logger.warn("Even state-only query returned 0 records. Trying unfiltered query to check API...");
+                Map<String, String> unfilteredQuery = new HashMap<>();
+                unfilteredQuery.put("limit", "100");
+                return client.fetchResourceJsonAsync(resourceId, unfilteredQuery, Priority.INTERACTIVE, permitWaitMs)
+                    .flatMap(unfilteredResult -> {
+                        if (!hasRecords(unfilteredResult)) {
+                            logger.error("❌ API returned no data even without filters. API might be empty or down.");
+                            return Mono.just(original);
+                        }
+                        return Mono.fromCallable(() -> filterToState(unfilteredResult, state));
+                    });
+            })
+            .onErrorResume(e -> {
+                logger.error("Error in fallback state query: {}", e.getMessage());
+                return Mono.just(original);
+            });
+    }
+
+    /** Caches the upstream result, saving it first if it has data; queries with a state were streamed into the database instead. */
+    private Mono<CachedResponse> persistReactive(String result, String cacheKey, long dataVersion) {
+        Mono<CachedResponse> unsaved = Mono.fromSupplier(() -> {
+            CachedResponse response = CachedResponse.of(result);
+            cache.put(cacheKey, response, dataVersion);
+            return response;
+        });
+        if (!useDatabase) return unsaved;
+        if (result.contains("\"error\"")) {
+            logger.warn("Skipping save due to error in API response. Response preview: {}",
+                result.substring(0, Math.min(200, result.length())));
+            return unsaved;
+        }
+        return blocking(() -> dataService.savePerformanceData(result)).then(unsaved);
+    }
+
+    /** JPA and JDBC block; keep them off the event loop. A null result completes empty. */
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /** Expects canonical state and district names. */
+    private static String cacheKey(String state, String district, String month, String year, int limit) {
+        return (state == null ? "" : state) + "|" + (district == null ? "" : district) + "|" + (month == null ? "" : month.trim()) + "|" + (year == null ? "" : year.trim()) + "|" + limit;
+    }
+
+    private static String flightKey(String state, String district, String month, String year, int limit) {
+        return normalize(state) + "|" + normalize(district) + "|" + normalize(month) + "|" + normalize(year) + "|" + limit;
+    }
+
+    private Map<String, String> upstreamQuery(String state, String district, String month, String year, int limit) {
+        Map<String, String> q = new HashMap<>();
+        q.put("limit", String.valueOf(limit));
+        if (state != null && !state.isBlank()) {
+            q.put("filters[state_name]", names.upstreamState(state));
+            logger.info("Filtering by state: {}", state);
+        }
+        if (district != null && !district.isBlank()) {
+            q.put("filters[district_name]", names.upstreamDistrict(state, district));
+            logger.info("Filtering by district: {}", district);
+        }
+        if (month != null && !month.isBlank()) q.put("filters[month]", month);
+        if (year != null && !year.isBlank()) q.put("filters[fin_year]", year);
+        logger.info("API query parameters: {}", q);
+        return q;
+    }
+
+    private static boolean hasRealData(List<PerformanceRecord> records) {
+        return records.stream().anyMatch(r ->
+            r.getPersondaysGenerated() != null ||
+            r.getHouseholdsWorked() != null ||
+            r.getAvgWageRate() != null ||
+            r.getTotalWages() != null
+        );
+    }
+
+    private static boolean missingWomenPercent(List<PerformanceRecord> records) {
+        return records.stream().anyMatch(r ->
+            r.getWomenPersondaysPercent() == null &&
+            (r.getPersondaysGenerated() != null || r.getHouseholdsWorked() != null)
+        );
+    }
+
+    // Check if API returned empty results - use more flexible matching
+    private static boolean isEmptyResult(String result) {
+        return result != null && (
+            result.contains("\"total\":0") ||
+            result.contains("\"total\": 0") ||
+            result.contains("\"count\":0") ||
+            result.contains("\"count\": 0") ||
+            (result.contains("\"records\"") && result.contains("[]"))
+        );
+    }
+
+    private static boolean hasStateData(String stateResult) {
+        return stateResult != null &&
+            !stateResult.contains("\"error\"") &&
+            !stateResult.contains("\"total\":0") &&
+            !stateResult.contains("\"total\": 0") &&
+            stateResult.contains("\"records\"") &&
+            !stateResult.contains("\"records\":[]");
+    }
+
+    private boolean hasRecords(String result) {
+        if (result == null || result.contains("\"error\"")) return false;
+        try {
+            JsonNode records = objectMapper.readTree(result).get("records");
+            return records != null && records.isArray() && records.size() > 0;
+        } catch (Exception e) {
+            // If parsing fails, rely on string check
+            return result.contains("\"records\"") && !result.contains("\"records\":[]");
+        }
+    }
+
+    /** Keeps only the requested state's records; everything if the state does not appear (case-insensitive). */
+    private String filterToState(String result, String state) {
+        try {
+            JsonNode records = objectMapper.readTree(result).get("records");
+            if (records == null || !records.isArray()) return result;
+            List<JsonNode> filtered = new ArrayList<>();
+            for (JsonNode rec : records) {
+                JsonNode recState = rec.get("state_name");
+                if (recState != null && state != null && state.equals(names.state(recState.asText()))) {
+                    filtered.add(rec);
+                }
+            }
+            if (filtered.isEmpty()) {
+                logger.info("No records found for state '{}' in unfiltered data. Showing all available data.", state);
+                return result;
+            }
+            ObjectNode root = objectMapper.createObjectNode();
+            root.putArray("records").addAll(filtered);
+            root.put("total", filtered.size());
+            root.put("count", filtered.size());
+            logger.info("✅ Filtered unfiltered data to show only '{}' records ({} found)", state, filtered.size());
+            return objectMapper.writeValueAsString(root);
+        } catch (Exception e) {
+            logger.debug("Could not filter unfiltered data: {}", e.getMessage());
+            return result;
+        }
+    }
+
+    private String rateLimitedResponse(List<PerformanceRecord> dbRecords) throws JsonProcessingException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("records", dbRecords);
+        response.put("source", "database");
+        response.put("note", "Rate limited - showing cached data");
+        return objectMapper.writeValueAsString(response);
+    }
+
+    private String recordsResponse(List<PerformanceRecord> records, String source) throws JsonProcessingException {
+        List<Map<String, Object>> recordsList = new ArrayList<>(records.size());
+        for (PerformanceRecord pr : records) {
+            recordsList.add(toApiRecord(pr));
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("records", recordsList);
+        response.put("source", source);
+        response.put("total", recordsList.size());
+        response.put("count", recordsList.size());
+        if (!records.isEmpty()) {
+            // Pass back as ?cursor= for the records older than these
+            PerformanceRecord oldest = records.get(records.size() - 1);
+            Integer nextCursor = FiscalPeriod.periodKey(oldest.getFinYear(), oldest.getMonth());
+            if (nextCursor != null) response.put("nextCursor", nextCursor);
+        }
+        return objectMapper.writeValueAsString(response);
+    }
+
+    // snake_case fields plus the upstream column names the frontend also reads
+    private static Map<String, Object> toApiRecord(PerformanceRecord pr) {
+        Map<String, Object> record = new HashMap<>();
+        record.put("fin_year", pr.getFinYear());
+        record.put("month", pr.getMonth());
+        record.put("state_name", pr.getStateName());
+        record.put("district_name", pr.getDistrictName());
+        record.put("households_worked", pr.getHouseholdsWorked());
+
+        Long persondays = pr.getPersondaysGenerated();
+        record.put("persondays_generated", persondays);
+        record.put("Total_Persondays_Generated", persondays);
+        record.put("Persondays_of_Central_Liability_so_far", persondays);
+
+        // Note: We don't have Women_Persondays stored separately, so we can't recalculate
+        Double womenPercent = pr.getWomenPersondaysPercent();
+        if (womenPercent == null && persondays == null) {
+            logger.warn("Record {} - {} has null persondays and women percent. Should fetch fresh from API.",
+                pr.getDistrictName(), pr.getStateName());
+        }
+        record.put("women_persondays_percent", womenPercent);
+        record.put("Women_Persondays_Percent", womenPercent);
+
+        record.put("no_of_ongoing_works", pr.getNoOfOngoingWorks());
+        record.put("no_of_completed_works", pr.getNoOfCompletedWorks());
+        // Wage fields - ensure they're included even if null
+        record.put("avg_wage_rate", pr.getAvgWageRate());
+        record.put("total_wages", pr.getTotalWages());
+        // Also include alternative field names for compatibility
+        record.put("Average_Wage_rate_per_day_per_person", pr.getAvgWageRate());
+        record.put("Material_and_skilled_Wages", pr.getTotalWages());
+        record.put("Total_Households_Worked", pr.getHouseholdsWorked());
+        record.put("Number_of_Ongoing_Works", pr.getNoOfOngoingWorks());
+        record.put("Number_of_Completed_Works", pr.getNoOfCompletedWorks());
+
+        // Calculate Women_Persondays if we have both persondays and percent
+        if (persondays != null && womenPercent != null) {
+            record.put("Women_Persondays", (long) (persondays * womenPercent / 100.0));
+        } else {
+            record.put("Women_Persondays", null);
         }
+        return record;
     }
 }
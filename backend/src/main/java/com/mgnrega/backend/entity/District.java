@@ -0,0 +1,44 @@
+package com.mgnrega.backend.entity;
+
+import jakarta.persistence.*;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * One row per canonical district name within a state; the same name can
+ * recur in different states, so uniqueness is per state.
+ */
+@Entity
+@Table(name = "districts", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_districts_state_name", columnNames = {"state_id", "name"})
+})
+public class District {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "state_id", nullable = false)
+    private Integer stateId;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @ElementCollection
+    @CollectionTable(name = "district_aliases", joinColumns = @JoinColumn(name = "district_id"),
+                     uniqueConstraints = @UniqueConstraint(name = "uk_district_aliases_alias", columnNames = {"district_id", "alias"}))
+    @Column(name = "alias")
+    private Set<String> aliases = new HashSet<>();
+
+    // Getters and setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public Integer getStateId() { return stateId; }
+    public void setStateId(Integer stateId) { this.stateId = stateId; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Set<String> getAliases() { return aliases; }
+    public void setAliases(Set<String> aliases) { this.aliases = aliases; }
+}
@@ -0,0 +1,89 @@
+package com.mgnrega.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk harvest. nextOffset is the contiguous high-water mark:
+ * every page below it has been ingested, so a restarted job resumes there.
+ */
+@Entity
+@Table(name = "harvest_checkpoints")
+public class HarvestCheckpoint {
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    @Id
+    @Column(name = "job_key")
+    private String jobKey;
+
+    @Column(name = "resource_id")
+    private String resourceId;
+
+    @Column(name = "fin_year")
+    private String finYear;
+
+    @Column(name = "page_size")
+    private Integer pageSize;
+
+    @Column(name = "total_records")
+    private Long totalRecords;
+
+    @Column(name = "next_offset")
+    private Long nextOffset;
+
+    @Column(name = "records_saved")
+    private Long recordsSaved;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private Status status;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and setters
+    public String getJobKey() { return jobKey; }
+    public void setJobKey(String jobKey) { this.jobKey = jobKey; }
+
+    public String getResourceId() { return resourceId; }
+    public void setResourceId(String resourceId) { this.resourceId = resourceId; }
+
+    public String getFinYear() { return finYear; }
+    public void setFinYear(String finYear) { this.finYear = finYear; }
+
+    public Integer getPageSize() { return pageSize; }
+    public void setPageSize(Integer pageSize) { this.pageSize = pageSize; }
+
+    public Long getTotalRecords() { return totalRecords; }
+    public void setTotalRecords(Long totalRecords) { this.totalRecords = totalRecords; }
+
+    public Long getNextOffset() { return nextOffset; }
+    public void setNextOffset(Long nextOffset) { this.nextOffset = nextOffset; }
+
+    public Long getRecordsSaved() { return recordsSaved; }
+    public void setRecordsSaved(Long recordsSaved) { this.recordsSaved = recordsSaved; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -1,17 +1,28 @@
 package com.mgnrega.backend.entity;
 
+import com.mgnrega.backend.service.FiscalPeriod;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "performance_records", indexes = {
-    @Index(name = "idx_state_district", columnList = "state_name,district_name"),
+    // Place lookups use the (place id, period_key) indexes created by PerformanceRecordMigration
     @Index(name = "idx_year_month", columnList = "fin_year,month"),
     @Index(name = "idx_created_at", columnList = "created_at")
+}, uniqueConstraints = {
+    // Natural key: one row per district per month, enforced so ingestion can upsert
+    @UniqueConstraint(name = "uk_performance_district_period",
+                      columnNames = {"district_id", "fin_year", "month"})
 })
 public class PerformanceRecord {
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Sequence ids (pooled, 50 per round trip) so Hibernate can batch inserts;
+    // IDENTITY forces one INSERT per row to read back the key
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "performance_records_seq")
+    @SequenceGenerator(name = "performance_records_seq", sequenceName = "performance_records_seq",
+                       allocationSize = PerformanceRecord.ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "fin_year")
@@ -20,10 +31,11 @@ public class PerformanceRecord {
     @Column(name = "month")
     private String month;
 
-    @Column(name = "state_name")
+    // Not stored: rows carry stateId/districtId, and readers name them from PlaceDictionary
+    @Transient
     private String stateName;
 
-    @Column(name = "district_name")
+    @Transient
     private String districtName;
 
     @Column(name = "households_worked")
@@ -47,11 +59,23 @@ public class PerformanceRecord {
     @Column(name = "total_wages")
     private Double totalWages;
 
+    // Ids into states and districts (see PlaceDictionary); the only place columns a row has
+    @Column(name = "state_id")
+    private Integer stateId;
+
+    @Column(name = "district_id")
+    private Integer districtId;
+
+    // yyyymm derived from (fin_year, month), so "latest first" is a numeric index order, not a name sort
+    @Column(name = "period_key")
+    private Integer periodKey;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
     @PrePersist
     protected void onCreate() {
+        periodKey = FiscalPeriod.periodKey(finYear, month);
         createdAt = LocalDateTime.now();
     }
 
@@ -71,6 +95,12 @@ public class PerformanceRecord {
     public String getDistrictName() { return districtName; }
     public void setDistrictName(String districtName) { this.districtName = districtName; }
 
+    public Integer getStateId() { return stateId; }
+    public void setStateId(Integer stateId) { this.stateId = stateId; }
+
+    public Integer getDistrictId() { return districtId; }
+    public void setDistrictId(Integer districtId) { this.districtId = districtId; }
+
     public Long getHouseholdsWorked() { return householdsWorked; }
     public void setHouseholdsWorked(Long householdsWorked) { this.householdsWorked = householdsWorked; }
 
@@ -92,6 +122,9 @@ public class PerformanceRecord {
     public Double getTotalWages() { return totalWages; }
     public void setTotalWages(Double totalWages) { this.totalWages = totalWages; }
 
+    public Integer getPeriodKey() { return periodKey; }
+    public void setPeriodKey(Integer periodKey) { this.periodKey = periodKey; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 }
@@ -0,0 +1,65 @@
+package com.mgnrega.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * How often one /api/performance query has been asked for, keyed on the
+ * normalized (state, district, month, year, limit). The raw names are the
+ * spelling last requested, used to rebuild the same response at warm-up.
+ */
+@Entity
+@Table(name = "request_frequencies", indexes = {
+    @Index(name = "idx_request_frequency_hits", columnList = "hit_count")
+})
+public class RequestFrequency {
+    @Id
+    @Column(name = "request_key")
+    private String requestKey;
+
+    @Column(name = "state_name")
+    private String stateName;
+
+    @Column(name = "district_name")
+    private String districtName;
+
+    @Column(name = "month")
+    private String month;
+
+    @Column(name = "fin_year")
+    private String finYear;
+
+    @Column(name = "record_limit")
+    private String recordLimit;
+
+    @Column(name = "hit_count")
+    private Long hitCount;
+
+    @Column(name = "last_requested_at")
+    private LocalDateTime lastRequestedAt;
+
+    // Getters and setters
+    public String getRequestKey() { return requestKey; }
+    public void setRequestKey(String requestKey) { this.requestKey = requestKey; }
+
+    public String getStateName() { return stateName; }
+    public void setStateName(String stateName) { this.stateName = stateName; }
+
+    public String getDistrictName() { return districtName; }
+    public void setDistrictName(String districtName) { this.districtName = districtName; }
+
+    public String getMonth() { return month; }
+    public void setMonth(String month) { this.month = month; }
+
+    public String getFinYear() { return finYear; }
+    public void setFinYear(String finYear) { this.finYear = finYear; }
+
+    public String getRecordLimit() { return recordLimit; }
+    public void setRecordLimit(String recordLimit) { this.recordLimit = recordLimit; }
+
+    public Long getHitCount() { return hitCount; }
+    public void setHitCount(Long hitCount) { this.hitCount = hitCount; }
+
+    public LocalDateTime getLastRequestedAt() { return lastRequestedAt; }
+    public void setLastRequestedAt(LocalDateTime lastRequestedAt) { this.lastRequestedAt = lastRequestedAt; }
+}
@@ -0,0 +1,38 @@
+package com.mgnrega.backend.entity;
+
+import jakarta.persistence.*;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * One row per canonical state name. performance_records refers to it by the
+ * small integer id; aliases are the other spellings upstream has used.
+ */
+@Entity
+@Table(name = "states", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_states_name", columnNames = {"name"})
+})
+public class State {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @ElementCollection
+    @CollectionTable(name = "state_aliases", joinColumns = @JoinColumn(name = "state_id"),
+                     uniqueConstraints = @UniqueConstraint(name = "uk_state_aliases_alias", columnNames = {"alias"}))
+    @Column(name = "alias")
+    private Set<String> aliases = new HashSet<>();
+
+    // Getters and setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Set<String> getAliases() { return aliases; }
+    public void setAliases(Set<String> aliases) { this.aliases = aliases; }
+}
@@ -0,0 +1,167 @@
+package com.mgnrega.backend.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Per state and month totals of performance_records: for each averaged
+ * metric the sum, count of non-null values, min and max. Kept current by the
+ * ingestion that writes the rows, so a state average is one row read however
+ * many districts the state has.
+ */
+@Entity
+@Table(name = "state_period_rollups")
+@IdClass(StatePeriodRollup.Key.class)
+public class StatePeriodRollup {
+    @Id
+    @Column(name = "state_id")
+    private Integer stateId;
+
+    @Id
+    @Column(name = "fin_year")
+    private String finYear;
+
+    @Id
+    @Column(name = "month")
+    private String month;
+
+    @Column(name = "row_count")
+    private Long rowCount;
+
+    @Column(name = "persondays_sum")
+    private Long persondaysSum;
+
+    @Column(name = "persondays_count")
+    private Long persondaysCount;
+
+    @Column(name = "persondays_min")
+    private Long persondaysMin;
+
+    @Column(name = "persondays_max")
+    private Long persondaysMax;
+
+    @Column(name = "households_sum")
+    private Long householdsSum;
+
+    @Column(name = "households_count")
+    private Long householdsCount;
+
+    @Column(name = "households_min")
+    private Long householdsMin;
+
+    @Column(name = "households_max")
+    private Long householdsMax;
+
+    @Column(name = "women_percent_sum")
+    private Double womenPercentSum;
+
+    @Column(name = "women_percent_count")
+    private Long womenPercentCount;
+
+    @Column(name = "women_percent_min")
+    private Double womenPercentMin;
+
+    @Column(name = "women_percent_max")
+    private Double womenPercentMax;
+
+    @Column(name = "avg_wage_sum")
+    private Double avgWageSum;
+
+    @Column(name = "avg_wage_count")
+    private Long avgWageCount;
+
+    @Column(name = "avg_wage_min")
+    private Double avgWageMin;
+
+    @Column(name = "avg_wage_max")
+    private Double avgWageMax;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Integer stateId;
+        private String finYear;
+        private String month;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(stateId, k.stateId) && Objects.equals(finYear, k.finYear) && Objects.equals(month, k.month);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(stateId, finYear, month);
+        }
+    }
+
+    // Getters and setters
+    public Integer getStateId() { return stateId; }
+    public void setStateId(Integer stateId) { this.stateId = stateId; }
+
+    public String getFinYear() { return finYear; }
+    public void setFinYear(String finYear) { this.finYear = finYear; }
+
+    public String getMonth() { return month; }
+    public void setMonth(String month) { this.month = month; }
+
+    public Long getRowCount() { return rowCount; }
+    public void setRowCount(Long rowCount) { this.rowCount = rowCount; }
+
+    public Long getPersondaysSum() { return persondaysSum; }
+    public void setPersondaysSum(Long persondaysSum) { this.persondaysSum = persondaysSum; }
+
+    public Long getPersondaysCount() { return persondaysCount; }
+    public void setPersondaysCount(Long persondaysCount) { this.persondaysCount = persondaysCount; }
+
+    public Long getPersondaysMin() { return persondaysMin; }
+    public void setPersondaysMin(Long persondaysMin) { this.persondaysMin = persondaysMin; }
+
+    public Long getPersondaysMax() { return persondaysMax; }
+    public void setPersondaysMax(Long persondaysMax) { this.persondaysMax = persondaysMax; }
+
+    public Long getHouseholdsSum() { return householdsSum; }
+    public void setHouseholdsSum(Long householdsSum) { this.householdsSum = householdsSum; }
+
+    public Long getHouseholdsCount() { return householdsCount; }
+    public void setHouseholdsCount(Long householdsCount) { this.householdsCount = householdsCount; }
+
+    public Long getHouseholdsMin() { return householdsMin; }
+    public void setHouseholdsMin(Long householdsMin) { this.householdsMin = householdsMin; }
+
+    public Long getHouseholdsMax() { return householdsMax; }
+    public void setHouseholdsMax(Long householdsMax) { this.householdsMax = householdsMax; }
+
+    public Double getWomenPercentSum() { return womenPercentSum; }
+    public void setWomenPercentSum(Double womenPercentSum) { this.womenPercentSum = womenPercentSum; }
+
+    public Long getWomenPercentCount() { return womenPercentCount; }
+    public void setWomenPercentCount(Long womenPercentCount) { this.womenPercentCount = womenPercentCount; }
+
+    public Double getWomenPercentMin() { return womenPercentMin; }
+    public void setWomenPercentMin(Double womenPercentMin) { this.womenPercentMin = womenPercentMin; }
+
+    public Double getWomenPercentMax() { return womenPercentMax; }
+    public void setWomenPercentMax(Double womenPercentMax) { this.womenPercentMax = womenPercentMax; }
+
+    public Double getAvgWageSum() { return avgWageSum; }
+    public void setAvgWageSum(Double avgWageSum) { this.avgWageSum = avgWageSum; }
+
+    public Long getAvgWageCount() { return avgWageCount; }
+    public void setAvgWageCount(Long avgWageCount) { this.avgWageCount = avgWageCount; }
+
+    public Double getAvgWageMin() { return avgWageMin; }
+    public void setAvgWageMin(Double avgWageMin) { this.avgWageMin = avgWageMin; }
+
+    public Double getAvgWageMax() { return avgWageMax; }
+    public void setAvgWageMax(Double avgWageMax) { this.avgWageMax = avgWageMax; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
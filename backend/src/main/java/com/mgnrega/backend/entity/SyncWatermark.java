@@ -0,0 +1,59 @@
+package com.mgnrega.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Latest period ingested for one district, so a delta sync only asks upstream
+ * for newer months. lagMonths is how far the district trails the calendar.
+ */
+@Entity
+@Table(name = "sync_watermarks", indexes = {
+    @Index(name = "idx_sync_watermark_state_id", columnList = "state_id")
+})
+public class SyncWatermark {
+    // Place ids as in performance_records; see PlaceDictionary for the names
+    @Id
+    @Column(name = "district_id")
+    private Integer districtId;
+
+    @Column(name = "state_id")
+    private Integer stateId;
+
+    @Column(name = "fin_year")
+    private String finYear;
+
+    @Column(name = "month")
+    private String month;
+
+    @Column(name = "period_key")
+    private Integer periodKey;
+
+    @Column(name = "lag_months")
+    private Integer lagMonths;
+
+    @Column(name = "last_synced_at")
+    private LocalDateTime lastSyncedAt;
+
+    // Getters and setters
+    public Integer getDistrictId() { return districtId; }
+    public void setDistrictId(Integer districtId) { this.districtId = districtId; }
+
+    public Integer getStateId() { return stateId; }
+    public void setStateId(Integer stateId) { this.stateId = stateId; }
+
+    public String getFinYear() { return finYear; }
+    public void setFinYear(String finYear) { this.finYear = finYear; }
+
+    public String getMonth() { return month; }
+    public void setMonth(String month) { this.month = month; }
+
+    public Integer getPeriodKey() { return periodKey; }
+    public void setPeriodKey(Integer periodKey) { this.periodKey = periodKey; }
+
+    public Integer getLagMonths() { return lagMonths; }
+    public void setLagMonths(Integer lagMonths) { this.lagMonths = lagMonths; }
+
+    public LocalDateTime getLastSyncedAt() { return lastSyncedAt; }
+    public void setLastSyncedAt(LocalDateTime lastSyncedAt) { this.lastSyncedAt = lastSyncedAt; }
+}
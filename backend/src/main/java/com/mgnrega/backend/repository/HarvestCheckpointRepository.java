@@ -0,0 +1,9 @@
+package com.mgnrega.backend.repository;
+
+import com.mgnrega.backend.entity.HarvestCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface HarvestCheckpointRepository extends JpaRepository<HarvestCheckpoint, String> {
+}
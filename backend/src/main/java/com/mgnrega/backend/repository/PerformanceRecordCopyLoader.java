@@ -0,0 +1,118 @@
+package com.mgnrega.backend.repository;
+
+import com.mgnrega.backend.entity.PerformanceRecord;
+import com.mgnrega.backend.service.FiscalPeriod;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Bulk loader for very large pages: streams rows with COPY into a temp staging
+ * table, then merges them with one INSERT ... SELECT using the same natural-key
+ * upsert rules as {@link PerformanceRecordJdbcRepository}.
+ */
+@Repository
+public class PerformanceRecordCopyLoader {
+    private static final int COPY_CHUNK_CHARS = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final PerformanceRecordIdAllocator idAllocator;
+
+    public PerformanceRecordCopyLoader(JdbcTemplate jdbcTemplate,
+                                       DataSource dataSource,
+                                       PerformanceRecordIdAllocator idAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.idAllocator = idAllocator;
+    }
+
+    @Transactional
+    public int load(List<PerformanceRecord> records) throws SQLException {
+        if (records.isEmpty()) return 0;
+        long[] ids = idAllocator.allocate(records.size());
+        jdbcTemplate.execute("CREATE TEMP TABLE IF NOT EXISTS performance_records_staging " +
+            "(LIKE performance_records INCLUDING DEFAULTS)");
+
+        // Must be the transaction's connection: the temp table is per session
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("COPY performance_records_staging (" + PerformanceRecordJdbcRepository.COLUMNS +
+                        ") FROM STDIN WITH (FORMAT csv)");
+            try {
+                StringBuilder chunk = new StringBuilder(COPY_CHUNK_CHARS + 1024);
+                for (int i = 0; i < records.size(); i++) {
+                    appendCsvRow(chunk, ids[i], records.get(i));
+                    if (chunk.length() >= COPY_CHUNK_CHARS) {
+                        writeChunk(copy, chunk);
+                    }
+                }
+                writeChunk(copy, chunk);
+                copy.endCopy();
+            } finally {
+                if (copy.isActive()) copy.cancelCopy();
+            }
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+
+        // DISTINCT ON: one statement may not update the same target row twice
+        int changed = jdbcTemplate.update(
+            "INSERT INTO performance_records (" + PerformanceRecordJdbcRepository.COLUMNS + ", created_at) " +
+            "SELECT DISTINCT ON (district_id, fin_year, month) " +
+            PerformanceRecordJdbcRepository.COLUMNS + ", now() FROM performance_records_staging " +
+            "ORDER BY district_id, fin_year, month, id DESC " +
+            PerformanceRecordJdbcRepository.ON_CONFLICT_UPDATE);
+        jdbcTemplate.execute("TRUNCATE performance_records_staging");
+        return changed;
+    }
+
+    private static void writeChunk(CopyIn copy, StringBuilder chunk) throws SQLException {
+        if (chunk.length() == 0) return;
+        byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
+    }
+
+    private static void appendCsvRow(StringBuilder sb, long id, PerformanceRecord r) {
+        sb.append(id).append(',');
+        appendText(sb, r.getFinYear()).append(',');
+        appendText(sb, r.getMonth()).append(',');
+        appendValue(sb, r.getStateId()).append(',');
+        appendValue(sb, r.getDistrictId()).append(',');
+        appendValue(sb, r.getHouseholdsWorked()).append(',');
+        appendValue(sb, r.getPersondaysGenerated()).append(',');
+        appendValue(sb, r.getWomenPersondaysPercent()).append(',');
+        appendValue(sb, r.getNoOfOngoingWorks()).append(',');
+        appendValue(sb, r.getNoOfCompletedWorks()).append(',');
+        appendValue(sb, r.getAvgWageRate()).append(',');
+        appendValue(sb, r.getTotalWages()).append(',');
+        appendValue(sb, FiscalPeriod.periodKey(r.getFinYear(), r.getMonth())).append('\n');
+    }
+
+    // In CSV format an unquoted empty field is NULL, a quoted one is ''
+    private static StringBuilder appendText(StringBuilder sb, String value) {
+        if (value == null) return sb;
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') sb.append('"');
+            sb.append(c);
+        }
+        return sb.append('"');
+    }
+
+    private static StringBuilder appendValue(StringBuilder sb, Object value) {
+        return value == null ? sb : sb.append(value);
+    }
+}
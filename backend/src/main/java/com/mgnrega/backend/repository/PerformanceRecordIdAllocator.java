@@ -0,0 +1,63 @@
+package com.mgnrega.backend.repository;
+
+import com.mgnrega.backend.entity.PerformanceRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Hands out ids for JDBC writes from the same sequence Hibernate uses, with the
+ * same pooled semantics: each nextval() value v reserves the block (v - 49 .. v],
+ * so JDBC and JPA inserts never collide and a 1000-row batch needs one query.
+ */
+@Component
+public class PerformanceRecordIdAllocator {
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceRecordIdAllocator.class);
+    private static final String SEQUENCE = "performance_records_seq";
+    private static final int BLOCK = PerformanceRecord.ID_ALLOCATION_SIZE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean aligned;
+
+    public PerformanceRecordIdAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long[] allocate(int count) {
+        ensureAligned();
+        int blocks = (count + BLOCK - 1) / BLOCK;
+        List<Long> highs = jdbcTemplate.queryForList(
+            "SELECT nextval('" + SEQUENCE + "') FROM generate_series(1, ?)", Long.class, blocks);
+        long[] ids = new long[count];
+        int i = 0;
+        for (long high : highs) {
+            for (long id = high - BLOCK + 1; id <= high && i < count; id++) {
+                ids[i++] = id;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Tables created before the switch from IDENTITY already hold ids; move the
+     * sequence past them once, and past its start value so every block is full.
+     */
+    private void ensureAligned() {
+        if (aligned) return;
+        synchronized (this) {
+            if (aligned) return;
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE + " START WITH 1 INCREMENT BY " + BLOCK);
+            Long floor = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(id), 0) + " + BLOCK + " FROM performance_records", Long.class);
+            Long current = jdbcTemplate.queryForObject("SELECT last_value FROM " + SEQUENCE, Long.class);
+            if (floor != null && current != null && current < floor) {
+                jdbcTemplate.queryForObject("SELECT setval('" + SEQUENCE + "', ?)", Long.class, floor);
+                logger.info("Aligned {} to {} (was {})", SEQUENCE, floor, current);
+            }
+            aligned = true;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.mgnrega.backend.repository;
+
+import com.mgnrega.backend.entity.PerformanceRecord;
+import com.mgnrega.backend.service.FiscalPeriod;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Idempotent writes keyed on (district_id, fin_year, month).
+ * Refetching the same district/month updates the existing row instead of
+ * inserting a duplicate, and unchanged rows are not rewritten at all.
+ */
+@Repository
+public class PerformanceRecordJdbcRepository {
+    static final String COLUMNS =
+        "id, fin_year, month, state_id, district_id, households_worked, persondays_generated, " +
+        "women_persondays_percent, no_of_ongoing_works, no_of_completed_works, avg_wage_rate, total_wages, period_key";
+
+    static final String ON_CONFLICT_UPDATE =
+        "ON CONFLICT (district_id, fin_year, month) DO UPDATE SET " +
+        // A missing column in a newer response must not wipe a value we already have
+        "households_worked = COALESCE(EXCLUDED.households_worked, performance_records.households_worked), " +
+        "persondays_generated = COALESCE(EXCLUDED.persondays_generated, performance_records.persondays_generated), " +
+        "women_persondays_percent = COALESCE(EXCLUDED.women_persondays_percent, performance_records.women_persondays_percent), " +
+        "no_of_ongoing_works = COALESCE(EXCLUDED.no_of_ongoing_works, performance_records.no_of_ongoing_works), " +
+        "no_of_completed_works = COALESCE(EXCLUDED.no_of_completed_works, performance_records.no_of_completed_works), " +
+        "avg_wage_rate = COALESCE(EXCLUDED.avg_wage_rate, performance_records.avg_wage_rate), " +
+        "total_wages = COALESCE(EXCLUDED.total_wages, performance_records.total_wages) " +
+        // Skip no-op updates so repeated harvests do not churn dead tuples
+        "WHERE (performance_records.households_worked, performance_records.persondays_generated, " +
+        "performance_records.women_persondays_percent, performance_records.no_of_ongoing_works, " +
+        "performance_records.no_of_completed_works, performance_records.avg_wage_rate, performance_records.total_wages) " +
+        "IS DISTINCT FROM (EXCLUDED.households_worked, EXCLUDED.persondays_generated, " +
+        "EXCLUDED.women_persondays_percent, EXCLUDED.no_of_ongoing_works, " +
+        "EXCLUDED.no_of_completed_works, EXCLUDED.avg_wage_rate, EXCLUDED.total_wages)";
+
+    private static final int PARAMS_PER_ROW = COLUMNS.split(",").length;
+    private static final String ROW_VALUES = "(" + "?, ".repeat(PARAMS_PER_ROW) + "now())";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PerformanceRecordIdAllocator idAllocator;
+    private final int batchSize;
+
+    public PerformanceRecordJdbcRepository(JdbcTemplate jdbcTemplate,
+                                           PerformanceRecordIdAllocator idAllocator,
+                                           @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Upserts the records as multi-row statements of up to batchSize rows and
+     * returns how many rows were inserted or changed. Each statement returns a
+     * row per insert or real update, so unchanged rows are not counted; batch
+     * update counts cannot tell, as a rewritten batch reports every row as
+     * SUCCESS_NO_INFO.
+     */
+    public int upsertAll(List<PerformanceRecord> records) {
+        if (records.isEmpty()) return 0;
+        // A multi-row statement must not hit the same key twice
+        records = lastPerNaturalKey(records);
+        // Ids are only consumed by rows that end up inserted; conflicts keep the existing id
+        long[] ids = idAllocator.allocate(records.size());
+        int changed = 0;
+        for (int from = 0; from < records.size(); from += batchSize) {
+            List<PerformanceRecord> chunk = records.subList(from, Math.min(records.size(), from + batchSize));
+            int offset = from;
+            changed += jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(upsertSql(chunk.size()));
+                for (int i = 0; i < chunk.size(); i++) {
+                    bind(ps, i * PARAMS_PER_ROW, ids[offset + i], chunk.get(i));
+                }
+                return ps;
+            }, rs -> {
+                int rows = 0;
+                while (rs.next()) rows++;
+                return rows;
+            });
+        }
+        return changed;
+    }
+
+    private static String upsertSql(int rows) {
+        return "INSERT INTO performance_records (" + COLUMNS + ", created_at) VALUES " +
+            String.join(", ", Collections.nCopies(rows, ROW_VALUES)) + " " + ON_CONFLICT_UPDATE + " RETURNING 1";
+    }
+
+    static List<PerformanceRecord> lastPerNaturalKey(List<PerformanceRecord> records) {
+        Map<List<Object>, PerformanceRecord> byKey = new LinkedHashMap<>(records.size() * 2);
+        for (PerformanceRecord r : records) {
+            byKey.put(Arrays.asList(r.getDistrictId(), r.getFinYear(), r.getMonth()), r);
+        }
+        return byKey.size() == records.size() ? records : new ArrayList<>(byKey.values());
+    }
+
+    private static void bind(PreparedStatement ps, int offset, long id, PerformanceRecord r) throws SQLException {
+        ps.setLong(offset + 1, id);
+        ps.setString(offset + 2, r.getFinYear());
+        ps.setString(offset + 3, r.getMonth());
+        ps.setObject(offset + 4, r.getStateId(), Types.INTEGER);
+        ps.setObject(offset + 5, r.getDistrictId(), Types.INTEGER);
+        ps.setObject(offset + 6, r.getHouseholdsWorked(), Types.BIGINT);
+        ps.setObject(offset + 7, r.getPersondaysGenerated(), Types.BIGINT);
+        ps.setObject(offset + 8, r.getWomenPersondaysPercent(), Types.DOUBLE);
+        ps.setObject(offset + 9, r.getNoOfOngoingWorks(), Types.INTEGER);
+        ps.setObject(offset + 10, r.getNoOfCompletedWorks(), Types.INTEGER);
+        ps.setObject(offset + 11, r.getAvgWageRate(), Types.DOUBLE);
+        ps.setObject(offset + 12, r.getTotalWages(), Types.DOUBLE);
+        ps.setObject(offset + 13, FiscalPeriod.periodKey(r.getFinYear(), r.getMonth()), Types.INTEGER);
+    }
+}
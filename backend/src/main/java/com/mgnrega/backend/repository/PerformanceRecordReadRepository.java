@@ -0,0 +1,78 @@
+package com.mgnrega.backend.repository;
+
+import com.mgnrega.backend.entity.PerformanceRecord;
+import com.mgnrega.backend.service.PlaceDictionary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Read path for the API. Maps rows straight into plain PerformanceRecord
+ * objects that Hibernate never sees: no persistence context, no loaded-state
+ * snapshot for dirty checking, no entity entries to flush or clear. Callers
+ * only serialize them, so nothing is lost by their being detached. Rows are
+ * found by place id and named from the {@link PlaceDictionary}, so neither
+ * the filter nor the result carries the name strings.
+ */
+@Repository
+public class PerformanceRecordReadRepository {
+    private static final String SELECT =
+        "SELECT id, fin_year, month, state_id, district_id, households_worked, persondays_generated, " +
+        "women_persondays_percent, no_of_ongoing_works, no_of_completed_works, avg_wage_rate, total_wages, period_key " +
+        "FROM performance_records ";
+
+    // Same order as idx_district_period / idx_state_id_period, so LIMIT stops the index scan early
+    private static final String ORDER = "ORDER BY period_key DESC NULLS LAST LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlaceDictionary places;
+
+    public PerformanceRecordReadRepository(JdbcTemplate jdbcTemplate, PlaceDictionary places) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.places = places;
+    }
+
+    /** Newest first; with {@code beforePeriod}, only periods older than it. */
+    @Transactional(readOnly = true)
+    public List<PerformanceRecord> findRecentByDistrict(String stateName, String districtName,
+                                                        Integer beforePeriod, int limit) {
+        Integer districtId = places.districtId(stateName, districtName);
+        if (districtId == null) return List.of();
+        if (beforePeriod == null) {
+            return jdbcTemplate.query(SELECT + "WHERE district_id = ? " + ORDER, this::mapRow, districtId, limit);
+        }
+        return jdbcTemplate.query(SELECT + "WHERE district_id = ? AND period_key < ? " + ORDER,
+            this::mapRow, districtId, beforePeriod, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PerformanceRecord> findRecentByState(String stateName, int limit) {
+        Integer stateId = places.stateId(stateName);
+        if (stateId == null) return List.of();
+        return jdbcTemplate.query(SELECT + "WHERE state_id = ? " + ORDER, this::mapRow, stateId, limit);
+    }
+
+    private PerformanceRecord mapRow(ResultSet rs, int rowNum) throws SQLException {
+        PerformanceRecord r = new PerformanceRecord();
+        r.setId(rs.getLong("id"));
+        r.setFinYear(rs.getString("fin_year"));
+        r.setMonth(rs.getString("month"));
+        r.setStateId(rs.getObject("state_id", Integer.class));
+        r.setDistrictId(rs.getObject("district_id", Integer.class));
+        r.setStateName(places.stateName(r.getStateId()));
+        r.setDistrictName(places.districtName(r.getDistrictId()));
+        r.setHouseholdsWorked(rs.getObject("households_worked", Long.class));
+        r.setPersondaysGenerated(rs.getObject("persondays_generated", Long.class));
+        r.setWomenPersondaysPercent(rs.getObject("women_persondays_percent", Double.class));
+        r.setNoOfOngoingWorks(rs.getObject("no_of_ongoing_works", Integer.class));
+        r.setNoOfCompletedWorks(rs.getObject("no_of_completed_works", Integer.class));
+        r.setAvgWageRate(rs.getObject("avg_wage_rate", Double.class));
+        r.setTotalWages(rs.getObject("total_wages", Double.class));
+        r.setPeriodKey(rs.getObject("period_key", Integer.class));
+        return r;
+    }
+}
@@ -1,6 +1,7 @@
 package com.mgnrega.backend.repository;
 
 import com.mgnrega.backend.entity.PerformanceRecord;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,25 +11,26 @@ import java.util.List;
 
 @Repository
 public interface PerformanceRecordRepository extends JpaRepository<PerformanceRecord, Long> {
-    List<PerformanceRecord> findByStateNameAndDistrictNameOrderByFinYearDescMonthDesc(
-        String stateName, String districtName);
-
-    List<PerformanceRecord> findByStateNameAndDistrictNameAndFinYearOrderByMonthDesc(
-        String stateName, String districtName, String finYear);
-
-    @Query("SELECT p FROM PerformanceRecord p WHERE p.stateName = :stateName AND p.districtName = :districtName ORDER BY p.finYear DESC, p.month DESC")
-    List<PerformanceRecord> findRecentByDistrict(@Param("stateName") String stateName, 
-                                                   @Param("districtName") String districtName);
-
-    @Query("SELECT p FROM PerformanceRecord p WHERE p.stateName = :stateName ORDER BY p.finYear DESC, p.month DESC")
-    List<PerformanceRecord> findRecentByState(@Param("stateName") String stateName);
-
-    @Query("SELECT AVG(p.persondaysGenerated) FROM PerformanceRecord p WHERE p.stateName = :stateName AND p.finYear = :finYear AND p.month = :month")
+    // Managed-entity form of PerformanceRecordReadRepository.findRecentByDistrict; the API reads through that one
+    @Query("SELECT p FROM PerformanceRecord p WHERE p.districtId = :districtId ORDER BY p.periodKey DESC NULLS LAST")
+    List<PerformanceRecord> findRecentByDistrictId(@Param("districtId") Integer districtId, Pageable page);
+
+    // States that have rows: one idx_state_id_period probe per state however many rows each has
+    @Query(value = "SELECT s.name FROM states s " +
+        "WHERE EXISTS (SELECT 1 FROM performance_records p WHERE p.state_id = s.id) ORDER BY s.name", nativeQuery = true)
+    List<String> findStateNames();
+
+    // Read from state_period_rollups: one row per state and month, whatever the number of districts
+    @Query(value = "SELECT CAST(r.persondays_sum AS double precision) / NULLIF(r.persondays_count, 0) FROM state_period_rollups r " +
+        "JOIN states s ON s.id = r.state_id " +
+        "WHERE s.name = :stateName AND r.fin_year = :finYear AND r.month = :month", nativeQuery = true)
     Double findStateAveragePersondays(@Param("stateName") String stateName, 
                                       @Param("finYear") String finYear, 
                                       @Param("month") String month);
 
-    @Query("SELECT AVG(p.householdsWorked) FROM PerformanceRecord p WHERE p.stateName = :stateName AND p.finYear = :finYear AND p.month = :month")
+    @Query(value = "SELECT CAST(r.households_sum AS double precision) / NULLIF(r.households_count, 0) FROM state_period_rollups r " +
+        "JOIN states s ON s.id = r.state_id " +
+        "WHERE s.name = :stateName AND r.fin_year = :finYear AND r.month = :month", nativeQuery = true)
     Double findStateAverageHouseholds(@Param("stateName") String stateName, 
                                       @Param("finYear") String finYear, 
                                       @Param("month") String month);
@@ -0,0 +1,14 @@
+package com.mgnrega.backend.repository;
+
+import com.mgnrega.backend.entity.RequestFrequency;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RequestFrequencyRepository extends JpaRepository<RequestFrequency, String> {
+    List<RequestFrequency> findByLastRequestedAtAfterOrderByHitCountDesc(LocalDateTime since, Pageable pageable);
+}
@@ -0,0 +1,117 @@
+package com.mgnrega.backend.repository;
+
+import com.mgnrega.backend.entity.PerformanceRecord;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maintains state_period_rollups. Ingestion refreshes the (state_id, fin_year,
+ * month) keys a batch touched, in the batch's own transaction, by
+ * re-aggregating just those periods: exact even when an upsert lowered a
+ * value that was the min or max. Bulk deletes rebuild the whole table.
+ * Writers of the same period are serialized on an advisory lock, otherwise
+ * each would aggregate without the other's uncommitted districts and the
+ * last to commit would overwrite the rollup with a partial total.
+ */
+@Repository
+public class StatePeriodRollupRepository {
+    // performance_records column -> rollup column prefix
+    private static final String[][] METRICS = {
+        {"persondays_generated", "persondays"},
+        {"households_worked", "households"},
+        {"women_persondays_percent", "women_percent"},
+        {"avg_wage_rate", "avg_wage"}
+    };
+
+    private static final String INSERT_COLUMNS;
+    private static final String AGGREGATES;
+    private static final String ON_CONFLICT_UPDATE;
+
+    static {
+        StringBuilder columns = new StringBuilder("state_id, fin_year, month, row_count");
+        StringBuilder aggregates = new StringBuilder("state_id, fin_year, month, COUNT(*)");
+        StringBuilder updates = new StringBuilder("row_count = EXCLUDED.row_count");
+        for (String[] m : METRICS) {
+            for (String stat : new String[] {"sum", "count", "min", "max"}) {
+                String column = m[1] + "_" + stat;
+                columns.append(", ").append(column);
+                aggregates.append(", ").append(stat.toUpperCase()).append("(").append(m[0]).append(")");
+                updates.append(", ").append(column).append(" = EXCLUDED.").append(column);
+            }
+        }
+        INSERT_COLUMNS = columns.append(", updated_at").toString();
+        AGGREGATES = aggregates.append(", now()").toString();
+        ON_CONFLICT_UPDATE = "ON CONFLICT (state_id, fin_year, month) DO UPDATE SET " +
+            updates.append(", updated_at = EXCLUDED.updated_at");
+    }
+
+    private static final String REFRESH_SQL =
+        "INSERT INTO state_period_rollups (" + INSERT_COLUMNS + ") " +
+        "SELECT " + AGGREGATES + " FROM performance_records " +
+        "WHERE state_id = ? AND fin_year = ? AND month = ? " +
+        "GROUP BY state_id, fin_year, month " + ON_CONFLICT_UPDATE;
+
+    // Advisory locks are held until the transaction ends. Refreshes share the table lock; a rebuild takes it alone
+    private static final String TABLE_LOCK_SHARED_SQL =
+        "SELECT 1 FROM pg_advisory_xact_lock_shared(hashtext('state_period_rollups'))";
+    private static final String TABLE_LOCK_SQL =
+        "SELECT 1 FROM pg_advisory_xact_lock(hashtext('state_period_rollups'))";
+    private static final String PERIOD_LOCK_SQL =
+        "SELECT 1 FROM pg_advisory_xact_lock(hashtext('state_period_rollups/' || CAST(? AS integer) || '/' || ? || '/' || ?))";
+
+    private static final String REBUILD_SQL =
+        "INSERT INTO state_period_rollups (" + INSERT_COLUMNS + ") " +
+        "SELECT " + AGGREGATES + " FROM performance_records " +
+        "WHERE state_id IS NOT NULL AND fin_year IS NOT NULL AND month IS NOT NULL " +
+        "GROUP BY state_id, fin_year, month";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StatePeriodRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Re-aggregates every period the records belong to. Call in the transaction that wrote them. */
+    public void refresh(Collection<PerformanceRecord> records) {
+        Set<List<Object>> periods = new LinkedHashSet<>();
+        for (PerformanceRecord r : records) {
+            if (r.getStateId() != null && r.getFinYear() != null && r.getMonth() != null) {
+                periods.add(List.of(r.getStateId(), r.getFinYear(), r.getMonth()));
+            }
+        }
+        if (periods.isEmpty()) return;
+        List<Object[]> args = new ArrayList<>(periods.size());
+        for (List<Object> p : periods) {
+            args.add(p.toArray());
+        }
+        // Sorted, so two batches sharing periods take their locks in the same order
+        args.sort(Comparator.comparing((Object[] a) -> (Integer) a[0])
+            .thenComparing(a -> (String) a[1]).thenComparing(a -> (String) a[2]));
+        // Separate statements: the aggregate's snapshot must be taken after the locks are held
+        jdbcTemplate.queryForObject(TABLE_LOCK_SHARED_SQL, Integer.class);
+        for (Object[] key : args) {
+            jdbcTemplate.queryForObject(PERIOD_LOCK_SQL, Integer.class, key);
+        }
+        jdbcTemplate.batchUpdate(REFRESH_SQL, args);
+    }
+
+    @Transactional
+    public int rebuildAll() {
+        jdbcTemplate.queryForObject(TABLE_LOCK_SQL, Integer.class);
+        jdbcTemplate.update("DELETE FROM state_period_rollups");
+        return jdbcTemplate.update(REBUILD_SQL);
+    }
+
+    public boolean isEmpty() {
+        List<Integer> any = jdbcTemplate.queryForList("SELECT 1 FROM state_period_rollups LIMIT 1", Integer.class);
+        return any.isEmpty();
+    }
+}
@@ -0,0 +1,14 @@
+package com.mgnrega.backend.repository;
+
+import com.mgnrega.backend.entity.SyncWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SyncWatermarkRepository extends JpaRepository<SyncWatermark, Integer> {
+    List<SyncWatermark> findByStateId(Integer stateId);
+
+    List<SyncWatermark> findAllByOrderByLagMonthsDesc();
+}
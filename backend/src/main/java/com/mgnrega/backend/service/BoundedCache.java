@@ -0,0 +1,277 @@
+package com.mgnrega.backend.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * TTL cache bounded by total weight (approximate bytes). Eviction is LRU, and a
+ * new key only displaces the LRU victim if a TinyLFU frequency sketch says it
+ * has been asked for more often, so a flood of one-off queries cannot push out
+ * the popular ones. Expired entries stay readable through {@link #getStale}
+ * for a grace period and are swept in the background after that.
+ */
+public class BoundedCache<K, V> {
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Rough size of a typical cached response, used only to size the frequency sketch
+    private static final long TYPICAL_ENTRY_BYTES = 4096;
+
+    @FunctionalInterface
+    public interface Weigher<K, V> {
+        long weigh(K key, V value);
+    }
+
+    private static final class Node<V> {
+        final V value;
+        final long weight;
+        final long expiresAtMs;
+
+        Node(V value, long weight, long expiresAtMs) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+
+    private final Map<K, Node<V>> data = new ConcurrentHashMap<>();
+    // Access-ordered copy of data for eviction; guarded by lock together with the sketch and weight
+    private final LinkedHashMap<K, Node<V>> order = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final Weigher<K, V> weigher;
+    private final long ttlMs;
+    private final long staleGraceMs;
+    private final long maxWeight;
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public BoundedCache(long ttlMs, long staleGraceMs, long maxWeight, Weigher<K, V> weigher) {
+        this.ttlMs = ttlMs;
+        this.staleGraceMs = staleGraceMs;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(64, maxWeight / TYPICAL_ENTRY_BYTES)));
+        long sweepMs = Math.max(1000, Math.min(60_000, ttlMs));
+        SWEEPER.scheduleWithFixedDelay(this::sweep, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+    }
+
+    public V get(K key) {
+        Node<V> node = data.get(key);
+        recordAccess(key, node);
+        if (node == null || System.currentTimeMillis() > node.expiresAtMs) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return node.value;
+    }
+
+    /** Last value stored for the key, even if expired, until the stale grace period ends. */
+    public V getStale(K key) {
+        Node<V> node = data.get(key);
+        if (node == null || System.currentTimeMillis() > node.expiresAtMs + staleGraceMs) return null;
+        return node.value;
+    }
+
+    public void put(K key, V value) {
+        putUntil(key, value, System.currentTimeMillis() + ttlMs);
+    }
+
+    /** Stores with an explicit expiry, e.g. when promoting an entry from a slower tier. */
+    public void putUntil(K key, V value, long expiresAtMs) {
+        long entryWeight = weigher.weigh(key, value);
+        Node<V> node = new Node<>(value, entryWeight, expiresAtMs);
+        lock.lock();
+        try {
+            Node<V> old = order.remove(key);
+            if (old != null) {
+                weight -= old.weight;
+            }
+            // Existing keys are replaced without an admission check; they already earned their place
+            if (entryWeight > maxWeight || !makeRoom(key, entryWeight, old != null)) {
+                if (old != null) data.remove(key);
+                rejections.increment();
+                return;
+            }
+            order.put(key, node);
+            data.put(key, node);
+            weight += entryWeight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            Node<V> old = order.remove(key);
+            if (old != null) weight -= old.weight;
+            data.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            order.clear();
+            data.clear();
+            weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.sum());
+        stats.put("rejections", rejections.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("size", data.size());
+        lock.lock();
+        try {
+            stats.put("weightBytes", weight);
+        } finally {
+            lock.unlock();
+        }
+        stats.put("maxWeightBytes", maxWeight);
+        return stats;
+    }
+
+    // Lossy under contention, like a read buffer: a skipped update only makes
+    // eviction slightly less precise, and readers never queue behind writers
+    private void recordAccess(K key, Node<V> node) {
+        if (!lock.tryLock()) return;
+        try {
+            sketch.increment(key);
+            if (node != null) order.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean makeRoom(K candidate, long needed, boolean resident) {
+        if (weight + needed <= maxWeight) return true;
+        if (order.isEmpty()) return false;
+        if (!resident) {
+            // TinyLFU admission: only displace the LRU victim for a key asked for more often
+            K victim = order.keySet().iterator().next();
+            if (sketch.frequency(candidate) <= sketch.frequency(victim)) return false;
+        }
+        Iterator<Map.Entry<K, Node<V>>> it = order.entrySet().iterator();
+        while (weight + needed > maxWeight && it.hasNext()) {
+            Map.Entry<K, Node<V>> e = it.next();
+            it.remove();
+            data.remove(e.getKey(), e.getValue());
+            weight -= e.getValue().weight;
+            evictions.increment();
+        }
+        return weight + needed <= maxWeight;
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            Iterator<Map.Entry<K, Node<V>>> it = order.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, Node<V>> e = it.next();
+                if (now > e.getValue().expiresAtMs + staleGraceMs) {
+                    it.remove();
+                    data.remove(e.getKey(), e.getValue());
+                    weight -= e.getValue().weight;
+                    expirations.increment();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedCache{" + "size=" + data.size() + ", maxWeight=" + maxWeight + ", ttlMs=" + ttlMs + '}';
+    }
+
+    /**
+     * Count-min sketch with four rows of counters capped at 15. All counters are
+     * halved every {@code 10 * width} increments so old popularity fades.
+     */
+    static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9E3779B1, 0x85EBCA77, 0xC2B2AE3D, 0x27D4EB2F};
+
+        private final byte[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int expectedEntries) {
+            int width = Integer.highestOneBit(Math.max(64, expectedEntries) - 1) << 1;
+            this.table = new byte[DEPTH][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        void increment(Object key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int row = 0; row < DEPTH; row++) {
+                int index = index(hash, row);
+                if (table[row][index] < MAX_COUNT) {
+                    table[row][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = key.hashCode();
+            int min = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                min = Math.min(min, table[row][index(hash, row)]);
+            }
+            return min;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            h ^= h >>> 16;
+            return h & mask;
+        }
+
+        private void reset() {
+            for (byte[] counters : table) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] = (byte) (counters[i] >>> 1);
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.mgnrega.backend.service;
+
+import com.mgnrega.backend.entity.HarvestCheckpoint;
+import com.mgnrega.backend.repository.HarvestCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads a whole financial year of the data.gov.in resource in one operation:
+ * pages through it with offset/limit, runs a few pages at a time within the
+ * shared upstream budget at bulk priority and streams each page straight into the database.
+ * Progress is checkpointed per page so an interrupted harvest resumes where it stopped.
+ */
+@Service
+public class BulkHarvester {
+    private static final Logger logger = LoggerFactory.getLogger(BulkHarvester.class);
+
+    private final PerformanceDataService dataService;
+    private final HarvestCheckpointRepository checkpoints;
+    private final String resourceId;
+    private final int pageSize;
+    private final int concurrency;
+    private final int maxPageAttempts;
+    private final long permitWaitMs;
+    private final ExecutorService jobRunner;
+    private final Map<String, AtomicBoolean> running = new ConcurrentHashMap<>();
+
+    public BulkHarvester(PerformanceDataService dataService,
+                         HarvestCheckpointRepository checkpoints,
+                         @Value("${datagov.resourceId:ee03643a-ee4c-48c2-ac30-9f2ff26ab722}") String resourceId,
+                         @Value("${harvest.pageSize:1000}") int pageSize,
+                         @Value("${harvest.concurrency:2}") int concurrency,
+                         @Value("${harvest.maxPageAttempts:3}") int maxPageAttempts,
+                         @Value("${harvest.permitWaitMs:180000}") long permitWaitMs) {
+        this.dataService = dataService;
+        this.checkpoints = checkpoints;
+        this.resourceId = resourceId;
+        this.pageSize = pageSize;
+        this.concurrency = Math.max(1, concurrency);
+        this.maxPageAttempts = Math.max(1, maxPageAttempts);
+        this.permitWaitMs = permitWaitMs;
+        this.jobRunner = Executors.newCachedThreadPool(daemonThreads("harvest-job-"));
+    }
+
+    /**
+     * Starts (or resumes) the harvest for a financial year in the background.
+     * A completed harvest is started again from offset 0; upserts make that safe.
+     */
+    public synchronized HarvestCheckpoint start(String finYear) {
+        String key = jobKey(finYear);
+        HarvestCheckpoint checkpoint = checkpoints.findById(key).orElseGet(() -> newCheckpoint(key, finYear));
+        AtomicBoolean flag = running.computeIfAbsent(key, k -> new AtomicBoolean());
+        if (!flag.compareAndSet(false, true)) {
+            logger.info("Harvest {} is already running at offset {}", key, checkpoint.getNextOffset());
+            return checkpoint;
+        }
+        if (checkpoint.getStatus() == HarvestCheckpoint.Status.COMPLETED
+                || !Integer.valueOf(pageSize).equals(checkpoint.getPageSize())) {
+            // Offsets from a different page size do not line up; start over
+            checkpoint.setNextOffset(0L);
+            checkpoint.setRecordsSaved(0L);
+            checkpoint.setTotalRecords(null);
+            checkpoint.setPageSize(pageSize);
+        }
+        checkpoint.setStatus(HarvestCheckpoint.Status.RUNNING);
+        checkpoint.setLastError(null);
+        checkpoint.setStartedAt(LocalDateTime.now());
+        HarvestCheckpoint saved = checkpoints.save(checkpoint);
+        jobRunner.submit(() -> {
+            try {
+                run(saved);
+            } finally {
+                flag.set(false);
+            }
+        });
+        return saved;
+    }
+
+    public Optional<HarvestCheckpoint> status(String finYear) {
+        return checkpoints.findById(jobKey(finYear));
+    }
+
+    private void run(HarvestCheckpoint checkpoint) {
+        long started = System.currentTimeMillis();
+        logger.info("🚜 Harvest {} starting at offset {} (page size {}, {} concurrent pages)",
+            checkpoint.getJobKey(), checkpoint.getNextOffset(), pageSize, concurrency);
+        ExecutorService pages = Executors.newFixedThreadPool(concurrency, daemonThreads("harvest-page-"));
+        try {
+            PageTracker tracker = new PageTracker(checkpoint);
+            if (checkpoint.getTotalRecords() == null) {
+                // The first outstanding page tells us how many pages there are
+                long offset = checkpoint.getNextOffset();
+                IngestResult first = ingestPage(checkpoint.getFinYear(), offset);
+                if (first.getTotal() >= 0) checkpoint.setTotalRecords(first.getTotal());
+                tracker.completed(offset, first.getSaved());
+                if (first.getTotal() < 0) {
+                    runUntilEmpty(checkpoint, tracker);
+                    return;
+                }
+            }
+
+            AtomicBoolean failed = new AtomicBoolean();
+            List<Future<?>> futures = new ArrayList<>();
+            for (long offset = checkpoint.getNextOffset(); offset < checkpoint.getTotalRecords(); offset += pageSize) {
+                final long pageOffset = offset;
+                if (tracker.isDone(pageOffset)) continue;
+                futures.add(pages.submit(() -> {
+                    if (failed.get()) return null;
+                    try {
+                        IngestResult result = ingestPage(checkpoint.getFinYear(), pageOffset);
+                        tracker.completed(pageOffset, result.getSaved());
+                    } catch (Exception e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            tracker.finish(HarvestCheckpoint.Status.COMPLETED, null);
+            logger.info("✅ Harvest {} completed: {} records in {} s", checkpoint.getJobKey(),
+                checkpoint.getRecordsSaved(), (System.currentTimeMillis() - started) / 1000);
+        } catch (ExecutionException e) {
+            fail(checkpoint, e.getCause() != null ? e.getCause() : e);
+        } catch (Exception e) {
+            fail(checkpoint, e);
+        } finally {
+            pages.shutdownNow();
+        }
+    }
+
+    /**
+     * Upstream did not report a total: walk pages one by one until an empty one.
+     * Empty means upstream sent nothing; a page whose records were all skipped is not the end.
+     */
+    private void runUntilEmpty(HarvestCheckpoint checkpoint, PageTracker tracker) throws Exception {
+        long offset = checkpoint.getNextOffset();
+        while (true) {
+            IngestResult result = ingestPage(checkpoint.getFinYear(), offset);
+            tracker.completed(offset, result.getSaved());
+            if (result.getFetched() == 0) break;
+            offset += pageSize;
+        }
+        tracker.finish(HarvestCheckpoint.Status.COMPLETED, null);
+    }
+
+    private IngestResult ingestPage(String finYear, long offset) throws Exception {
+        Map<String, String> query = new HashMap<>();
+        query.put("limit", String.valueOf(pageSize));
+        query.put("offset", String.valueOf(offset));
+        if (finYear != null && !finYear.isBlank()) {
+            query.put("filters[fin_year]", finYear);
+        }
+        Exception last = null;
+        for (int attempt = 1; attempt <= maxPageAttempts; attempt++) {
+            try {
+                IngestResult result = dataService.ingestFromUpstream(resourceId, query,
+                    UpstreamCallScheduler.Priority.BULK, permitWaitMs);
+                logger.info("Harvested page offset={} ({} of {} records saved)", offset, result.getSaved(), result.getFetched());
+                return result;
+            } catch (UpstreamPermitException e) {
+                // The budget is spoken for; another attempt would only wait again
+                throw e;
+            } catch (Exception e) {
+                last = e;
+                logger.warn("Harvest page offset={} failed (attempt {}/{}): {}", offset, attempt, maxPageAttempts, e.getMessage());
+            }
+        }
+        throw last;
+    }
+
+    private void fail(HarvestCheckpoint checkpoint, Throwable e) {
+        logger.error("❌ Harvest {} stopped at offset {}: {}", checkpoint.getJobKey(), checkpoint.getNextOffset(), e.getMessage());
+        synchronized (checkpoint) {
+            checkpoint.setStatus(HarvestCheckpoint.Status.FAILED);
+            String message = String.valueOf(e.getMessage());
+            checkpoint.setLastError(message.substring(0, Math.min(1000, message.length())));
+            checkpoints.save(checkpoint);
+        }
+    }
+
+    private HarvestCheckpoint newCheckpoint(String key, String finYear) {
+        HarvestCheckpoint checkpoint = new HarvestCheckpoint();
+        checkpoint.setJobKey(key);
+        checkpoint.setResourceId(resourceId);
+        checkpoint.setFinYear(finYear);
+        checkpoint.setPageSize(pageSize);
+        checkpoint.setNextOffset(0L);
+        checkpoint.setRecordsSaved(0L);
+        return checkpoint;
+    }
+
+    private String jobKey(String finYear) {
+        return resourceId + ":" + (finYear == null || finYear.isBlank() ? "all" : finYear.trim());
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Pages finish out of order; the checkpoint only advances over the
+     * contiguous prefix of finished pages.
+     */
+    class PageTracker {
+        private final HarvestCheckpoint checkpoint;
+        private final ConcurrentSkipListSet<Long> finished = new ConcurrentSkipListSet<>();
+
+        PageTracker(HarvestCheckpoint checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+
+        boolean isDone(long offset) {
+            return offset < checkpoint.getNextOffset() || finished.contains(offset);
+        }
+
+        void completed(long offset, int saved) {
+            synchronized (checkpoint) {
+                finished.add(offset);
+                long next = checkpoint.getNextOffset();
+                while (finished.remove(next)) {
+                    next += pageSize;
+                }
+                checkpoint.setNextOffset(next);
+                checkpoint.setRecordsSaved(checkpoint.getRecordsSaved() + saved);
+                checkpoints.save(checkpoint);
+            }
+        }
+
+        void finish(HarvestCheckpoint.Status status, String error) {
+            synchronized (checkpoint) {
+                checkpoint.setStatus(status);
+                checkpoint.setLastError(error);
+                checkpoints.save(checkpoint);
+            }
+        }
+    }
+}
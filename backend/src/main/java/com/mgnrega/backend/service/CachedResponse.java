@@ -0,0 +1,96 @@
+package com.mgnrega.backend.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A JSON response encoded once: UTF-8 bytes, a gzip variant and an ETag
+ * derived from the content. Cache hits are written out as-is, with no
+ * re-encoding or re-compression per request.
+ */
+public final class CachedResponse {
+    // Below this gzip framing overhead outweighs the savings
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    private final byte[] body;
+    private final byte[] gzipBody;
+    private final String etag;
+
+    private CachedResponse(byte[] body, byte[] gzipBody, String etag) {
+        this.body = body;
+        this.gzipBody = gzipBody;
+        this.etag = etag;
+    }
+
+    public static CachedResponse of(String json) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        byte[] gzipped = body.length >= GZIP_MIN_BYTES ? gzip(body) : null;
+        if (gzipped != null && gzipped.length >= body.length) gzipped = null;
+        return new CachedResponse(body, gzipped, etagOf(body));
+    }
+
+    /** Rebuilds a response from bytes encoded earlier, e.g. by the disk tier. */
+    static CachedResponse restore(byte[] body, byte[] gzipBody, String etag) {
+        return new CachedResponse(body, gzipBody, etag);
+    }
+
+    public byte[] body() {
+        return body;
+    }
+
+    /** Gzip-encoded body, or null when the response is too small to be worth compressing. */
+    public byte[] gzipBody() {
+        return gzipBody;
+    }
+
+    /** Weak ETag: the identity and gzip encodings are the same representation. */
+    public String etag() {
+        return etag;
+    }
+
+    /** Approximate heap footprint, for the cache weigher. */
+    public long weight() {
+        return body.length + (gzipBody != null ? gzipBody.length : 0) + etag.length() * 2L;
+    }
+
+    /** True if an If-None-Match header value names this response (weak comparison). */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        String ours = opaqueTag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || opaqueTag(tag).equals(ours)) return true;
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static String etagOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            // 128 bits of the hash is plenty to tell versions apart
+            return "W/\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
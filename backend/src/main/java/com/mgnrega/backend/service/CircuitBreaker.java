@@ -0,0 +1,83 @@
+package com.mgnrega.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Consecutive-failure circuit breaker. After {@code failureThreshold} failures
+ * in a row calls are rejected for {@code openMs}; then a single probe is let
+ * through and its outcome closes or re-opens the circuit.
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMs;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtMs;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMs) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMs = openMs;
+    }
+
+    /** True if the call may go ahead; the caller must then report exactly one outcome. */
+    public synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) return true;
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAtMs < openMs) return false;
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (probeInFlight) return false;
+        probeInFlight = true;
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("✅ Circuit {} closed again", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            logger.warn("⚠️ Circuit {} opened after {} consecutive failures, rejecting calls for {} ms",
+                name, consecutiveFailures, openMs);
+            state = State.OPEN;
+            openedAtMs = System.currentTimeMillis();
+        }
+    }
+
+    /** The permitted call was abandoned without an outcome (e.g. the subscriber cancelled). */
+    public synchronized void onCancel() {
+        probeInFlight = false;
+    }
+
+    /** True while calls would be rejected: open, or half-open with the probe still running. */
+    public synchronized boolean isOpen() {
+        if (state == State.OPEN) return System.currentTimeMillis() - openedAtMs < openMs;
+        return state == State.HALF_OPEN && probeInFlight;
+    }
+
+    /** How long until a probe may be attempted; 0 when calls are allowed now. */
+    public synchronized long retryAfterMs() {
+        if (state != State.OPEN) return 0;
+        return Math.max(0, openedAtMs + openMs - System.currentTimeMillis());
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+}
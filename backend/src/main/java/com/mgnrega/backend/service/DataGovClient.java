@@ -1,44 +1,265 @@
 package com.mgnrega.backend.service;
 
+import com.mgnrega.backend.service.UpstreamCallScheduler.Priority;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Component
 public class DataGovClient {
     private static final Logger logger = LoggerFactory.getLogger(DataGovClient.class);
+    private static final int STREAM_PIPE_BYTES = 64 * 1024;
+    private static final String CIRCUIT_OPEN_ERROR = "{\"error\":\"data.gov.in is temporarily unavailable (circuit open)\"}";
     private final WebClient webClient;
     private final String apiKey;
     private final String baseUrl;
     private final int maxRetries;
+    private final Duration requestTimeout;
+    private final CircuitBreaker breaker;
+    private final RetryBudget retryBudget;
+    private final UpstreamCallScheduler upstream;
 
-    public DataGovClient(@Value("${datagov.apiKey:}") String apiKey,
+    public DataGovClient(UpstreamCallScheduler upstream,
+                         @Value("${datagov.apiKey:}") String apiKey,
                          @Value("${datagov.baseUrl:https://api.data.gov.in/resource}") String baseUrl,
-                         @Value("${datagov.maxRetries:3}") int maxRetries) {
+                         @Value("${datagov.maxRetries:3}") int maxRetries,
+                         @Value("${datagov.requestTimeoutMs:15000}") long requestTimeoutMs,
+                         @Value("${datagov.breakerFailureThreshold:5}") int breakerFailureThreshold,
+                         @Value("${datagov.breakerOpenMs:30000}") long breakerOpenMs,
+                         @Value("${datagov.retryBudgetRatio:0.2}") double retryBudgetRatio,
+                         @Value("${datagov.retryBudgetMinPerSecond:0.1}") double retryBudgetMinPerSecond) {
+        this.upstream = upstream;
         this.apiKey = apiKey;
         this.baseUrl = baseUrl;
         this.maxRetries = maxRetries;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.breaker = new CircuitBreaker("data.gov.in", breakerFailureThreshold, breakerOpenMs);
+        this.retryBudget = new RetryBudget(retryBudgetRatio, retryBudgetMinPerSecond);
         this.webClient = WebClient.builder()
                 .baseUrl(baseUrl)
                 .build();
     }
 
-    public String fetchResourceJson(String resourceId, Map<String, String> query) {
+    /**
+     * Every attempt, retries included, first takes a permit at {@code priority}
+     * from the shared upstream budget. Upstream errors come back as error JSON;
+     * no permit within {@code permitWaitMs} is thrown instead, so callers can
+     * answer as rate limited.
+     */
+    public String fetchResourceJson(String resourceId, Map<String, String> query,
+                                    Priority priority, long permitWaitMs) throws UpstreamPermitException {
+        try {
+            return fetchResourceJsonAsync(resourceId, query, priority, permitWaitMs).block();
+        } catch (RuntimeException e) {
+            // block() wraps checked exceptions
+            if (Exceptions.unwrap(e) instanceof UpstreamPermitException denied) throw denied;
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking form of {@link #fetchResourceJson}: same permits, retries and
+     * error JSON, but the caller's thread is released while waiting on permits,
+     * the network and the backoff delays. Signals {@link UpstreamPermitException}
+     * when no permit is granted in time.
+     */
+    public Mono<String> fetchResourceJsonAsync(String resourceId, Map<String, String> query,
+                                               Priority priority, long permitWaitMs) {
         if (apiKey == null || apiKey.isBlank()) {
             logger.error("Missing DATAGOV_API_KEY");
-            return "{\"error\":\"Missing DATAGOV_API_KEY environment variable\"}";
+            return Mono.just("{\"error\":\"Missing DATAGOV_API_KEY environment variable\"}");
+        }
+        URI uri = buildUri(resourceId, query);
+        return Mono.defer(() -> {
+            // Fail fast while data.gov.in is down instead of paying the retry backoff
+            if (!breaker.tryAcquire()) {
+                return Mono.just(CIRCUIT_OPEN_ERROR);
+            }
+            retryBudget.onRequest();
+            return fetch(uri, priority, permitWaitMs);
+        });
+    }
+
+    private Mono<String> fetch(URI uri, Priority priority, long permitWaitMs) {
+        Mono<String> attempt = webClient.get()
+                .uri(uri)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(requestTimeout);
+        // Retry logic with exponential backoff
+        return withPermit(priority, permitWaitMs, attempt)
+                .retryWhen(retrySpec())
+                .doOnSuccess(body -> breaker.onSuccess())
+                .doOnError(this::recordFailure)
+                .doOnCancel(breaker::onCancel)
+                .onErrorResume(ex -> !(ex instanceof UpstreamPermitException), ex -> {
+                    logger.error("Error fetching data: {}", ex.getMessage());
+                    return Mono.just("{\"error\":\"" + ex.getMessage().replace("\"","'") + "\"}");
+                })
+                .defaultIfEmpty("{\"error\":\"Empty response from API\"}");
+    }
+
+    // Subscribed afresh by every retry, so each attempt waits for a permit of its own
+    private <T> Mono<T> withPermit(Priority priority, long permitWaitMs, Mono<T> call) {
+        return Mono.fromFuture(() -> upstream.acquire(priority, permitWaitMs))
+                .flatMap(granted -> granted ? call : Mono.error(new UpstreamPermitException(priority, permitWaitMs)));
+    }
+
+    private Retry retrySpec() {
+        return Retry.backoff(maxRetries, Duration.ofSeconds(2))
+                .filter(throwable -> {
+                    if (!isRetryable(throwable)) {
+                        logger.warn("Not retrying API call: {}", throwable.getMessage());
+                        return false;
+                    }
+                    if (!retryBudget.tryRetry()) {
+                        logger.warn("Retry budget exhausted, not retrying: {}", throwable.getMessage());
+                        return false;
+                    }
+                    logger.warn("Retrying API call: {}", throwable.getMessage());
+                    return true;
+                })
+                .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> {
+                    logger.error("Max retries exhausted");
+                    return retrySignal.failure();
+                });
+    }
+
+    /**
+     * Streams the raw response body to {@code handler} as it arrives instead of
+     * buffering it into a String, so large pages can be parsed token by token.
+     * Retries only until the response headers arrive: once the handler has read
+     * part of the body it cannot be replayed. A body that sends nothing for the
+     * request timeout fails the call. Permits as for {@link #fetchResourceJson}.
+     */
+    public <T> T streamResourceJson(String resourceId, Map<String, String> query, Priority priority,
+                                    long permitWaitMs, StreamHandler<T> handler) throws IOException {
+        if (apiKey == null || apiKey.isBlank()) {
+            throw new IOException("Missing DATAGOV_API_KEY environment variable");
+        }
+        URI uri = buildUri(resourceId, query);
+        if (!breaker.tryAcquire()) {
+            throw new IOException("data.gov.in circuit is open, retry in " + breaker.retryAfterMs() + " ms");
+        }
+        retryBudget.onRequest();
+        
+        PipedOutputStream sink = new PipedOutputStream();
+        PipedInputStream source = new PipedInputStream(sink, STREAM_PIPE_BYTES);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        
+        // Blocking pipe writes must not run on the Netty event loop
+        Flux<DataBuffer> body = withPermit(priority, permitWaitMs, webClient.get()
+                        .uri(uri)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .retrieve()
+                        .toEntityFlux(DataBuffer.class)
+                        .timeout(requestTimeout))
+                .retryWhen(retrySpec())
+                // Idle timeout on the body too: a stall mid-body would otherwise leave the handler blocked on the pipe
+                .flatMapMany(entity -> entity.getBody() == null ? Flux.<DataBuffer>empty()
+                        : entity.getBody().timeout(requestTimeout))
+                .publishOn(Schedulers.boundedElastic(), 4);
+        Disposable writer = DataBufferUtils.write(body, sink)
+                .doOnComplete(breaker::onSuccess)
+                .doOnError(ex -> {
+                    failure.set(ex);
+                    recordFailure(ex);
+                })
+                .doOnCancel(breaker::onCancel)
+                .doFinally(signal -> closeQuietly(sink))
+                .subscribe(DataBufferUtils.releaseConsumer(), ex -> logger.error("Error streaming data: {}", ex.getMessage()));
+        
+        try (InputStream in = source) {
+            T result = null;
+            IOException handlerError = null;
+            try {
+                result = handler.handle(in);
+            } catch (IOException e) {
+                // A failed fetch reaches the handler as a cut-off body; report the cause instead
+                handlerError = e;
+            }
+            Throwable upstreamError = failure.get();
+            if (upstreamError instanceof UpstreamPermitException denied) throw denied;
+            if (upstreamError != null) {
+                throw new IOException("Upstream stream failed: " + upstreamError.getMessage(), upstreamError);
+            }
+            if (handlerError != null) throw handlerError;
+            return result;
+        } finally {
+            writer.dispose();
         }
+    }
+
+    /** True while upstream calls are being rejected without being attempted. */
+    public boolean isCircuitOpen() {
+        return breaker.isOpen();
+    }
+
+    public long circuitRetryAfterMs() {
+        return breaker.retryAfterMs();
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return breaker.state();
+    }
+
+    // 4xx means the request itself is wrong: upstream is reachable, so it does not count against the breaker
+    private void recordFailure(Throwable ex) {
+        if (ex instanceof UpstreamPermitException) {
+            // Never sent, so it says nothing about upstream
+            breaker.onCancel();
+        } else if (isRetryable(ex)) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+
+    /** Server errors, throttling and transport failures may succeed on a later attempt; other 4xx never will. */
+    static boolean isRetryable(Throwable ex) {
+        if (ex instanceof UpstreamPermitException) return false;
+        if (ex instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            return status == 429 || status >= 500;
+        }
+        return ex instanceof WebClientRequestException
+            || ex instanceof TimeoutException
+            || ex instanceof IOException;
+    }
+
+    @FunctionalInterface
+    public interface StreamHandler<T> {
+        T handle(InputStream body) throws IOException;
+    }
+
+    private URI buildUri(String resourceId, Map<String, String> query) {
         StringBuilder url = new StringBuilder();
         url.append(baseUrl).append("/").append(resourceId)
            .append("?api-key=").append(encode(apiKey))
@@ -52,29 +273,15 @@ public class DataGovClient {
         }
         String finalUrl = url.toString();
         logger.info("DataGov GET: {}", finalUrl.replace(apiKey, "***"));
-        URI uri = URI.create(finalUrl);
-        
-        // Retry logic with exponential backoff
-        return webClient.get()
-                .uri(uri)
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .bodyToMono(String.class)
-                .retryWhen(Retry.backoff(maxRetries, Duration.ofSeconds(2))
-                        .filter(throwable -> {
-                            logger.warn("Retrying API call: {}", throwable.getMessage());
-                            return true;
-                        })
-                        .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> {
-                            logger.error("Max retries exhausted");
-                            return retrySignal.failure();
-                        }))
-                .onErrorResume(ex -> {
-                    logger.error("Error fetching data: {}", ex.getMessage());
-                    return Mono.just("{\"error\":\"" + ex.getMessage().replace("\"","'") + "\"}");
-                })
-                .defaultIfEmpty("{\"error\":\"Empty response from API\"}")
-                .block();
+        return URI.create(finalUrl);
+    }
+
+    private static void closeQuietly(OutputStream out) {
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // reader side already gone
+        }
     }
 
     private static String encode(String s) {
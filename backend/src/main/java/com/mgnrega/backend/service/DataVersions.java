@@ -0,0 +1,81 @@
+package com.mgnrega.backend.service;
+
+import com.mgnrega.backend.entity.PerformanceRecord;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters for performance_records, per district, per state and
+ * overall. A write bumps the district, its state and the global counter, so a
+ * cached response tagged with the version it was built from is stale exactly
+ * when its rows change. Counters start at 0 on every start: version 0 means
+ * "unchanged since this process started".
+ */
+@Component
+public class DataVersions {
+    private static final String GLOBAL = "";
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    // Bumped by changedAll(); added to every scope's counter. Both only grow, so
+    // any change makes the sum larger than every version handed out before it
+    private final AtomicLong all = new AtomicLong();
+
+    /**
+     * Version of the rows a query reads: the district's for district queries,
+     * the state's for state-wide ones and the global one when no state is given.
+     * Read it before reading the rows, so a write that lands in between makes
+     * the result stale instead of newer than its tag.
+     */
+    public long current(String state, String district) {
+        AtomicLong version = versions.get(scope(state, district));
+        return all.get() + (version == null ? 0 : version.get());
+    }
+
+    /** Bumps the districts of the given rows once the current transaction commits. */
+    public void changed(Collection<PerformanceRecord> records) {
+        Set<String> scopes = new LinkedHashSet<>();
+        for (PerformanceRecord r : records) {
+            scopes.add(scope(r.getStateName(), r.getDistrictName()));
+            scopes.add(scope(r.getStateName(), null));
+        }
+        scopes.add(GLOBAL);
+        afterCommit(() -> scopes.forEach(this::bump));
+    }
+
+    /** For bulk rewrites that are not tracked per district, e.g. cleanups. */
+    public void changedAll() {
+        afterCommit(all::incrementAndGet);
+    }
+
+    // Bumping before commit would let a reader tag still-old rows with the new version
+    private static void afterCommit(Runnable bump) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bump.run();
+            }
+        });
+    }
+
+    private void bump(String scope) {
+        versions.computeIfAbsent(scope, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static String scope(String state, String district) {
+        if (state == null || state.isBlank()) return GLOBAL;
+        String s = state.trim().toLowerCase();
+        return district == null || district.isBlank() ? s + "|" : s + "|" + district.trim().toLowerCase();
+    }
+}
@@ -0,0 +1,237 @@
+package com.mgnrega.backend.service;
+
+import com.mgnrega.backend.entity.SyncWatermark;
+import com.mgnrega.backend.repository.SyncWatermarkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Incremental sync: keeps the latest ingested period per district in
+ * sync_watermarks and, per state, only asks upstream for the months from its
+ * furthest-behind district's watermark on, so districts that reported late are
+ * caught up too. How far back that goes is capped at sync.lookbackMonths
+ * before the state's newest watermark. One request per state per month instead
+ * of a full reload.
+ */
+@Service
+public class DeltaSyncService {
+    private static final Logger logger = LoggerFactory.getLogger(DeltaSyncService.class);
+    private static final ZoneId INDIA = ZoneId.of("Asia/Kolkata");
+
+    private final PerformanceDataService dataService;
+    private final SyncWatermarkRepository watermarks;
+    private final JdbcTemplate jdbcTemplate;
+    private final NameCanonicalizer names;
+    private final PlaceDictionary places;
+    private final String resourceId;
+    private final boolean enabled;
+    private final long permitWaitMs;
+    private final int lookbackMonths;
+    private final AtomicBoolean running = new AtomicBoolean();
+    // A sync can take hours of blocking calls; it must not hold a common-pool thread
+    private final ExecutorService syncRunner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "delta-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DeltaSyncService(PerformanceDataService dataService,
+                            SyncWatermarkRepository watermarks,
+                            JdbcTemplate jdbcTemplate,
+                            NameCanonicalizer names,
+                            PlaceDictionary places,
+                            @Value("${datagov.resourceId:ee03643a-ee4c-48c2-ac30-9f2ff26ab722}") String resourceId,
+                            @Value("${sync.enabled:false}") boolean enabled,
+                            @Value("${sync.permitWaitMs:180000}") long permitWaitMs,
+                            @Value("${sync.lookbackMonths:3}") int lookbackMonths) {
+        this.dataService = dataService;
+        this.watermarks = watermarks;
+        this.jdbcTemplate = jdbcTemplate;
+        this.names = names;
+        this.places = places;
+        this.resourceId = resourceId;
+        this.enabled = enabled;
+        this.permitWaitMs = permitWaitMs;
+        this.lookbackMonths = Math.max(0, lookbackMonths);
+    }
+
+    @Scheduled(initialDelayString = "${sync.initialDelayMs:300000}", fixedDelayString = "${sync.intervalMs:21600000}")
+    public void scheduledSync() {
+        if (enabled) {
+            syncAll();
+        }
+    }
+
+    /** Runs a sync in the background; false if one is already in progress. */
+    public boolean startAsync() {
+        if (running.get()) return false;
+        syncRunner.execute(this::syncAll);
+        return true;
+    }
+
+    public List<SyncWatermark> lagReport() {
+        return watermarks.findAllByOrderByLagMonthsDesc();
+    }
+
+    public Map<String, Object> syncAll() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        if (!running.compareAndSet(false, true)) {
+            summary.put("status", "already-running");
+            return summary;
+        }
+        long started = System.currentTimeMillis();
+        int requests = 0;
+        int periodsIngested = 0;
+        try {
+            int seeded = seedWatermarks();
+            int currentPeriod = FiscalPeriod.periodKey(LocalDate.now(INDIA));
+            Map<Integer, List<SyncWatermark>> byState = watermarks.findAll().stream()
+                .filter(w -> w.getPeriodKey() != null)
+                .collect(Collectors.groupingBy(SyncWatermark::getStateId));
+            logger.info("🔄 Delta sync over {} states ({} watermarks seeded or raised from stored rows)", byState.size(), seeded);
+
+            boolean outOfPermits = false;
+            for (Map.Entry<Integer, List<SyncWatermark>> entry : byState.entrySet()) {
+                if (outOfPermits) break;
+                int stateId = entry.getKey();
+                String state = places.stateName(stateId);
+                SyncWatermark newest = entry.getValue().stream()
+                    .max((a, b) -> Integer.compare(a.getPeriodKey(), b.getPeriodKey()))
+                    .orElseThrow();
+                int oldest = entry.getValue().stream().mapToInt(SyncWatermark::getPeriodKey).min().orElseThrow();
+                // Re-read from the furthest-behind district, newest month included: late districts
+                // report after the rest. Districts further behind than the lookback show up in the lag report
+                int start = Math.max(oldest, FiscalPeriod.minusMonths(newest.getPeriodKey(), lookbackMonths));
+                for (int period = start; period <= currentPeriod; period = FiscalPeriod.next(period)) {
+                    requests++;
+                    String finYear = FiscalPeriod.finYear(period);
+                    String month = FiscalPeriod.monthLabel(period, newest.getMonth());
+                    Map<String, String> q = new HashMap<>();
+                    q.put("limit", "1000");
+                    q.put("filters[state_name]", names.upstreamState(state));
+                    q.put("filters[fin_year]", finYear);
+                    q.put("filters[month]", month);
+                    try {
+                        dataService.ingestFromUpstream(resourceId, q, UpstreamCallScheduler.Priority.REFRESH, permitWaitMs);
+                    } catch (UpstreamPermitException e) {
+                        logger.warn("No upstream permit within {} ms, stopping delta sync early", permitWaitMs);
+                        outOfPermits = true;
+                        break;
+                    } catch (IOException e) {
+                        logger.warn("Delta sync for {} {}/{} failed, moving to next state: {}", state, month, finYear, e.getMessage());
+                        break;
+                    }
+                    int advanced = advanceWatermarks(stateId, period, finYear, month);
+                    if (advanced == 0 && period > newest.getPeriodKey()) {
+                        // Upstream has not published this month yet; later ones will not exist either
+                        break;
+                    }
+                    periodsIngested++;
+                }
+            }
+            updateLag(currentPeriod);
+        } catch (Exception e) {
+            logger.error("❌ Delta sync failed: {}", e.getMessage(), e);
+            summary.put("error", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+        long elapsed = System.currentTimeMillis() - started;
+        logger.info("✅ Delta sync finished: {} upstream requests, {} state-periods ingested in {} s",
+            requests, periodsIngested, elapsed / 1000);
+        summary.put("requests", requests);
+        summary.put("periodsIngested", periodsIngested);
+        summary.put("durationMs", elapsed);
+        return summary;
+    }
+
+    /**
+     * Adds a watermark for every district present in performance_records but not
+     * yet tracked (first run, or rows written by a bulk harvest or user fetch),
+     * and raises existing ones that those writes moved past.
+     */
+    private int seedWatermarks() {
+        Map<Integer, SyncWatermark> existing = watermarks.findAll().stream()
+            .collect(Collectors.toMap(SyncWatermark::getDistrictId, w -> w));
+        int[] changed = {0};
+        // Walks idx_district_period: the first row per district is its newest
+        jdbcTemplate.query(
+            "SELECT DISTINCT ON (district_id) state_id, district_id, fin_year, month, period_key AS pk " +
+            "FROM performance_records WHERE period_key IS NOT NULL " +
+            "ORDER BY district_id, period_key DESC NULLS LAST",
+            rs -> {
+                int districtId = rs.getInt("district_id");
+                SyncWatermark w = existing.get(districtId);
+                int pk = rs.getInt("pk");
+                if (w == null || w.getPeriodKey() == null || w.getPeriodKey() < pk) {
+                    if (w == null) {
+                        w = newWatermark(rs.getInt("state_id"), districtId);
+                        existing.put(districtId, w);
+                    }
+                    w.setFinYear(rs.getString("fin_year"));
+                    w.setMonth(rs.getString("month"));
+                    w.setPeriodKey(pk);
+                    changed[0]++;
+                }
+            });
+        if (changed[0] > 0) {
+            watermarks.saveAll(existing.values());
+        }
+        return changed[0];
+    }
+
+    private int advanceWatermarks(int stateId, int period, String finYear, String month) {
+        List<Integer> districts = jdbcTemplate.queryForList(
+            "SELECT DISTINCT district_id FROM performance_records WHERE state_id = ? AND fin_year = ? AND month = ?",
+            Integer.class, stateId, finYear, month);
+        if (districts.isEmpty()) return 0;
+        Map<Integer, SyncWatermark> current = watermarks.findByStateId(stateId).stream()
+            .collect(Collectors.toMap(SyncWatermark::getDistrictId, w -> w));
+        LocalDateTime now = LocalDateTime.now();
+        for (Integer districtId : districts) {
+            SyncWatermark w = current.computeIfAbsent(districtId, id -> newWatermark(stateId, id));
+            if (w.getPeriodKey() == null || w.getPeriodKey() < period) {
+                w.setPeriodKey(period);
+                w.setFinYear(finYear);
+                w.setMonth(month);
+            }
+            w.setLastSyncedAt(now);
+        }
+        watermarks.saveAll(current.values());
+        return districts.size();
+    }
+
+    private void updateLag(int currentPeriod) {
+        List<SyncWatermark> all = watermarks.findAll();
+        for (SyncWatermark w : all) {
+            if (w.getPeriodKey() != null) {
+                w.setLagMonths(FiscalPeriod.monthsBetween(w.getPeriodKey(), currentPeriod));
+            }
+        }
+        watermarks.saveAll(all);
+    }
+
+    private static SyncWatermark newWatermark(int stateId, int districtId) {
+        SyncWatermark w = new SyncWatermark();
+        w.setStateId(stateId);
+        w.setDistrictId(districtId);
+        return w;
+    }
+}
@@ -0,0 +1,436 @@
+package com.mgnrega.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Disk tier for cached responses: append-only, memory-mapped segment files
+ * plus an in-memory index of key to record location.
+ *
+ * <p>Every start writes to a fresh segment; older ones are read-only. Their
+ * index is rebuilt in the background from record headers only, so startup does
+ * not read the response bodies; those are read (and CRC-checked) on first use.
+ * A newer record for a key supersedes older ones, and a tombstone removes it.
+ * {@link #compact} drops expired records, rewrites mostly-dead segments and
+ * deletes the oldest segments when the store is over its size budget.
+ */
+public class DiskResponseStore implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(DiskResponseStore.class);
+    private static final int MAGIC = 0x4D475243;
+    // magic, crc, keyLen, etagLen, bodyLen (-1 = tombstone), gzipLen (-1 = none), expiresAtMs
+    private static final int HEADER_BYTES = 4 * 6 + 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    // A sealed segment with less than this share of live bytes is rewritten
+    private static final double MIN_LIVE_RATIO = 0.5;
+
+    /** A stored response and the time its TTL ends. */
+    public static final class Entry {
+        private final CachedResponse response;
+        private final long expiresAtMs;
+
+        Entry(CachedResponse response, long expiresAtMs) {
+            this.response = response;
+            this.expiresAtMs = expiresAtMs;
+        }
+
+        public CachedResponse response() {
+            return response;
+        }
+
+        public long expiresAtMs() {
+            return expiresAtMs;
+        }
+    }
+
+    private static final class Segment {
+        final long id;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final AtomicLong liveBytes = new AtomicLong();
+        volatile int used;
+
+        Segment(long id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    private static final class Location {
+        final Segment segment;
+        final int offset;
+        final int length;
+        final long expiresAtMs;
+
+        Location(Segment segment, int offset, int length, long expiresAtMs) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.expiresAtMs = expiresAtMs;
+        }
+
+        boolean newerThan(Location other) {
+            return segment.id != other.segment.id ? segment.id > other.segment.id : offset > other.offset;
+        }
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long maxBytes;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    // Oldest first; the last one is the active segment
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder corruptRecords = new LongAdder();
+    private final List<Segment> startupSegments = new ArrayList<>();
+    private final Set<String> removedDuringScan = ConcurrentHashMap.newKeySet();
+    private volatile boolean indexReady;
+    private Segment active;
+
+    public DiskResponseStore(Path directory, int segmentBytes, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        long nextId = 1;
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> existing = files
+                .filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                .sorted(Comparator.comparing(p -> p.getFileName().toString()))
+                .toList();
+            for (Path path : existing) {
+                long id = segmentId(path);
+                if (id < 0) continue;
+                FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                Segment segment = new Segment(id, path, channel, buffer);
+                segments.add(segment);
+                startupSegments.add(segment);
+                nextId = Math.max(nextId, id + 1);
+            }
+        }
+        this.active = openSegment(nextId);
+        segments.add(active);
+    }
+
+    /** Builds the index from the segments found at startup; callers run this off the request path. */
+    public void loadIndex() {
+        long started = System.currentTimeMillis();
+        int records = 0;
+        for (Segment segment : startupSegments) {
+            records += scan(segment);
+        }
+        indexReady = true;
+        removedDuringScan.clear();
+        logger.info("✅ Disk cache index ready: {} keys from {} records in {} ms",
+            index.size(), records, System.currentTimeMillis() - started);
+    }
+
+    public boolean isIndexReady() {
+        return indexReady;
+    }
+
+    public Entry get(String key) {
+        Location location = index.get(key);
+        if (location == null) return null;
+        CachedResponse response = read(location);
+        if (response == null) {
+            index.remove(key, location);
+            return null;
+        }
+        diskHits.increment();
+        return new Entry(response, location.expiresAtMs);
+    }
+
+    public synchronized void put(String key, CachedResponse response, long expiresAtMs) {
+        byte[] record = encode(key, response, expiresAtMs);
+        Location location = append(record, expiresAtMs);
+        if (location == null) return;
+        location.segment.liveBytes.addAndGet(location.length);
+        Location previous = index.put(key, location);
+        if (previous != null) previous.segment.liveBytes.addAndGet(-previous.length);
+    }
+
+    public synchronized void remove(String key) {
+        if (!indexReady) removedDuringScan.add(key);
+        Location previous = index.remove(key);
+        if (previous != null) previous.segment.liveBytes.addAndGet(-previous.length);
+        // Tombstone, so the key stays gone after a restart
+        if (previous != null || !indexReady) append(encode(key, null, 0), 0);
+    }
+
+    /**
+     * Drops records whose TTL plus {@code graceMs} has passed, rewrites sealed
+     * segments that are mostly dead and deletes the oldest segments while the
+     * store is larger than its budget.
+     */
+    public synchronized void compact(long graceMs) {
+        if (!indexReady) return;
+        long now = System.currentTimeMillis();
+        index.entrySet().removeIf(e -> {
+            boolean expired = now > e.getValue().expiresAtMs + graceMs;
+            if (expired) e.getValue().segment.liveBytes.addAndGet(-e.getValue().length);
+            return expired;
+        });
+
+        for (Segment segment : new ArrayList<>(segments)) {
+            if (segment == active || totalBytes() <= maxBytes) break;
+            logger.info("Disk cache over budget, dropping segment {}", segment.path.getFileName());
+            index.values().removeIf(location -> location.segment == segment);
+            delete(segment);
+        }
+
+        for (Segment segment : new ArrayList<>(segments)) {
+            if (segment == active) continue;
+            long live = segment.liveBytes.get();
+            if (live == 0 || live < segment.used * MIN_LIVE_RATIO) {
+                relocateLive(segment);
+                delete(segment);
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("indexReady", indexReady);
+        stats.put("keys", index.size());
+        stats.put("segments", segments.size());
+        stats.put("diskBytes", totalBytes());
+        stats.put("liveBytes", segments.stream().mapToLong(s -> s.liveBytes.get()).sum());
+        stats.put("hits", diskHits.sum());
+        stats.put("corruptRecords", corruptRecords.sum());
+        return stats;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        active.buffer.force();
+        for (Segment segment : segments) {
+            segment.channel.close();
+        }
+    }
+
+    private int scan(Segment segment) {
+        ByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        int records = 0;
+        while (offset + HEADER_BYTES <= buffer.limit() && buffer.getInt(offset) == MAGIC) {
+            int keyLen = buffer.getInt(offset + 8);
+            int etagLen = buffer.getInt(offset + 12);
+            int bodyLen = buffer.getInt(offset + 16);
+            long expiresAtMs = buffer.getLong(offset + 24);
+            int length = recordLength(buffer, offset);
+            if (keyLen < 0 || etagLen < 0 || length < HEADER_BYTES || offset + length > buffer.limit()) {
+                // Torn write at the end of a segment from an unclean shutdown
+                break;
+            }
+            byte[] keyBytes = new byte[keyLen];
+            buffer.get(offset + HEADER_BYTES, keyBytes);
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            Location location = new Location(segment, offset, length, expiresAtMs);
+            if (removedDuringScan.contains(key)) {
+                // Removed since startup; this record is older than that removal
+            } else if (bodyLen < 0) {
+                index.computeIfPresent(key, (k, current) -> {
+                    if (location.newerThan(current)) {
+                        current.segment.liveBytes.addAndGet(-current.length);
+                        return null;
+                    }
+                    return current;
+                });
+            } else {
+                index.compute(key, (k, current) -> {
+                    if (current != null && !location.newerThan(current)) return current;
+                    if (current != null) current.segment.liveBytes.addAndGet(-current.length);
+                    segment.liveBytes.addAndGet(location.length);
+                    return location;
+                });
+            }
+            offset += length;
+            records++;
+        }
+        segment.used = offset;
+        return records;
+    }
+
+    private CachedResponse read(Location location) {
+        ByteBuffer buffer = location.segment.buffer;
+        int offset = location.offset;
+        if (buffer.getInt(offset) != MAGIC) {
+            corruptRecords.increment();
+            return null;
+        }
+        byte[] record = new byte[location.length - 8];
+        buffer.get(offset + 8, record);
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+            corruptRecords.increment();
+            return null;
+        }
+        ByteBuffer fields = ByteBuffer.wrap(record);
+        int keyLen = fields.getInt();
+        int etagLen = fields.getInt();
+        int bodyLen = fields.getInt();
+        int gzipLen = fields.getInt();
+        fields.getLong();
+        fields.position(fields.position() + keyLen);
+        byte[] etag = new byte[etagLen];
+        fields.get(etag);
+        byte[] body = new byte[bodyLen];
+        fields.get(body);
+        byte[] gzip = null;
+        if (gzipLen >= 0) {
+            gzip = new byte[gzipLen];
+            fields.get(gzip);
+        }
+        return CachedResponse.restore(body, gzip, new String(etag, StandardCharsets.UTF_8));
+    }
+
+    private static byte[] encode(String key, CachedResponse response, long expiresAtMs) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] etag = response != null ? response.etag().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        byte[] body = response != null ? response.body() : null;
+        byte[] gzip = response != null ? response.gzipBody() : null;
+        int length = HEADER_BYTES + keyBytes.length + etag.length
+            + (body != null ? body.length : 0) + (gzip != null ? gzip.length : 0);
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(MAGIC);
+        record.putInt(0);
+        record.putInt(keyBytes.length);
+        record.putInt(etag.length);
+        record.putInt(body != null ? body.length : -1);
+        record.putInt(gzip != null ? gzip.length : -1);
+        record.putLong(expiresAtMs);
+        record.put(keyBytes);
+        record.put(etag);
+        if (body != null) record.put(body);
+        if (gzip != null) record.put(gzip);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 8, length - 8);
+        record.putInt(4, (int) crc.getValue());
+        return record.array();
+    }
+
+    private Location append(byte[] record, long expiresAtMs) {
+        if (record.length > segmentBytes) {
+            logger.warn("Response of {} bytes is larger than a disk cache segment, not persisting it", record.length);
+            return null;
+        }
+        try {
+            if (active.used + record.length > segmentBytes) {
+                active.buffer.force();
+                active = openSegment(active.id + 1);
+                segments.add(active);
+            }
+        } catch (IOException e) {
+            logger.error("❌ Could not open a new disk cache segment: {}", e.getMessage());
+            return null;
+        }
+        int offset = active.used;
+        active.buffer.put(offset, record);
+        active.used = offset + record.length;
+        return new Location(active, offset, record.length, expiresAtMs);
+    }
+
+    /**
+     * Moves the records of {@code segment} that are still current to the active
+     * segment. Tombstones move too unless nothing older than this segment is
+     * left for them to shadow.
+     */
+    private void relocateLive(Segment segment) {
+        boolean oldest = segments.get(0) == segment;
+        ByteBuffer buffer = segment.buffer;
+        int moved = 0;
+        int offset = 0;
+        while (offset < segment.used) {
+            int keyLen = buffer.getInt(offset + 8);
+            int bodyLen = buffer.getInt(offset + 16);
+            int length = recordLength(buffer, offset);
+            byte[] keyBytes = new byte[keyLen];
+            buffer.get(offset + HEADER_BYTES, keyBytes);
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            Location current = index.get(key);
+            boolean live = current != null && current.segment == segment && current.offset == offset;
+            boolean keepTombstone = bodyLen < 0 && !oldest && current == null;
+            if (live || keepTombstone) {
+                byte[] record = new byte[length];
+                buffer.get(offset, record);
+                Location relocated = append(record, buffer.getLong(offset + 24));
+                if (relocated != null && live && index.replace(key, current, relocated)) {
+                    relocated.segment.liveBytes.addAndGet(relocated.length);
+                    moved++;
+                }
+            }
+            offset += length;
+        }
+        logger.info("Compacted disk cache segment {}: {} live records moved", segment.path.getFileName(), moved);
+    }
+
+    private static int recordLength(ByteBuffer buffer, int offset) {
+        return HEADER_BYTES + buffer.getInt(offset + 8) + buffer.getInt(offset + 12)
+            + Math.max(0, buffer.getInt(offset + 16)) + Math.max(0, buffer.getInt(offset + 20));
+    }
+
+    private void delete(Segment segment) {
+        segments.remove(segment);
+        try {
+            // The mapping stays readable for in-flight reads until it is garbage collected
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            logger.warn("Could not delete disk cache segment {}: {}", segment.path, e.getMessage());
+        }
+    }
+
+    private long totalBytes() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.used;
+        }
+        return total;
+    }
+
+    private Segment openSegment(long id) throws IOException {
+        Path path = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        return new Segment(id, path, channel, buffer);
+    }
+
+    private static long segmentId(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.endsWith(SEGMENT_SUFFIX)) return -1;
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
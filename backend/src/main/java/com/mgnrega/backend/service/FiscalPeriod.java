@@ -0,0 +1,105 @@
+package com.mgnrega.backend.service;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Converts the upstream (fin_year, month) strings, e.g. ("2024-2025", "Jan"),
+ * into a yyyymm calendar key. Indian financial years run April to March, so
+ * January 2025 belongs to "2024-2025"; calendar yyyymm therefore sorts in
+ * fiscal order.
+ */
+public final class FiscalPeriod {
+    private static final String[] SHORT_NAMES = {
+        "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+    private static final String[] FULL_NAMES = {
+        "January", "February", "March", "April", "May", "June",
+        "July", "August", "September", "October", "November", "December"
+    };
+
+    /** Same mapping as {@link #periodKey(String, String)}, for use inside SQL over performance_records. */
+    public static final String SQL_PERIOD_KEY =
+        "(CASE WHEN fin_year ~ '^[0-9]{4}' THEN " +
+        "(CAST(substring(fin_year from 1 for 4) AS integer) + " +
+        "CASE WHEN lower(substring(trim(month) from 1 for 3)) IN ('jan', 'feb', 'mar') THEN 1 ELSE 0 END) * 100 + " +
+        "CASE lower(substring(trim(month) from 1 for 3)) " +
+        "WHEN 'jan' THEN 1 WHEN 'feb' THEN 2 WHEN 'mar' THEN 3 WHEN 'apr' THEN 4 WHEN 'may' THEN 5 " +
+        "WHEN 'jun' THEN 6 WHEN 'jul' THEN 7 WHEN 'aug' THEN 8 WHEN 'sep' THEN 9 WHEN 'oct' THEN 10 " +
+        "WHEN 'nov' THEN 11 WHEN 'dec' THEN 12 END END)";
+
+    private FiscalPeriod() {
+    }
+
+    /** yyyymm for the given upstream strings, or null when either cannot be parsed. */
+    public static Integer periodKey(String finYear, String month) {
+        int startYear = fiscalStartYear(finYear);
+        int m = monthNumber(month);
+        if (startYear < 0 || m < 0) return null;
+        return (m <= 3 ? startYear + 1 : startYear) * 100 + m;
+    }
+
+    public static int periodKey(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    /** 1-12, or -1 for anything that is not a month name or abbreviation. */
+    public static int monthNumber(String month) {
+        if (month == null) return -1;
+        String m = month.trim();
+        if (m.length() < 3) return -1;
+        String prefix = m.substring(0, 3).toLowerCase(Locale.ROOT);
+        for (int i = 0; i < SHORT_NAMES.length; i++) {
+            if (SHORT_NAMES[i].toLowerCase(Locale.ROOT).equals(prefix)) return i + 1;
+        }
+        return -1;
+    }
+
+    public static int fiscalStartYear(String finYear) {
+        if (finYear == null) return -1;
+        String y = finYear.trim();
+        if (y.length() < 4) return -1;
+        int year = 0;
+        for (int i = 0; i < 4; i++) {
+            char c = y.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            year = year * 10 + (c - '0');
+        }
+        return year;
+    }
+
+    public static int next(int periodKey) {
+        int month = periodKey % 100;
+        return month == 12 ? (periodKey / 100 + 1) * 100 + 1 : periodKey + 1;
+    }
+
+    public static int minusMonths(int periodKey, int months) {
+        int index = (periodKey / 100) * 12 + periodKey % 100 - 1 - months;
+        return (index / 12) * 100 + index % 12 + 1;
+    }
+
+    public static int monthsBetween(int fromKey, int toKey) {
+        return (toKey / 100 - fromKey / 100) * 12 + (toKey % 100 - fromKey % 100);
+    }
+
+    /** "2024-2025" style label for the financial year containing the period. */
+    public static String finYear(int periodKey) {
+        int month = periodKey % 100;
+        int start = month <= 3 ? periodKey / 100 - 1 : periodKey / 100;
+        return start + "-" + (start + 1);
+    }
+
+    /**
+     * Month label in the same style as {@code sample} (abbreviated or full,
+     * upper-case or title-case), so upstream filters match stored values.
+     */
+    public static String monthLabel(int periodKey, String sample) {
+        int index = periodKey % 100 - 1;
+        boolean full = sample != null && sample.trim().length() > 3;
+        String label = full ? FULL_NAMES[index] : SHORT_NAMES[index];
+        if (sample != null && !sample.isBlank() && sample.trim().equals(sample.trim().toUpperCase(Locale.ROOT))) {
+            return label.toUpperCase(Locale.ROOT);
+        }
+        return label;
+    }
+}
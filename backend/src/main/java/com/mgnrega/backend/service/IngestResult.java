@@ -0,0 +1,26 @@
+package com.mgnrega.backend.service;
+
+/**
+ * Outcome of one streamed page: how many records upstream sent, how many of
+ * them were written (records without a state, district or period are not) and
+ * the upstream "total" header (-1 when the response did not carry one).
+ */
+public class IngestResult {
+    private final int saved;
+    private final int fetched;
+    private final long total;
+
+    public IngestResult(int saved, int fetched, long total) {
+        this.saved = saved;
+        this.fetched = fetched;
+        this.total = total;
+    }
+
+    public int getSaved() { return saved; }
+
+    public int getFetched() { return fetched; }
+
+    public long getTotal() { return total; }
+
+    @Override public String toString() { return "IngestResult{" + "saved=" + saved + ", fetched=" + fetched + ", total=" + total + '}'; }
+}
@@ -0,0 +1,118 @@
+package com.mgnrega.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * One spelling per state and district: "Uttar Pradesh", "UTTAR PRADESH" and
+ * " uttar  pradesh " all become "UTTAR PRADESH", and renamed places resolve
+ * through an alias table. Ingestion stores canonical names, so cache keys and
+ * database lookups are exact matches. Upstream filters use the spelling
+ * data.gov.in itself was last seen using for that name.
+ */
+@Component
+public class NameCanonicalizer {
+    private static final Logger logger = LoggerFactory.getLogger(NameCanonicalizer.class);
+    private static final Pattern DROPPED = Pattern.compile("[.,'’`\"()]");
+    private static final Pattern SEPARATORS = Pattern.compile("[\\s\\-_/]+");
+    // Old and short names seen in requests; districts are keyed "STATE/DISTRICT" as the same name recurs across states
+    private static final String DEFAULT_ALIASES =
+        "ORISSA=ODISHA,PONDICHERRY=PUDUCHERRY,UTTARANCHAL=UTTARAKHAND,UP=UTTAR PRADESH,MP=MADHYA PRADESH," +
+        "J AND K=JAMMU AND KASHMIR,JK=JAMMU AND KASHMIR,NCT OF DELHI=DELHI," +
+        "UTTAR PRADESH/ALLAHABAD=PRAYAGRAJ,UTTAR PRADESH/FAIZABAD=AYODHYA,HARYANA/GURGAON=GURUGRAM," +
+        "HARYANA/MEWAT=NUH";
+
+    private final Map<String, String> stateAliases = new HashMap<>();
+    private final Map<String, String> districtAliases = new HashMap<>();
+    private final Map<String, String> upstreamStates = new ConcurrentHashMap<>();
+    private final Map<String, String> upstreamDistricts = new ConcurrentHashMap<>();
+
+    public NameCanonicalizer(@Value("${app.nameAliases:}") String extraAliases) {
+        loadAliases(DEFAULT_ALIASES);
+        loadAliases(extraAliases);
+    }
+
+    public String state(String name) {
+        String folded = fold(name);
+        if (folded == null) return null;
+        return stateAliases.getOrDefault(folded, folded);
+    }
+
+    /** {@code state} must already be canonical. */
+    public String district(String state, String name) {
+        String folded = fold(name);
+        if (folded == null) return null;
+        return districtAliases.getOrDefault(state + "/" + folded, folded);
+    }
+
+    /** Remembers how upstream spells a name, for {@link #upstreamState} and {@link #upstreamDistrict}. */
+    public void observe(String rawState, String rawDistrict) {
+        String state = state(rawState);
+        if (state == null) return;
+        remember(upstreamStates, state, state, rawState.trim());
+        String district = district(state, rawDistrict);
+        if (district != null) {
+            remember(upstreamDistricts, state + "/" + district, district, rawDistrict.trim());
+        }
+    }
+
+    /** Spelling to filter data.gov.in on; the canonical name until upstream has been seen using another. */
+    public String upstreamState(String state) {
+        if (state == null || state.isBlank()) return state;
+        String canonical = state(state);
+        return upstreamStates.getOrDefault(canonical, canonical);
+    }
+
+    public String upstreamDistrict(String state, String district) {
+        if (district == null || district.isBlank()) return district;
+        String canonicalState = state(state);
+        String canonical = district(canonicalState, district);
+        return upstreamDistricts.getOrDefault(canonicalState + "/" + canonical, canonical);
+    }
+
+    // Latest spelling wins; usually it equals the canonical name and nothing is written
+    private static void remember(Map<String, String> spellings, String key, String canonical, String raw) {
+        if (!raw.equals(spellings.getOrDefault(key, canonical))) {
+            spellings.put(key, raw);
+        }
+    }
+
+    private static String fold(String name) {
+        if (name == null) return null;
+        String s = Normalizer.normalize(name, Normalizer.Form.NFKC);
+        s = s.replace("&", " AND ");
+        s = DROPPED.matcher(s).replaceAll("");
+        s = SEPARATORS.matcher(s).replaceAll(" ").trim();
+        return s.isEmpty() ? null : s.toUpperCase(Locale.ROOT);
+    }
+
+    private void loadAliases(String spec) {
+        if (spec == null || spec.isBlank()) return;
+        for (String pair : spec.split(",")) {
+            String[] parts = pair.split("=", 2);
+            if (parts.length != 2) {
+                logger.warn("⚠️ Ignoring malformed name alias: '{}'", pair);
+                continue;
+            }
+            String from = parts[0].trim();
+            String to = fold(parts[1]);
+            int slash = from.indexOf('/');
+            if (slash < 0) {
+                stateAliases.put(fold(from), to);
+            } else {
+                // The state part may itself be an alias
+                String state = fold(from.substring(0, slash));
+                districtAliases.put(stateAliases.getOrDefault(state, state) + "/" + fold(from.substring(slash + 1)), to);
+            }
+        }
+    }
+}
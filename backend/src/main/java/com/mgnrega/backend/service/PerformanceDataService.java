@@ -1,418 +1,246 @@
 package com.mgnrega.backend.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mgnrega.backend.entity.PerformanceRecord;
-import com.mgnrega.backend.repository.PerformanceRecordRepository;
+import com.mgnrega.backend.repository.PerformanceRecordCopyLoader;
+import com.mgnrega.backend.repository.PerformanceRecordJdbcRepository;
+import com.mgnrega.backend.repository.PerformanceRecordReadRepository;
+import com.mgnrega.backend.repository.StatePeriodRollupRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.UncategorizedSQLException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class PerformanceDataService {
     private static final Logger logger = LoggerFactory.getLogger(PerformanceDataService.class);
-    private final PerformanceRecordRepository repository;
+    private final PerformanceRecordJdbcRepository jdbcRepository;
+    private final PerformanceRecordReadRepository reads;
+    private final PerformanceRecordCopyLoader copyLoader;
+    private final StatePeriodRollupRepository rollups;
+    private final DataGovClient client;
+    private final DataVersions dataVersions;
+    private final NameCanonicalizer names;
+    private final PlaceDictionary places;
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate batchTransaction;
+    private final int batchSize;
+    private final int copyThreshold;
 
-    public PerformanceDataService(PerformanceRecordRepository repository) {
-        this.repository = repository;
+    public PerformanceDataService(PerformanceRecordJdbcRepository jdbcRepository,
+                                  PerformanceRecordReadRepository reads,
+                                  PerformanceRecordCopyLoader copyLoader,
+                                  StatePeriodRollupRepository rollups,
+                                  DataGovClient client,
+                                  DataVersions dataVersions,
+                                  NameCanonicalizer names,
+                                  PlaceDictionary places,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${ingest.batchSize:200}") int batchSize,
+                                  @Value("${ingest.copyThreshold:1000}") int copyThreshold) {
+        this.jdbcRepository = jdbcRepository;
+        this.reads = reads;
+        this.copyLoader = copyLoader;
+        this.rollups = rollups;
+        this.client = client;
+        this.dataVersions = dataVersions;
+        this.names = names;
+        this.places = places;
         this.objectMapper = new ObjectMapper();
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.copyThreshold = copyThreshold;
     }
 
-    @Transactional
-    public void savePerformanceData(String jsonResponse) {
+    /**
+     * Fetches a page from data.gov.in and saves it while it is still downloading.
+     * Only one batch of entities is held at a time, so memory stays flat
+     * regardless of the page size. Pages big enough for COPY are flushed in
+     * COPY-sized batches; smaller ones in upsert-sized batches. Each batch
+     * commits on its own, so no connection is held while the next one is still
+     * downloading; a page that fails midway keeps its earlier batches, which
+     * the upserts make harmless to fetch again. Throws
+     * {@link UpstreamPermitException} if no permit at {@code priority} is
+     * granted within {@code permitWaitMs}.
+     */
+    public IngestResult ingestFromUpstream(String resourceId, Map<String, String> query,
+                                           UpstreamCallScheduler.Priority priority, long permitWaitMs) throws IOException {
+        int flushSize = pageSize(query) >= copyThreshold ? copyThreshold : batchSize;
+        return client.streamResourceJson(resourceId, query, priority, permitWaitMs, in -> ingestStream(in, flushSize));
+    }
+
+    /** Saves a response body already fetched in full, parsed with the same streaming reader. */
+    public IngestResult savePerformanceData(String jsonResponse) throws IOException {
+        return ingestStream(new ByteArrayInputStream(jsonResponse.getBytes(StandardCharsets.UTF_8)), batchSize);
+    }
+
+    private static int pageSize(Map<String, String> query) {
         try {
-            logger.info("Attempting to save performance data. Response length: {} chars", jsonResponse.length());
-            
-            JsonNode root = objectMapper.readTree(jsonResponse);
-            
-            // Log what keys are available in the root
-            List<String> keys = new ArrayList<>();
-            root.fieldNames().forEachRemaining(keys::add);
-            logger.info("Root JSON keys found: {}", keys);
-            
-            // Try different possible keys for records
-            JsonNode records = root.get("records");
-            
-            // Check what type records is
-            if (records != null && !records.isNull()) {
-                logger.info("Records node found. Type: {}, IsArray: {}, IsMissingNode: {}", 
-                    records.getNodeType(), records.isArray(), records.isMissingNode());
-                
-                // If records is not an array, it might be an object or null
-                if (!records.isArray()) {
-                    if (records.isObject()) {
-                        logger.warn("Records is an object, not an array. Keys in records object: {}", records.fieldNames());
-                    } else if (records.isTextual()) {
-                        logger.warn("Records is text: {}", records.asText());
-                    } else {
-                        logger.warn("Records node exists but is not an array. Node type: {}", records.getNodeType());
-                    }
-                }
-            } else {
-                logger.warn("Records node is null or missing");
-                records = root.path("records"); // Use path to get MissingNode
-            }
-            
-            // If records is missing or empty, try "data" 
-            if (records == null || records.isNull() || records.isMissingNode() || !records.isArray() || records.isEmpty()) {
-                logger.debug("Records array not found or empty, trying alternative keys...");
-                JsonNode data = root.get("data");
-                if (data != null && data.isArray() && !data.isEmpty()) {
-                    records = data;
-                    logger.info("Found data in 'data' array instead");
-                }
+            return Integer.parseInt(query.getOrDefault("limit", "0").trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private IngestResult ingestStream(InputStream jsonStream, int flushSize) throws IOException {
+        int saved = 0;
+        int fetched = 0;
+        long total = -1;
+        try (JsonParser parser = objectMapper.getFactory().createParser(jsonStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Streamed response is not a JSON object");
             }
-            
-            // Final check if we found a valid array
-            // Note: Empty array (size 0) is valid - it means API returned no matching records
-            if (records == null || records.isNull() || records.isMissingNode() || !records.isArray()) {
-                logger.error("No valid records array found in response. Available keys: {}", keys);
-                logger.error("Records node status - IsNull: {}, IsMissing: {}, IsArray: {}, Size: {}", 
-                    records == null || records.isNull(), 
-                    records != null && records.isMissingNode(),
-                    records != null && records.isArray(),
-                    records != null && records.isArray() ? records.size() : 0);
-                
-                // Check the actual records node more carefully
-                JsonNode recordsNode = root.get("records");
-                if (recordsNode != null) {
-                    logger.error("Records node details: nodeType={}, isArray={}, isNull={}, isMissing={}, isEmpty={}", 
-                        recordsNode.getNodeType(), recordsNode.isArray(), recordsNode.isNull(), 
-                        recordsNode.isMissingNode(), recordsNode.isEmpty());
-                    
-                    // Try to see what records actually contains
-                    if (recordsNode.isTextual()) {
-                        logger.error("Records is text: {}", recordsNode.asText());
-                    } else if (recordsNode.isObject()) {
-                        List<String> recordKeys = new ArrayList<>();
-                        recordsNode.fieldNames().forEachRemaining(recordKeys::add);
-                        logger.error("Records is an object with keys: {}", recordKeys);
-                    } else if (recordsNode.isArray()) {
-                        logger.error("Records IS an array! Size: {}", recordsNode.size());
+            // Top-level fields arrive in any order; only records (or data, if records
+            // was empty) is materialized, one element at a time
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_ARRAY
+                        && ("records".equals(field) || ("data".equals(field) && fetched == 0))) {
+                    IngestResult page = ingestArray(parser, flushSize);
+                    saved += page.getSaved();
+                    fetched += page.getFetched();
+                } else if ("total".equals(field) && value.isScalarValue()) {
+                    total = parser.getValueAsLong(-1);
+                } else {
+                    if ("error".equals(field)) {
+                        throw new IOException("Upstream error: " + parser.getValueAsString());
                     }
+                    parser.skipChildren();
                 }
-                
-                // Log more of the response to see if records appears later
-                try {
-                    // Check raw response for "records" keyword to see context
-                    int recordsIndex = jsonResponse.indexOf("\"records\"");
-                    if (recordsIndex > 0) {
-                        int start = Math.max(0, recordsIndex - 100);
-                        int end = Math.min(jsonResponse.length(), recordsIndex + 500);
-                        logger.error("Context around 'records' in raw JSON (chars {} to {}): {}", 
-                            start, end, jsonResponse.substring(start, end));
-                    }
-                    
-                    // Also check end of response where data might be
-                    if (jsonResponse.length() > 3000) {
-                        logger.error("End of JSON response (last 1500 chars): {}", 
-                            jsonResponse.substring(jsonResponse.length() - 1500));
-                    }
-                } catch (Exception e) {
-                    logger.error("Could not inspect JSON structure: {}", e.getMessage());
-                }
-                return;
             }
+        }
+        logger.info("✅ Streamed {} of {} performance records into database (upstream total: {})", saved, fetched, total);
+        return new IngestResult(saved, fetched, total);
+    }
 
-            logger.info("Found {} records in API response", records.size());
-            
-            // If records array is empty, log and return (no data to save)
-            if (records.isEmpty()) {
-                logger.warn("Records array is empty - no data to save. This means the API returned 0 matching records.");
-                return;
+    private IngestResult ingestArray(JsonParser parser, int flushSize) throws IOException {
+        List<PerformanceRecord> batch = new ArrayList<>(flushSize);
+        RecordMappingPlan plan = null;
+        int saved = 0;
+        int fetched = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
             }
-            
-            List<PerformanceRecord> recordsToSave = new ArrayList<>();
-            
-            for (JsonNode record : records) {
-                try {
-                    PerformanceRecord pr = new PerformanceRecord();
-                    
-                    // Log first record's keys for debugging field names
-                    if (recordsToSave.isEmpty()) {
-                        List<String> recordKeys = new ArrayList<>();
-                        record.fieldNames().forEachRemaining(recordKeys::add);
-                        logger.info("📋 Sample record keys from API: {}", recordKeys);
-                        // Log values for debugging
-                        for (String key : recordKeys) {
-                            JsonNode val = record.get(key);
-                            if (val != null && !val.isNull()) {
-                                logger.info("  {} = {}", key, val.asText());
-                            }
-                        }
-                    }
-                    
-                    pr.setFinYear(getStringValue(record, "fin_year"));
-                    pr.setMonth(getStringValue(record, "month"));
-                    pr.setStateName(getStringValue(record, "state_name"));
-                    pr.setDistrictName(getStringValue(record, "district_name"));
-                    // Try multiple field name variations for households
-                    // API actually uses: "Total_Households_Worked" (from API response)
-                    Long households = parseLong(record, "Total_Households_Worked");
-                    if (households == null) households = parseLong(record, "No_of_Households_Worked");
-                    if (households == null) households = parseLong(record, "households_worked");
-                    if (households == null) households = parseLong(record, "Households_Worked");
-                    if (households == null) households = parseLong(record, "Number_of_Households_Worked");
-                    pr.setHouseholdsWorked(households);
-                    
-                    // Try multiple field name variations for persondays
-                    // API actually uses: "Persondays_of_Central_Liability_so_far" (from API response) - try this FIRST
-                    Long persondays = parseLong(record, "Persondays_of_Central_Liability_so_far");
-                    if (persondays == null) persondays = parseLong(record, "Total_Persondays_Generated");
-                    if (persondays == null) persondays = parseLong(record, "Persondays_Generated");
-                    if (persondays == null) persondays = parseLong(record, "persondays_generated");
-                    if (persondays == null) persondays = parseLong(record, "Total_Person_Days");
-                    if (persondays == null) {
-                        // Try calculating from Women_Persondays + SC_persondays + ST_persondays if available
-                        Long womenPersondays = parseLong(record, "Women_Persondays");
-                        Long scPersondays = parseLong(record, "SC_persondays");
-                        Long stPersondays = parseLong(record, "ST_persondays");
-                        if (womenPersondays != null || scPersondays != null || stPersondays != null) {
-                            long sum = (womenPersondays != null ? womenPersondays : 0) +
-                                      (scPersondays != null ? scPersondays : 0) +
-                                      (stPersondays != null ? stPersondays : 0);
-                            // This is approximate, but better than null
-                            if (sum > 0) {
-                                persondays = sum;
-                                if (recordsToSave.isEmpty()) {
-                                    logger.info("  Calculated approximate persondays from components: {}", persondays);
-                                }
-                            }
-                        }
-                    }
-                    pr.setPersondaysGenerated(persondays);
-                    
-                    // Try multiple field name variations for women persondays percent
-                    // API might have: "Women_Persondays_Percent" or calculate from "Women_Persondays"
-                    Double womenPercent = parseDouble(record, "Women_Persondays_Percent");
-                    if (womenPercent == null) womenPercent = parseDouble(record, "women_persondays_percent");
-                    if (womenPercent == null) womenPercent = parseDouble(record, "percent_of_Women_Persondays");
-                    // Don't calculate here yet - wait until after persondays is set
-                    pr.setWomenPersondaysPercent(womenPercent);
-                    
-                    // Try multiple field name variations for ongoing works
-                    // API might use various formats, try all possible variations
-                    Integer ongoingWorks = parseInt(record, "Number_of_Ongoing_Works");
-                    if (ongoingWorks == null) ongoingWorks = parseInt(record, "No_of_Ongoing_Works");
-                    if (ongoingWorks == null) ongoingWorks = parseInt(record, "Ongoing_Works");
-                    if (ongoingWorks == null) ongoingWorks = parseInt(record, "no_of_ongoing_works");
-                    if (ongoingWorks == null) ongoingWorks = parseInt(record, "OngoingWorks");
-                    if (ongoingWorks == null) ongoingWorks = parseInt(record, "Number_of_works_ongoing");
-                    if (ongoingWorks == null) ongoingWorks = parseInt(record, "Works_Ongoing");
-                    if (ongoingWorks == null) {
-                        // Try to find any field containing "ongoing" or "works"
-                        final Integer[] ongoingWorksRef = {null};
-                        record.fieldNames().forEachRemaining(fieldName -> {
-                            if (fieldName != null && fieldName.toLowerCase().contains("ongoing") && ongoingWorksRef[0] == null) {
-                                Integer val = parseInt(record, fieldName);
-                                if (val != null) {
-                                    ongoingWorksRef[0] = val;
-                                    if (recordsToSave.isEmpty()) {
-                                        logger.info("  Found ongoing works in field: {} = {}", fieldName, val);
-                                    }
-                                }
-                            }
-                        });
-                        ongoingWorks = ongoingWorksRef[0];
-                    }
-                    pr.setNoOfOngoingWorks(ongoingWorks);
-                    
-                    // Try multiple field name variations for completed works
-                    // API might use various formats, try all possible variations
-                    Integer completedWorks = parseInt(record, "Number_of_Completed_Works");
-                    if (completedWorks == null) completedWorks = parseInt(record, "No_of_Completed_Works");
-                    if (completedWorks == null) completedWorks = parseInt(record, "Completed_Works");
-                    if (completedWorks == null) completedWorks = parseInt(record, "no_of_completed_works");
-                    if (completedWorks == null) completedWorks = parseInt(record, "CompletedWorks");
-                    if (completedWorks == null) completedWorks = parseInt(record, "Number_of_works_completed");
-                    if (completedWorks == null) completedWorks = parseInt(record, "Works_Completed");
-                    if (completedWorks == null) {
-                        // Try to find any field containing "completed" or "works"
-                        final Integer[] completedWorksRef = {null};
-                        record.fieldNames().forEachRemaining(fieldName -> {
-                            if (fieldName != null && fieldName.toLowerCase().contains("completed") && completedWorksRef[0] == null) {
-                                Integer val = parseInt(record, fieldName);
-                                if (val != null) {
-                                    completedWorksRef[0] = val;
-                                    if (recordsToSave.isEmpty()) {
-                                        logger.info("  Found completed works in field: {} = {}", fieldName, val);
-                                    }
-                                }
-                            }
-                        });
-                        completedWorks = completedWorksRef[0];
-                    }
-                    pr.setNoOfCompletedWorks(completedWorks);
-                    
-                    // Try multiple possible field names for average wage rate
-                    // Based on logs, API uses "Average_Wage_rate_per_day_per_person"
-                    Double avgWage = parseDouble(record, "Average_Wage_rate_per_day_per_person");
-                    if (avgWage == null) avgWage = parseDouble(record, "avg_wage_rate");
-                    if (avgWage == null) avgWage = parseDouble(record, "average_wage_rate");
-                    if (avgWage == null) avgWage = parseDouble(record, "Average_Wage_Rate");
-                    pr.setAvgWageRate(avgWage);
-                    
-                    // Try multiple possible field names for total wages
-                    // Based on logs, API uses "Wages" (simple field name) - try this FIRST
-                    Double totalWages = parseDouble(record, "Wages");
-                    if (totalWages == null) totalWages = parseDouble(record, "Material_and_skilled_Wages");
-                    if (totalWages == null) totalWages = parseDouble(record, "total_wages");
-                    if (totalWages == null) totalWages = parseDouble(record, "Total_Wages");
-                    if (totalWages == null) totalWages = parseDouble(record, "Material and skilled Wages");
-                    // The API might return wages in crores - convert if needed (but usually it's already in the right unit)
-                    pr.setTotalWages(totalWages);
-                    
-                    // Calculate women percent from Women_Persondays if we have it but not the percent
-                    // Now that persondays is set, we can calculate the percent
-                    Long womenPersondays = parseLong(record, "Women_Persondays");
-                    if (womenPersondays != null && pr.getWomenPersondaysPercent() == null) {
-                        // Get total persondays - use the same variable we just set above
-                        Long totalPersondays = persondays; // Use the local variable, not from entity
-                        // If still null, try the fields we checked earlier
-                        if (totalPersondays == null) {
-                            totalPersondays = parseLong(record, "Persondays_of_Central_Liability_so_far");
-                        }
-                        if (totalPersondays == null) {
-                            totalPersondays = parseLong(record, "Total_Persondays_Generated");
-                        }
-                        if (totalPersondays == null) {
-                            totalPersondays = parseLong(record, "Persondays_Generated");
-                        }
-                        
-                        if (totalPersondays != null && totalPersondays > 0) {
-                            Double percent = (womenPersondays.doubleValue() / totalPersondays.doubleValue()) * 100.0;
-                            pr.setWomenPersondaysPercent(percent);
-                            logger.info("  ✅ Calculated Women %: {}% from Women_Persondays={} / Total_Persondays={}", 
-                                String.format("%.2f", percent), womenPersondays, totalPersondays);
-                        } else {
-                            logger.warn("  ⚠️ Cannot calculate Women %: Women_Persondays={}, but Total_Persondays is null. Tried: persondays={}, Persondays_of_Central_Liability_so_far={}", 
-                                womenPersondays, persondays, parseLong(record, "Persondays_of_Central_Liability_so_far"));
-                        }
-                    } else if (womenPersondays == null && pr.getWomenPersondaysPercent() == null) {
-                        logger.warn("  ⚠️ Cannot calculate Women %: Women_Persondays is null");
-                    }
-                    
-                    if (recordsToSave.isEmpty()) {
-                        logger.info("💰 Parsed data summary:");
-                        logger.info("  Households: {}", households);
-                        logger.info("  Persondays: {} (from Persondays_of_Central_Liability_so_far={})", 
-                            persondays, parseLong(record, "Persondays_of_Central_Liability_so_far"));
-                        logger.info("  Women Persondays: {}", parseLong(record, "Women_Persondays"));
-                        logger.info("  Women %: {} (calculated: {})", 
-                            pr.getWomenPersondaysPercent(), 
-                            womenPersondays != null && pr.getPersondaysGenerated() != null && pr.getPersondaysGenerated() > 0 ?
-                                String.format("%.2f", (womenPersondays.doubleValue() / pr.getPersondaysGenerated().doubleValue()) * 100.0) : "N/A");
-                        logger.info("  Ongoing Works: {}", ongoingWorks);
-                        logger.info("  Completed Works: {}", completedWorks);
-                        logger.info("  Avg Wage: {}", avgWage);
-                        logger.info("  Total Wages: {}", totalWages);
-                        
-                        // Check for missing fields and log available field names that might match
-                        if (ongoingWorks == null || completedWorks == null) {
-                            logger.warn("⚠️ Works data missing. Ongoing: {}, Completed: {}", ongoingWorks, completedWorks);
-                            List<String> allFields = new ArrayList<>();
-                            record.fieldNames().forEachRemaining(allFields::add);
-                            // Filter fields that might be related to works
-                            List<String> worksFields = new ArrayList<>();
-                            for (String f : allFields) {
-                                if (f != null && (f.toLowerCase().contains("work") || 
-                                    f.toLowerCase().contains("ongoing") || 
-                                    f.toLowerCase().contains("completed"))) {
-                                    worksFields.add(f);
-                                }
-                            }
-                            if (!worksFields.isEmpty()) {
-                                logger.warn("  Available fields that might be works-related: {}", worksFields);
-                            }
-                        }
-                        
-                        if (households == null && persondays == null && avgWage == null && totalWages == null 
-                            && ongoingWorks == null && completedWorks == null) {
-                            logger.warn("⚠️ No data found at all. Checking all available fields...");
-                            List<String> allFields = new ArrayList<>();
-                            record.fieldNames().forEachRemaining(allFields::add);
-                            logger.warn("  All available fields: {}", allFields);
-                        }
-                    }
-                    
-                    // Only add if we have at least state and district
-                    if (pr.getStateName() != null && pr.getDistrictName() != null) {
-                        recordsToSave.add(pr);
-                        logger.debug("Parsed record: {} - {} ({}/{})", 
-                            pr.getDistrictName(), pr.getStateName(), pr.getMonth(), pr.getFinYear());
-                    } else {
-                        logger.warn("Skipping record with missing state or district: state={}, district={}", 
-                            pr.getStateName(), pr.getDistrictName());
-                    }
-                } catch (Exception e) {
-                    logger.error("Error parsing individual record: {}", e.getMessage(), e);
+            JsonNode record = objectMapper.readTree(parser);
+            fetched++;
+            try {
+                if (plan == null) plan = resolvePlan(record);
+                PerformanceRecord pr = plan.map(record);
+                canonicalizeNames(pr);
+                if (hasNaturalKey(pr)) {
+                    batch.add(pr);
+                } else {
+                    logger.warn("Skipping record with missing state, district or period: state={}, district={}, {}/{}",
+                        pr.getStateName(), pr.getDistrictName(), pr.getMonth(), pr.getFinYear());
                 }
+            } catch (Exception e) {
+                logger.error("Error parsing individual record: {}", e.getMessage(), e);
             }
-            
-            if (recordsToSave.isEmpty()) {
-                logger.warn("No valid records to save after parsing");
-                return;
+            if (batch.size() >= flushSize) {
+                saved += flushBatch(batch);
             }
-            
-            repository.saveAll(recordsToSave);
-            logger.info("✅ Successfully saved {} performance records to database", recordsToSave.size());
-        } catch (Exception e) {
-            logger.error("❌ Error saving performance data: {}", e.getMessage(), e);
-            logger.error("Response that failed: {}", jsonResponse.substring(0, Math.min(1000, jsonResponse.length())));
         }
+        saved += flushBatch(batch);
+        return new IngestResult(saved, fetched, -1);
     }
 
-    public List<PerformanceRecord> getFromDatabase(String stateName, String districtName, int limit) {
-        List<PerformanceRecord> records = repository.findRecentByDistrict(stateName, districtName);
-        return records.size() > limit ? records.subList(0, limit) : records;
+    private int flushBatch(List<PerformanceRecord> batch) {
+        if (batch.isEmpty()) return 0;
+        int size = batch.size();
+        // Plain JDBC: nothing is attached to the persistence context
+        int changed = batchTransaction.execute(status -> writeRecords(batch));
+        batch.clear();
+        logger.debug("Flushed batch of {} records ({} inserted or changed)", size, changed);
+        return size;
     }
 
-    public List<PerformanceRecord> getStateData(String stateName, int limit) {
-        List<PerformanceRecord> records = repository.findRecentByState(stateName);
-        return records.size() > limit ? records.subList(0, limit) : records;
+    // Every part of the natural key must be present: the unique index treats NULLs as distinct,
+    // so a row missing one would never conflict and would be inserted again on every sync.
+    // A district id is only assigned once both the state and district are named
+    private static boolean hasNaturalKey(PerformanceRecord pr) {
+        return pr.getDistrictId() != null && pr.getFinYear() != null && pr.getMonth() != null;
     }
 
-    private String getStringValue(JsonNode node, String field) {
-        JsonNode value = node.get(field);
-        return (value != null && !value.isNull()) ? value.asText() : null;
+    private int writeRecords(List<PerformanceRecord> records) {
+        int changed;
+        if (records.size() < copyThreshold) {
+            changed = jdbcRepository.upsertAll(records);
+        } else {
+            try {
+                changed = copyLoader.load(records);
+            } catch (SQLException e) {
+                throw new UncategorizedSQLException("COPY load", null, e);
+            }
+        }
+        // Only a total is known, so a batch that changed anything invalidates all of its districts
+        if (changed > 0) {
+            // Same transaction as the rows, so a state average never disagrees with them
+            rollups.refresh(records);
+            dataVersions.changed(records);
+        }
+        return changed;
     }
 
-    private Long parseLong(JsonNode node, String field) {
-        JsonNode value = node.get(field);
-        if (value == null || value.isNull()) return null;
-        try {
-            String str = value.asText().replace(",", "").trim();
-            return str.isEmpty() ? null : Long.parseLong(str);
-        } catch (Exception e) {
-            return null;
-        }
+    // Ids name the canonical place so lookups match exactly; upstream's own spelling is kept for its filters
+    private void canonicalizeNames(PerformanceRecord pr) {
+        String rawState = pr.getStateName();
+        String rawDistrict = pr.getDistrictName();
+        names.observe(rawState, rawDistrict);
+        String state = names.state(rawState);
+        pr.setStateName(state);
+        pr.setDistrictName(names.district(state, rawDistrict));
+        places.assign(pr, rawState, rawDistrict);
     }
 
-    private Integer parseInt(JsonNode node, String field) {
-        JsonNode value = node.get(field);
-        if (value == null || value.isNull()) return null;
-        try {
-            String str = value.asText().replace(",", "").trim();
-            return str.isEmpty() ? null : Integer.parseInt(str);
-        } catch (Exception e) {
-            return null;
+    private RecordMappingPlan resolvePlan(JsonNode sampleRecord) {
+        List<String> recordKeys = new ArrayList<>();
+        sampleRecord.fieldNames().forEachRemaining(recordKeys::add);
+        logger.info("📋 Sample record keys from API: {}", recordKeys);
+        
+        RecordMappingPlan plan = RecordMappingPlan.resolve(sampleRecord);
+        logger.info("Resolved field mapping: {}", plan);
+        List<String> unmapped = plan.unmappedFields();
+        if (!unmapped.isEmpty()) {
+            logger.warn("⚠️ No upstream column found for: {}", unmapped);
         }
+        return plan;
     }
 
-    private Double parseDouble(JsonNode node, String field) {
-        JsonNode value = node.get(field);
-        if (value == null || value.isNull()) return null;
-        try {
-            String str = value.asText().replace(",", "").trim();
-            return str.isEmpty() ? null : Double.parseDouble(str);
-        } catch (Exception e) {
-            return null;
-        }
+    public List<PerformanceRecord> getFromDatabase(String stateName, String districtName, int limit) {
+        return getFromDatabase(stateName, districtName, limit, null);
     }
-}
 
+    /**
+     * The district's {@code limit} newest records, or with {@code beforePeriod}
+     * (a period_key from a previous page) the {@code limit} just older than it.
+     */
+    public List<PerformanceRecord> getFromDatabase(String stateName, String districtName, int limit, Integer beforePeriod) {
+        if (limit <= 0) return List.of();
+        String state = names.state(stateName);
+        return reads.findRecentByDistrict(state, names.district(state, districtName), beforePeriod, limit);
+    }
+
+    public List<PerformanceRecord> getStateData(String stateName, int limit) {
+        if (limit <= 0) return List.of();
+        return reads.findRecentByState(names.state(stateName), limit);
+    }
+}
@@ -0,0 +1,226 @@
+package com.mgnrega.backend.service;
+
+import com.mgnrega.backend.entity.PerformanceRecord;
+import com.mgnrega.backend.repository.StatePeriodRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings performance_records to its current key before anything else runs,
+ * in one transaction: rows without a period are deleted, rows written when
+ * records were keyed on state_name/district_name get the ids of their
+ * canonical place (the stored spellings become aliases), the newest row is
+ * kept where a district and month occur more than once, and only then is the
+ * (district_id, fin_year, month) unique index created. Rollups and sync
+ * watermarks that are still keyed on names are rekeyed on ids. A failure
+ * stops startup: the rest of the application reads rows by id only.
+ *
+ * <p>The old name columns stay unless app.dropNameColumns is set, as dropping
+ * them cannot be undone.
+ */
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class PerformanceRecordMigration implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceRecordMigration.class);
+    private static final String NATURAL_KEY_INDEX = "uk_performance_district_period";
+
+    // Every row but the newest of each district and month. With the name columns present, rows not
+    // yet on ids are ranked under the district their names map to in place_id_map
+    private static final String DUPLICATES_BY_ID =
+        "SELECT id FROM (SELECT id, ROW_NUMBER() OVER (PARTITION BY district_id, fin_year, month ORDER BY id DESC) AS rn " +
+        "FROM performance_records WHERE district_id IS NOT NULL) ranked WHERE rn > 1";
+    private static final String DUPLICATES_BY_MAPPED_ID =
+        "SELECT id FROM (SELECT p.id, ROW_NUMBER() OVER (" +
+        "PARTITION BY COALESCE(p.district_id, m.district_id), p.fin_year, p.month ORDER BY p.id DESC) AS rn " +
+        "FROM performance_records p LEFT JOIN place_id_map m " +
+        "ON m.state_name = p.state_name AND m.district_name = p.district_name " +
+        "WHERE COALESCE(p.district_id, m.district_id) IS NOT NULL) ranked WHERE rn > 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NameCanonicalizer names;
+    private final PlaceDictionary places;
+    private final StatePeriodRollupRepository rollups;
+    private final DataVersions dataVersions;
+    private final TransactionTemplate transaction;
+    private final boolean dropNameColumns;
+
+    public PerformanceRecordMigration(JdbcTemplate jdbcTemplate, NameCanonicalizer names, PlaceDictionary places,
+                                      StatePeriodRollupRepository rollups, DataVersions dataVersions,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${app.dropNameColumns:false}") boolean dropNameColumns) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.names = names;
+        this.places = places;
+        this.rollups = rollups;
+        this.dataVersions = dataVersions;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.dropNameColumns = dropNameColumns;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            places.load();
+            int changed = transaction.execute(status -> migrate());
+            if (changed > 0) {
+                logger.info("✅ Migrated performance_records: {} rows given place ids or removed", changed);
+                // Only once committed, so readers that reload see the result
+                dataVersions.changedAll();
+            }
+            createIndexes();
+        } catch (Exception e) {
+            logger.error("❌ Could not migrate performance_records to place ids: {}", e.getMessage());
+            throw new IllegalStateException("performance_records migration failed", e);
+        }
+    }
+
+    /** Keeps the newest row per district and month and makes sure the unique index exists. For the debug endpoint. */
+    public int deduplicate() {
+        Integer deleted = transaction.execute(status -> {
+            int removed = deleteDuplicates(DUPLICATES_BY_ID);
+            createNaturalKey();
+            if (removed > 0) rollups.rebuildAll();
+            return removed;
+        });
+        if (deleted > 0) dataVersions.changedAll();
+        return deleted;
+    }
+
+    private int migrate() {
+        boolean named = columnExists("performance_records", "state_name");
+        int changed = jdbcTemplate.update("DELETE FROM performance_records WHERE fin_year IS NULL OR month IS NULL");
+        if (named) {
+            // Duplicates go before any id is set, so no update can run into the unique index
+            mapNamesToIds();
+            changed += deleteDuplicates(DUPLICATES_BY_MAPPED_ID);
+            changed += jdbcTemplate.update(
+                "UPDATE performance_records p SET state_id = m.state_id, district_id = m.district_id " +
+                "FROM place_id_map m WHERE p.district_id IS NULL " +
+                "AND p.state_name = m.state_name AND p.district_name = m.district_name");
+        } else if (!naturalKeyExists()) {
+            changed += deleteDuplicates(DUPLICATES_BY_ID);
+        }
+        // No state or district to key them on; ingestion never writes such rows
+        changed += jdbcTemplate.update("DELETE FROM performance_records WHERE district_id IS NULL");
+        createNaturalKey();
+
+        boolean rekeyed = rekeyRollups();
+        if (rekeyed || changed > 0) rollups.rebuildAll();
+        rekeyWatermarks();
+        if (dropNameColumns) dropNameColumns();
+        return changed;
+    }
+
+    private void mapNamesToIds() {
+        jdbcTemplate.execute("CREATE TEMP TABLE IF NOT EXISTS place_id_map " +
+            "(state_name text, district_name text, state_id integer, district_id integer) ON COMMIT DROP");
+        List<Map<String, Object>> pairs = jdbcTemplate.queryForList(
+            "SELECT DISTINCT state_name, district_name FROM performance_records " +
+            "WHERE district_id IS NULL AND state_name IS NOT NULL AND district_name IS NOT NULL");
+        List<Object[]> mapped = new ArrayList<>(pairs.size());
+        for (Map<String, Object> pair : pairs) {
+            String rawState = (String) pair.get("state_name");
+            String rawDistrict = (String) pair.get("district_name");
+            // Stored spellings are upstream's, worth knowing for its filters
+            names.observe(rawState, rawDistrict);
+            PerformanceRecord place = new PerformanceRecord();
+            place.setStateName(names.state(rawState));
+            place.setDistrictName(names.district(place.getStateName(), rawDistrict));
+            places.assign(place, rawState, rawDistrict);
+            if (place.getDistrictId() != null) {
+                mapped.add(new Object[] {rawState, rawDistrict, place.getStateId(), place.getDistrictId()});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO place_id_map VALUES (?, ?, ?, ?)", mapped);
+    }
+
+    private int deleteDuplicates(String duplicates) {
+        return jdbcTemplate.update("DELETE FROM performance_records WHERE id IN (" + duplicates + ")");
+    }
+
+    private void createNaturalKey() {
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS " + NATURAL_KEY_INDEX +
+            " ON performance_records (district_id, fin_year, month)");
+    }
+
+    // Rollups are derived, so rekeying empties the table and the caller rebuilds it
+    private boolean rekeyRollups() {
+        if (!isNotNull("state_period_rollups", "state_name")) return false;
+        jdbcTemplate.update("DELETE FROM state_period_rollups");
+        jdbcTemplate.execute("ALTER TABLE state_period_rollups DROP CONSTRAINT IF EXISTS state_period_rollups_pkey");
+        jdbcTemplate.execute("ALTER TABLE state_period_rollups ALTER COLUMN state_name DROP NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE state_period_rollups ADD PRIMARY KEY (state_id, fin_year, month)");
+        return true;
+    }
+
+    private void rekeyWatermarks() {
+        if (!isNotNull("sync_watermarks", "watermark_key")) return;
+        // Watermark names were canonical, so they match the dictionary's; any that do not are re-seeded by the next sync
+        jdbcTemplate.update(
+            "UPDATE sync_watermarks w SET state_id = s.id, district_id = d.id " +
+            "FROM states s JOIN districts d ON d.state_id = s.id " +
+            "WHERE s.name = w.state_name AND d.name = w.district_name");
+        jdbcTemplate.update("DELETE FROM sync_watermarks WHERE district_id IS NULL");
+        jdbcTemplate.execute("ALTER TABLE sync_watermarks DROP CONSTRAINT IF EXISTS sync_watermarks_pkey");
+        jdbcTemplate.execute("ALTER TABLE sync_watermarks ALTER COLUMN watermark_key DROP NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE sync_watermarks ADD PRIMARY KEY (district_id)");
+    }
+
+    private void dropNameColumns() {
+        if (columnExists("performance_records", "state_name")) {
+            // Also drops the indexes on them: idx_state_district, the name-keyed period indexes and the old natural key
+            jdbcTemplate.execute("ALTER TABLE performance_records DROP COLUMN state_name, DROP COLUMN district_name");
+            logger.info("Dropped state_name and district_name from performance_records");
+        }
+        if (columnExists("state_period_rollups", "state_name")) {
+            jdbcTemplate.execute("ALTER TABLE state_period_rollups DROP COLUMN state_name");
+        }
+        if (columnExists("sync_watermarks", "watermark_key")) {
+            jdbcTemplate.execute("ALTER TABLE sync_watermarks " +
+                "DROP COLUMN watermark_key, DROP COLUMN state_name, DROP COLUMN district_name");
+        }
+    }
+
+    private void createIndexes() {
+        // NULLS LAST is not expressible on the entity, hence created here
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_district_period " +
+            "ON performance_records (district_id, period_key DESC NULLS LAST)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_state_id_period " +
+            "ON performance_records (state_id, period_key DESC NULLS LAST)");
+    }
+
+    private boolean naturalKeyExists() {
+        Integer count = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM pg_indexes WHERE tablename = 'performance_records' AND indexname = ?",
+            Integer.class, NATURAL_KEY_INDEX);
+        return count != null && count > 0;
+    }
+
+    private boolean columnExists(String table, String column) {
+        return columnNullability(table, column) != null;
+    }
+
+    private boolean isNotNull(String table, String column) {
+        return "NO".equals(columnNullability(table, column));
+    }
+
+    private String columnNullability(String table, String column) {
+        List<String> found = jdbcTemplate.queryForList(
+            "SELECT is_nullable FROM information_schema.columns WHERE table_name = ? AND column_name = ?",
+            String.class, table, column);
+        return found.isEmpty() ? null : found.get(0);
+    }
+}
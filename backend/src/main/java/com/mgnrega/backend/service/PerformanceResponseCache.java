@@ -0,0 +1,160 @@
+package com.mgnrega.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-tier cache for /api/performance responses: the bounded in-memory cache
+ * in front of a disk tier that survives restarts and redeploys on the same
+ * volume. Disk hits are promoted to memory with their original expiry.
+ * <p>
+ * Entries are tagged with the {@link DataVersions} version of the rows they
+ * were built from and are dropped on the first read after those rows change.
+ * Responses built from the database stay valid until then (bounded by a
+ * maximum age); anything else still expires after the TTL. The disk tier only
+ * holds TTL expiries and counts as version 0, since versions restart with the
+ * process.
+ */
+@Component
+public class PerformanceResponseCache {
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceResponseCache.class);
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+
+    private static final class Entry {
+        final CachedResponse response;
+        final long dataVersion;
+
+        Entry(CachedResponse response, long dataVersion) {
+            this.response = response;
+            this.dataVersion = dataVersion;
+        }
+    }
+
+    private final BoundedCache<String, Entry> memory;
+    private final DiskResponseStore disk;
+    private final long ttlMs;
+    private final long staleGraceMs;
+    private final long maxAgeMs;
+    private final LongAdder versionMisses = new LongAdder();
+
+    public PerformanceResponseCache(@Value("${datagov.cacheTtlSeconds:900}") long ttlSeconds,
+                                    @Value("${datagov.cacheStaleGraceSeconds:86400}") long staleGraceSeconds,
+                                    @Value("${datagov.cacheMaxBytes:67108864}") long maxBytes,
+                                    @Value("${datagov.cacheMaxAgeSeconds:86400}") long maxAgeSeconds,
+                                    @Value("${datagov.cacheDiskEnabled:true}") boolean diskEnabled,
+                                    @Value("${datagov.cacheDiskDir:data/response-cache}") String diskDir,
+                                    @Value("${datagov.cacheDiskMaxBytes:268435456}") long diskMaxBytes,
+                                    @Value("${datagov.cacheDiskSegmentBytes:16777216}") int diskSegmentBytes) {
+        this.ttlMs = ttlSeconds * 1000;
+        this.staleGraceMs = staleGraceSeconds * 1000;
+        this.maxAgeMs = maxAgeSeconds * 1000;
+        // Key chars cost up to 2 bytes each, plus the encoded bodies and map entry overhead
+        this.memory = new BoundedCache<>(ttlMs, staleGraceMs, maxBytes,
+            (key, value) -> 2L * key.length() + value.response.weight() + ENTRY_OVERHEAD_BYTES);
+        this.disk = diskEnabled ? openDisk(Path.of(diskDir), diskSegmentBytes, diskMaxBytes) : null;
+        if (disk != null) {
+            CompletableFuture.runAsync(disk::loadIndex);
+        }
+    }
+
+    /** Response for the key if it is fresh and was built from {@code dataVersion} of its rows. */
+    public CachedResponse get(String key, long dataVersion) {
+        Entry hit = memory.get(key);
+        if (hit != null) {
+            if (hit.dataVersion == dataVersion) return hit.response;
+            // The rows changed since this was built
+            versionMisses.increment();
+            invalidate(key);
+            return null;
+        }
+        if (disk == null || dataVersion != 0) return null;
+        DiskResponseStore.Entry entry = disk.get(key);
+        if (entry == null || System.currentTimeMillis() > entry.expiresAtMs()) return null;
+        memory.putUntil(key, new Entry(entry.response(), 0), entry.expiresAtMs());
+        return entry.response();
+    }
+
+    /** Last response for the key even if expired or outdated, within the stale grace period. */
+    public CachedResponse getStale(String key) {
+        Entry stale = memory.getStale(key);
+        if (stale != null) return stale.response;
+        if (disk == null) return null;
+        DiskResponseStore.Entry entry = disk.get(key);
+        if (entry == null || System.currentTimeMillis() > entry.expiresAtMs() + staleGraceMs) return null;
+        return entry.response();
+    }
+
+    /** Caches a response that does not come from the database; it expires after the TTL. */
+    public void put(String key, CachedResponse response, long dataVersion) {
+        long expiresAtMs = System.currentTimeMillis() + ttlMs;
+        memory.putUntil(key, new Entry(response, dataVersion), expiresAtMs);
+        if (disk != null) {
+            disk.put(key, response, expiresAtMs);
+        }
+    }
+
+    /** Caches a response built from the database; it stays valid until its rows change. */
+    public void putUntilChanged(String key, CachedResponse response, long dataVersion) {
+        long now = System.currentTimeMillis();
+        memory.putUntil(key, new Entry(response, dataVersion), now + maxAgeMs);
+        if (disk != null) {
+            disk.put(key, response, now + ttlMs);
+        }
+    }
+
+    public void invalidate(String key) {
+        memory.invalidate(key);
+        if (disk != null) {
+            disk.remove(key);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>(memory.stats());
+        stats.put("versionMisses", versionMisses.sum());
+        if (disk != null) {
+            stats.put("disk", disk.stats());
+        }
+        return stats;
+    }
+
+    @Scheduled(initialDelayString = "${datagov.cacheDiskCompactMs:300000}", fixedDelayString = "${datagov.cacheDiskCompactMs:300000}")
+    public void compactDisk() {
+        if (disk != null) {
+            disk.compact(staleGraceMs);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (disk == null) return;
+        try {
+            disk.close();
+        } catch (IOException e) {
+            logger.warn("Could not flush disk cache: {}", e.getMessage());
+        }
+    }
+
+    private static DiskResponseStore openDisk(Path dir, int segmentBytes, long maxBytes) {
+        try {
+            DiskResponseStore store = new DiskResponseStore(dir, segmentBytes, maxBytes);
+            logger.info("📋 Disk response cache at {}", dir.toAbsolutePath());
+            return store;
+        } catch (IOException | RuntimeException e) {
+            // A read-only or full volume should not stop the app; run memory-only
+            logger.warn("⚠️ Disk response cache disabled, could not open {}: {}", dir.toAbsolutePath(), e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.mgnrega.backend.service;
+
+import com.mgnrega.backend.repository.PerformanceRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Columnar in-memory copy of performance_records for the comparatives
+ * endpoints, one block per state: district names dictionary-encoded, rows
+ * ordered newest period first, metrics in primitive arrays with null bitmaps
+ * and per-period state averages taken from state_period_rollups. A block is rebuilt from its
+ * state's rows when {@link DataVersions} reports the state changed, in the
+ * background every few seconds or on the first read that finds it stale;
+ * concurrent readers of a stale state share that one rebuild. States with no
+ * rows are remembered until their version moves, and the list of states is
+ * kept until any row changes, so repeated lookups of an unknown name cost no
+ * queries.
+ */
+@Component
+public class PerformanceSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceSnapshot.class);
+    private static final String LOAD_SQL =
+        "SELECT district_id, fin_year, month, period_key, households_worked, persondays_generated, women_persondays_percent, " +
+        "no_of_ongoing_works, no_of_completed_works, avg_wage_rate FROM performance_records WHERE state_id = ?";
+    private static final String ROLLUP_SQL =
+        "SELECT fin_year, month, persondays_sum, persondays_count, households_sum, households_count " +
+        "FROM state_period_rollups WHERE state_id = ?";
+    // Names come from requests, so misses are only remembered up to this many
+    private static final int MAX_ABSENT_STATES = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PerformanceRecordRepository repository;
+    private final DataVersions dataVersions;
+    private final PlaceDictionary places;
+    private final Map<String, StateBlock> blocks = new ConcurrentHashMap<>();
+    // Version at which a state was found to have no rows
+    private final Map<String, Long> absent = new ConcurrentHashMap<>();
+    private final SingleFlight<String, StateBlock> loads = new SingleFlight<>();
+    private volatile StateNames stateNames;
+    private final long loadWaitMs;
+
+    public PerformanceSnapshot(JdbcTemplate jdbcTemplate,
+                               PerformanceRecordRepository repository,
+                               DataVersions dataVersions,
+                               PlaceDictionary places,
+                               @Value("${app.singleFlightWaitMs:10000}") long loadWaitMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.repository = repository;
+        this.dataVersions = dataVersions;
+        this.places = places;
+        this.loadWaitMs = loadWaitMs;
+    }
+
+    /** Current block for a canonical state name, or null if the state has no rows. */
+    public StateBlock state(String state) {
+        if (state == null) return null;
+        // Read before the rows, as for cached responses: a write landing meanwhile leaves the block stale, not wrong
+        long version = dataVersions.current(state, null);
+        StateBlock block = blocks.get(state);
+        if (block != null && block.version == version) return block;
+        Long absentAt = absent.get(state);
+        if (absentAt != null && absentAt == version) return null;
+        // A reader that waits too long for the shared rebuild gets the block it would have replaced
+        StateBlock previous = block;
+        block = loads.execute(state + "@" + version, () -> load(state, version), loadWaitMs, () -> previous);
+        return block == null || block.rowCount() == 0 ? null : block;
+    }
+
+    /** States with rows, sorted; reloaded once any row has changed since the last load. */
+    public List<String> stateNames() {
+        long version = dataVersions.current(null, null);
+        StateNames names = stateNames;
+        if (names == null || names.version != version) {
+            names = loadStateNames(version);
+        }
+        return names.names;
+    }
+
+    /**
+     * Best partial match for a canonical state name among {@link #stateNames}: one
+     * starting with it, else one containing it or contained in it, shortest first.
+     */
+    public String closestState(String fragment) {
+        if (fragment == null) return null;
+        return stateNames().stream()
+            .filter(name -> name.contains(fragment) || fragment.contains(name))
+            .min(Comparator.comparing((String name) -> !name.startsWith(fragment))
+                .thenComparingInt(String::length)
+                .thenComparing(Comparator.naturalOrder()))
+            .orElse(null);
+    }
+
+    /** Loads new states and rebuilds changed ones, so requests rarely find a block stale. */
+    @Scheduled(initialDelayString = "${app.snapshotRefreshMs:10000}", fixedDelayString = "${app.snapshotRefreshMs:10000}")
+    public void refresh() {
+        try {
+            int rebuilt = 0;
+            List<String> states = loadStateNames(dataVersions.current(null, null)).names;
+            for (String state : states) {
+                long version = dataVersions.current(state, null);
+                StateBlock block = blocks.get(state);
+                if (block == null || block.version != version) {
+                    load(state, version);
+                    rebuilt++;
+                }
+            }
+            // States whose rows were all removed
+            blocks.keySet().retainAll(new HashSet<>(states));
+            if (rebuilt > 0) {
+                logger.info("📊 Rebuilt {} state blocks of the comparatives snapshot", rebuilt);
+            }
+        } catch (Exception e) {
+            logger.warn("⚠️ Comparatives snapshot refresh failed: {}", e.getMessage());
+        }
+    }
+
+    // Version read before the query, so a write landing meanwhile makes the list stale, not newer than its tag
+    private StateNames loadStateNames(long version) {
+        StateNames names = new StateNames(version, List.copyOf(repository.findStateNames()));
+        stateNames = names;
+        return names;
+    }
+
+    private record StateNames(long version, List<String> names) {
+    }
+
+    private StateBlock load(String state, long version) {
+        Integer stateId = places.stateId(state);
+        List<Row> rows = stateId == null ? List.of() : jdbcTemplate.query(LOAD_SQL, (rs, i) -> Row.read(rs, places), stateId);
+        Map<Integer, long[]> totals = new HashMap<>();
+        if (stateId != null) {
+            jdbcTemplate.query(ROLLUP_SQL, rs -> {
+                Integer period = FiscalPeriod.periodKey(rs.getString("fin_year"), rs.getString("month"));
+                if (period != null) {
+                    totals.put(period, new long[] {rs.getLong("persondays_sum"), rs.getLong("persondays_count"),
+                        rs.getLong("households_sum"), rs.getLong("households_count")});
+                }
+            }, stateId);
+        }
+        StateBlock block = StateBlock.build(state, version, rows, totals);
+        if (block.rowCount() > 0) {
+            // A slower load that started earlier must not replace a newer block
+            blocks.merge(state, block, (old, loaded) -> loaded.version >= old.version ? loaded : old);
+            absent.remove(state);
+        } else {
+            blocks.remove(state);
+            if (absent.size() >= MAX_ABSENT_STATES) absent.clear();
+            absent.put(state, version);
+        }
+        return block;
+    }
+
+    /** One state's rows, immutable once built. Row indexes are only meaningful within their block. */
+    public static final class StateBlock {
+        private final String state;
+        private final long version;
+        private final String[] districts;
+        private final int[] latestRowByDistrict;
+        // Rows of periods[i] are [periodStart[i], periodStart[i + 1]), ordered by district id
+        private final int[] periods;
+        private final int[] periodStart;
+        private final String[] periodFinYear;
+        private final String[] periodMonth;
+        private final double[] periodAvgPersondays;
+        private final double[] periodAvgHouseholds;
+        private final double allAvgPersondays;
+        private final double allAvgHouseholds;
+        private final int[] district;
+        private final LongColumn households;
+        private final LongColumn persondays;
+        private final DoubleColumn womenPercent;
+        private final LongColumn ongoingWorks;
+        private final LongColumn completedWorks;
+        private final DoubleColumn avgWage;
+
+        private StateBlock(String state, long version, List<Row> rows, String[] districts, int[] periods, int[] periodStart,
+                           Map<Integer, long[]> totals) {
+            int n = rows.size();
+            this.state = state;
+            this.version = version;
+            this.districts = districts;
+            this.periods = periods;
+            this.periodStart = periodStart;
+            this.district = new int[n];
+            this.households = new LongColumn(n);
+            this.persondays = new LongColumn(n);
+            this.womenPercent = new DoubleColumn(n);
+            this.ongoingWorks = new LongColumn(n);
+            this.completedWorks = new LongColumn(n);
+            this.avgWage = new DoubleColumn(n);
+            this.latestRowByDistrict = new int[districts.length];
+            Arrays.fill(latestRowByDistrict, -1);
+            for (int i = 0; i < n; i++) {
+                Row r = rows.get(i);
+                int id = Arrays.binarySearch(districts, r.district);
+                district[i] = id;
+                if (latestRowByDistrict[id] < 0) latestRowByDistrict[id] = i;
+                households.set(i, r.households);
+                persondays.set(i, r.persondays);
+                womenPercent.set(i, r.womenPercent);
+                ongoingWorks.set(i, r.ongoingWorks);
+                completedWorks.set(i, r.completedWorks);
+                avgWage.set(i, r.avgWage);
+            }
+            int p = periods.length;
+            this.periodFinYear = new String[p];
+            this.periodMonth = new String[p];
+            this.periodAvgPersondays = new double[p];
+            this.periodAvgHouseholds = new double[p];
+            // Totals: persondays sum and count, households sum and count
+            long[] all = new long[4];
+            for (int i = 0; i < p; i++) {
+                Row first = rows.get(periodStart[i]);
+                periodFinYear[i] = first.finYear;
+                periodMonth[i] = first.month;
+                long[] t = totals.getOrDefault(periods[i], new long[4]);
+                periodAvgPersondays[i] = ratio(t[0], t[1]);
+                periodAvgHouseholds[i] = ratio(t[2], t[3]);
+                for (int k = 0; k < 4; k++) all[k] += t[k];
+            }
+            this.allAvgPersondays = ratio(all[0], all[1]);
+            this.allAvgHouseholds = ratio(all[2], all[3]);
+        }
+
+        private static double ratio(long sum, long count) {
+            return count == 0 ? Double.NaN : (double) sum / count;
+        }
+
+        static StateBlock build(String state, long version, List<Row> rows, Map<Integer, long[]> totals) {
+            // Rows without a readable period cannot be placed in time; upstream always sends one
+            List<Row> placed = new ArrayList<>(rows.size());
+            TreeSet<String> names = new TreeSet<>();
+            for (Row r : rows) {
+                if (r.period > 0 && r.district != null) {
+                    placed.add(r);
+                    names.add(r.district);
+                }
+            }
+            placed.sort(Comparator.comparingInt((Row r) -> -r.period).thenComparing(r -> r.district));
+            String[] districts = names.toArray(new String[0]);
+            int[] starts = new int[placed.size() + 1];
+            int[] periods = new int[placed.size()];
+            int count = 0;
+            for (int i = 0; i < placed.size(); i++) {
+                if (i == 0 || placed.get(i).period != placed.get(i - 1).period) {
+                    periods[count] = placed.get(i).period;
+                    starts[count++] = i;
+                }
+            }
+            starts[count] = placed.size();
+            return new StateBlock(state, version, placed, districts,
+                Arrays.copyOf(periods, count), Arrays.copyOf(starts, count + 1), totals);
+        }
+
+        public String state() { return state; }
+        public int rowCount() { return district.length; }
+        public List<String> districtNames() { return Collections.unmodifiableList(Arrays.asList(districts)); }
+
+        /** Index into the period accessors of yyyymm {@code period}, or -1; 0 is the newest. */
+        public int periodIndex(Integer period) {
+            if (period == null) return -1;
+            for (int i = 0; i < periods.length; i++) {
+                if (periods[i] == period) return i;
+                if (periods[i] < period) break;
+            }
+            return -1;
+        }
+
+        public String finYear(int periodIndex) { return periodFinYear[periodIndex]; }
+        public String month(int periodIndex) { return periodMonth[periodIndex]; }
+
+        /** Average over the districts reporting it in the period; the whole state's history if periodIndex is -1. NaN if none do. */
+        public double averagePersondays(int periodIndex) {
+            return periodIndex < 0 ? allAvgPersondays : periodAvgPersondays[periodIndex];
+        }
+
+        public double averageHouseholds(int periodIndex) {
+            return periodIndex < 0 ? allAvgHouseholds : periodAvgHouseholds[periodIndex];
+        }
+
+        /** The district's row for the period, else its newest row; -1 if the district is unknown. */
+        public int districtRow(String districtName, int periodIndex) {
+            if (districtName == null) return -1;
+            int id = Arrays.binarySearch(districts, districtName);
+            if (id < 0) return -1;
+            if (periodIndex >= 0) {
+                int row = Arrays.binarySearch(district, periodStart[periodIndex], periodStart[periodIndex + 1], id);
+                if (row >= 0) return row;
+            }
+            return latestRowByDistrict[id];
+        }
+
+        public Long householdsWorked(int row) { return households.get(row); }
+        public Long persondaysGenerated(int row) { return persondays.get(row); }
+        public Double womenPersondaysPercent(int row) { return womenPercent.get(row); }
+        public Long noOfOngoingWorks(int row) { return ongoingWorks.get(row); }
+        public Long noOfCompletedWorks(int row) { return completedWorks.get(row); }
+        public Double avgWageRate(int row) { return avgWage.get(row); }
+    }
+
+    private static final class LongColumn {
+        final long[] values;
+        final long[] nulls;
+
+        LongColumn(int size) {
+            values = new long[size];
+            nulls = new long[(size + 63) >>> 6];
+        }
+
+        void set(int i, Long value) {
+            if (value == null) nulls[i >>> 6] |= 1L << i;
+            else values[i] = value;
+        }
+
+        Long get(int i) {
+            return (nulls[i >>> 6] & (1L << i)) != 0 ? null : values[i];
+        }
+    }
+
+    private static final class DoubleColumn {
+        final double[] values;
+        final long[] nulls;
+
+        DoubleColumn(int size) {
+            values = new double[size];
+            nulls = new long[(size + 63) >>> 6];
+        }
+
+        void set(int i, Double value) {
+            if (value == null) nulls[i >>> 6] |= 1L << i;
+            else values[i] = value;
+        }
+
+        Double get(int i) {
+            return (nulls[i >>> 6] & (1L << i)) != 0 ? null : values[i];
+        }
+    }
+
+    static final class Row {
+        String district;
+        String finYear;
+        String month;
+        int period;
+        Long households;
+        Long persondays;
+        Double womenPercent;
+        Long ongoingWorks;
+        Long completedWorks;
+        Double avgWage;
+
+        static Row read(ResultSet rs, PlaceDictionary places) throws SQLException {
+            Row r = new Row();
+            r.district = places.districtName(rs.getObject("district_id", Integer.class));
+            r.finYear = rs.getString("fin_year");
+            r.month = rs.getString("month");
+            r.period = rs.getInt("period_key");
+            if (rs.wasNull()) {
+                // Written before period_key existed and not yet backfilled
+                Integer period = FiscalPeriod.periodKey(r.finYear, r.month);
+                r.period = period == null ? 0 : period;
+            }
+            r.households = longOrNull(rs, "households_worked");
+            r.persondays = longOrNull(rs, "persondays_generated");
+            r.womenPercent = doubleOrNull(rs, "women_persondays_percent");
+            r.ongoingWorks = longOrNull(rs, "no_of_ongoing_works");
+            r.completedWorks = longOrNull(rs, "no_of_completed_works");
+            r.avgWage = doubleOrNull(rs, "avg_wage_rate");
+            return r;
+        }
+
+        private static Long longOrNull(ResultSet rs, String column) throws SQLException {
+            long value = rs.getLong(column);
+            return rs.wasNull() ? null : value;
+        }
+
+        private static Double doubleOrNull(ResultSet rs, String column) throws SQLException {
+            double value = rs.getDouble(column);
+            return rs.wasNull() ? null : value;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.mgnrega.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Fills period_key on rows written before the column existed. The indexes
+ * that read it in order are keyed on place ids and created by
+ * {@link PerformanceRecordMigration}.
+ */
+@Service
+public class PeriodKeyBackfill implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(PeriodKeyBackfill.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PeriodKeyBackfill(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            int filled = backfill();
+            if (filled > 0) {
+                logger.info("✅ Filled period_key on {} performance records", filled);
+            }
+        } catch (Exception e) {
+            logger.error("❌ Could not backfill period_key: {}", e.getMessage());
+        }
+    }
+
+    // A single UPDATE is atomic on its own, so no transaction is needed around it
+    private int backfill() {
+        // Rows whose period cannot be parsed stay NULL and are skipped on later runs
+        return jdbcTemplate.update(
+            "UPDATE performance_records SET period_key = " + FiscalPeriod.SQL_PERIOD_KEY +
+            " WHERE period_key IS NULL AND " + FiscalPeriod.SQL_PERIOD_KEY + " IS NOT NULL");
+    }
+}
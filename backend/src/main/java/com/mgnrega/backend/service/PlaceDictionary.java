@@ -0,0 +1,218 @@
+package com.mgnrega.backend.service;
+
+import com.mgnrega.backend.entity.PerformanceRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory id &lt;-&gt; name dictionary over the states and districts tables.
+ * Records carry these integer ids, so the hot lookups filter and index on
+ * integers rather than names. Loaded at startup, extended as ingestion meets
+ * new places. Each new place or alias commits on its own, so a rolled-back
+ * batch cannot leave an id here that the database does not have. Names and
+ * ids found nowhere are remembered for a minute, so repeated lookups of an
+ * unknown place cost one query, not one per request.
+ */
+@Component
+public class PlaceDictionary {
+    private static final Logger logger = LoggerFactory.getLogger(PlaceDictionary.class);
+    // Long enough to absorb repeated lookups, short enough to find places other instances add
+    private static final long MISS_TTL_NANOS = TimeUnit.SECONDS.toNanos(60);
+    // Names come from requests, so misses are only remembered up to this many
+    private static final int MAX_MISSES = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate ownTransaction;
+    private final Map<String, Integer> stateIds = new ConcurrentHashMap<>();
+    private final Map<Integer, String> stateNames = new ConcurrentHashMap<>();
+    private final Map<String, Integer> stateAliases = new ConcurrentHashMap<>();
+    // Keyed "stateId/NAME": the same district name recurs across states
+    private final Map<String, Integer> districtIds = new ConcurrentHashMap<>();
+    private final Map<Integer, String> districtNames = new ConcurrentHashMap<>();
+    private final Map<String, Integer> districtAliases = new ConcurrentHashMap<>();
+    // Lookup key to System.nanoTime() of the miss
+    private final Map<String, Long> misses = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public PlaceDictionary(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** Reads both tables and their aliases; safe to call again to pick up other instances' places. */
+    public synchronized void load() {
+        jdbcTemplate.query("SELECT id, name FROM states",
+            rs -> { putState(rs.getInt("id"), rs.getString("name")); });
+        jdbcTemplate.query("SELECT state_id, alias FROM state_aliases",
+            rs -> { stateAliases.put(rs.getString("alias"), rs.getInt("state_id")); });
+        jdbcTemplate.query("SELECT id, state_id, name FROM districts",
+            rs -> { putDistrict(rs.getInt("id"), rs.getInt("state_id"), rs.getString("name")); });
+        jdbcTemplate.query("SELECT d.state_id, a.district_id, a.alias FROM district_aliases a JOIN districts d ON d.id = a.district_id",
+            rs -> { districtAliases.put(rs.getInt("state_id") + "/" + rs.getString("alias"), rs.getInt("district_id")); });
+        loaded = true;
+        misses.clear();
+        logger.info("📋 Place dictionary: {} states, {} districts", stateNames.size(), districtNames.size());
+    }
+
+    /** Id of a canonical (or previously seen) state spelling, or null if there is no such state. */
+    public Integer stateId(String state) {
+        if (state == null) return null;
+        ensureLoaded();
+        Integer id = stateIds.get(state);
+        if (id == null) id = stateAliases.get(state);
+        if (id == null) {
+            String missKey = "state:" + state;
+            if (recentMiss(missKey)) return null;
+            // Another instance may have added it since we loaded
+            List<Integer> found = jdbcTemplate.queryForList("SELECT id FROM states WHERE name = ?", Integer.class, state);
+            if (found.isEmpty()) {
+                remember(missKey);
+                return null;
+            }
+            id = found.get(0);
+            putState(id, state);
+        }
+        return id;
+    }
+
+    public Integer districtId(String state, String district) {
+        Integer stateId = stateId(state);
+        if (stateId == null || district == null) return null;
+        Integer id = districtIds.get(stateId + "/" + district);
+        if (id == null) id = districtAliases.get(stateId + "/" + district);
+        if (id == null) {
+            String missKey = "district:" + stateId + "/" + district;
+            if (recentMiss(missKey)) return null;
+            List<Integer> found = jdbcTemplate.queryForList(
+                "SELECT id FROM districts WHERE state_id = ? AND name = ?", Integer.class, stateId, district);
+            if (found.isEmpty()) {
+                remember(missKey);
+                return null;
+            }
+            id = found.get(0);
+            putDistrict(id, stateId, district);
+        }
+        return id;
+    }
+
+    public String stateName(Integer id) {
+        if (id == null) return null;
+        ensureLoaded();
+        String name = stateNames.get(id);
+        if (name == null && !recentMiss("stateId:" + id)) {
+            // Rows only carry ids that exist, so this one was added by another instance since we loaded
+            load();
+            name = stateNames.get(id);
+            if (name == null) remember("stateId:" + id);
+        }
+        return name;
+    }
+
+    public String districtName(Integer id) {
+        if (id == null) return null;
+        ensureLoaded();
+        String name = districtNames.get(id);
+        if (name == null && !recentMiss("districtId:" + id)) {
+            load();
+            name = districtNames.get(id);
+            if (name == null) remember("districtId:" + id);
+        }
+        return name;
+    }
+
+    /**
+     * Sets a record's ids from its canonical names, adding the places if they
+     * are new. The spellings it arrived with are kept as aliases.
+     */
+    public void assign(PerformanceRecord pr, String rawState, String rawDistrict) {
+        if (pr.getStateName() == null) return;
+        int stateId = stateIdFor(pr.getStateName());
+        pr.setStateId(stateId);
+        addStateAlias(stateId, pr.getStateName(), rawState);
+        if (pr.getDistrictName() == null) return;
+        int districtId = districtIdFor(stateId, pr.getDistrictName());
+        pr.setDistrictId(districtId);
+        addDistrictAlias(stateId, districtId, pr.getDistrictName(), rawDistrict);
+    }
+
+    /** Id of a canonical state name, creating the state on first sight. */
+    public int stateIdFor(String state) {
+        Integer id = stateId(state);
+        if (id != null) return id;
+        // No lock: racing writers both upsert and get the same id back. DO UPDATE rather than
+        // DO NOTHING so RETURNING yields the id when another writer got there first
+        id = ownTransaction.execute(status -> jdbcTemplate.queryForObject(
+            "INSERT INTO states (name) VALUES (?) ON CONFLICT (name) DO UPDATE SET name = EXCLUDED.name RETURNING id",
+            Integer.class, state));
+        putState(id, state);
+        misses.clear();
+        return id;
+    }
+
+    public int districtIdFor(int stateId, String district) {
+        Integer id = districtIds.get(stateId + "/" + district);
+        if (id != null) return id;
+        id = ownTransaction.execute(status -> jdbcTemplate.queryForObject(
+            "INSERT INTO districts (state_id, name) VALUES (?, ?) " +
+            "ON CONFLICT (state_id, name) DO UPDATE SET name = EXCLUDED.name RETURNING id",
+            Integer.class, stateId, district));
+        putDistrict(id, stateId, district);
+        misses.clear();
+        return id;
+    }
+
+    private void addStateAlias(int stateId, String canonical, String raw) {
+        if (raw == null) return;
+        String alias = raw.trim();
+        if (alias.isEmpty() || alias.equals(canonical) || stateAliases.putIfAbsent(alias, stateId) != null) return;
+        ownTransaction.executeWithoutResult(status -> jdbcTemplate.update(
+            "INSERT INTO state_aliases (state_id, alias) VALUES (?, ?) ON CONFLICT DO NOTHING", stateId, alias));
+    }
+
+    private void addDistrictAlias(int stateId, int districtId, String canonical, String raw) {
+        if (raw == null) return;
+        String alias = raw.trim();
+        if (alias.isEmpty() || alias.equals(canonical)
+            || districtAliases.putIfAbsent(stateId + "/" + alias, districtId) != null) return;
+        ownTransaction.executeWithoutResult(status -> jdbcTemplate.update(
+            "INSERT INTO district_aliases (district_id, alias) VALUES (?, ?) ON CONFLICT DO NOTHING", districtId, alias));
+    }
+
+    private boolean recentMiss(String key) {
+        Long missedAt = misses.get(key);
+        if (missedAt == null) return false;
+        if (System.nanoTime() - missedAt < MISS_TTL_NANOS) return true;
+        misses.remove(key, missedAt);
+        return false;
+    }
+
+    private void remember(String key) {
+        if (misses.size() >= MAX_MISSES) misses.clear();
+        misses.put(key, System.nanoTime());
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) load();
+    }
+
+    private void putState(int id, String name) {
+        stateIds.put(name, id);
+        stateNames.put(id, name);
+    }
+
+    private void putDistrict(int id, int stateId, String name) {
+        districtIds.put(stateId + "/" + name, id);
+        districtNames.put(id, name);
+    }
+}
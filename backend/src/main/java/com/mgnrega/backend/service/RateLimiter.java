@@ -2,67 +2,123 @@ package com.mgnrega.backend.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Token bucket per key, refilled at {@code permitsPerMinute} and holding up to
+ * {@code burst} permits. Each bucket is a single "theoretical arrival time"
+ * updated by compare-and-set (GCRA), so callers never queue on a lock. A
+ * permit that is not free yet can be reserved: the caller is told how long to
+ * wait instead of being turned away at a window edge.
+ */
 @Component
 public class RateLimiter {
     private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
-    
-    // Allow max 10 requests per minute to data.gov.in API
-    private static final int MAX_REQUESTS_PER_MINUTE = 10;
-    private static final long TIME_WINDOW_MS = 60_000; // 1 minute
-    
-    private final Map<String, RequestWindow> requestWindows = new ConcurrentHashMap<>();
-    
-    private static class RequestWindow {
-        private int count;
-        private long windowStart;
-        
-        RequestWindow() {
-            this.count = 1;
-            this.windowStart = Instant.now().toEpochMilli();
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    // Spacing between permits, and how far ahead of schedule a burst may run
+    private final long intervalNanos;
+    private final long burstToleranceNanos;
+    private final int burst;
+
+    public RateLimiter(@Value("${datagov.rateLimitPerMinute:10}") double permitsPerMinute,
+                       @Value("${datagov.rateLimitBurst:10}") int burst) {
+        if (permitsPerMinute <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate limit needs a positive rate and a burst of at least 1");
         }
+        this.intervalNanos = (long) (TimeUnit.MINUTES.toNanos(1) / permitsPerMinute);
+        this.burstToleranceNanos = intervalNanos * (burst - 1);
+        this.burst = burst;
     }
-    
-    public synchronized boolean allowRequest(String key) {
-        long now = Instant.now().toEpochMilli();
-        RequestWindow window = requestWindows.get(key);
-        
-        if (window == null) {
-            requestWindows.put(key, new RequestWindow());
-            return true;
-        }
-        
-        // Reset window if expired
-        if (now - window.windowStart > TIME_WINDOW_MS) {
-            window.count = 1;
-            window.windowStart = now;
-            return true;
-        }
-        
-        // Check if limit exceeded
-        if (window.count >= MAX_REQUESTS_PER_MINUTE) {
-            logger.warn("Rate limit exceeded for key: {}. Count: {}", key, window.count);
-            return false;
-        }
-        
-        window.count++;
+
+    /** Takes a permit if one is free right now. */
+    public boolean allowRequest(String key) {
+        if (reserve(key, 0, 0) == 0) return true;
+        logger.warn("Rate limit exceeded for key: {}", key);
+        return false;
+    }
+
+    /**
+     * Reserves the next permit if it frees up within {@code timeoutMs}. The
+     * future completes with true once the permit is due, or at once with false
+     * (and nothing reserved) if it would take longer. A reservation is not
+     * returned if the caller stops waiting.
+     */
+    public CompletableFuture<Boolean> acquire(String key, long timeoutMs) {
+        long waitNanos = reserve(key, TimeUnit.MILLISECONDS.toNanos(timeoutMs), 0);
+        if (waitNanos < 0) return CompletableFuture.completedFuture(false);
+        if (waitNanos == 0) return CompletableFuture.completedFuture(true);
+        return CompletableFuture.supplyAsync(() -> true,
+            CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS));
+    }
+
+    /** Blocks until a permit for {@code key} is granted, or returns false after {@code timeoutMs}. */
+    public boolean awaitPermit(String key, long timeoutMs) throws InterruptedException {
+        long waitNanos = reserve(key, TimeUnit.MILLISECONDS.toNanos(timeoutMs), 0);
+        if (waitNanos < 0) return false;
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
         return true;
     }
-    
+
+    /** Permits that could be taken right now without waiting, between 0 and the burst size. */
+    public int availablePermits(String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) return burst;
+        long now = System.nanoTime();
+        long ahead = Math.max(bucket.get(), now) - now;
+        return (int) Math.max(0, Math.min(burst, (burstToleranceNanos + intervalNanos - ahead) / intervalNanos));
+    }
+
+    /** Takes a permit now only if at least {@code headroom} more would still be free afterwards. */
+    public boolean tryAcquire(String key, int headroom) {
+        return reserve(key, 0, headroom) == 0;
+    }
+
+    /** Nanos until {@link #tryAcquire} with the same headroom would succeed; 0 if it would now. */
+    public long nanosUntilAvailable(String key, int headroom) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) return 0;
+        long now = System.nanoTime();
+        return Math.max(0, Math.max(bucket.get(), now) - now - headroomTolerance(headroom));
+    }
+
     public void reset(String key) {
-        requestWindows.remove(key);
+        buckets.remove(key);
     }
-    
-    // Cleanup old windows periodically
+
+    // Full buckets carry no state; a new one starts full as well
     public void cleanup() {
-        long now = Instant.now().toEpochMilli();
-        requestWindows.entrySet().removeIf(entry -> 
-            now - entry.getValue().windowStart > TIME_WINDOW_MS);
+        long now = System.nanoTime();
+        buckets.entrySet().removeIf(entry -> entry.getValue().get() - now <= 0);
+    }
+
+    /**
+     * Nanos until the reserved permit is due, or -1 if that is more than
+     * {@code maxWaitNanos} away. With a headroom the permit is only due once
+     * that many others are free alongside it.
+     */
+    private long reserve(String key, long maxWaitNanos, int headroom) {
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+        long tolerance = headroomTolerance(headroom);
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = bucket.get();
+            long base = Math.max(arrival, now);
+            long waitNanos = Math.max(0, base - tolerance - now);
+            if (waitNanos > maxWaitNanos) return -1;
+            if (bucket.compareAndSet(arrival, base + intervalNanos)) return waitNanos;
+        }
     }
-}
 
+    // A headroom of burst or more could never be met, so the last permit is always usable
+    private long headroomTolerance(int headroom) {
+        return burstToleranceNanos - intervalNanos * Math.max(0, Math.min(headroom, burst - 1));
+    }
+}
@@ -0,0 +1,243 @@
+package com.mgnrega.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mgnrega.backend.entity.PerformanceRecord;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column mapping for one upstream response. The alias chains are resolved once
+ * against the first record, so every later record costs exactly one lookup per
+ * field and numbers are parsed straight from the node text.
+ */
+public final class RecordMappingPlan {
+    // Alias order matters: the first column present in the sample wins.
+    // The API actually uses "Total_Households_Worked"
+    private static final List<String> HOUSEHOLDS = List.of(
+        "Total_Households_Worked", "No_of_Households_Worked", "households_worked",
+        "Households_Worked", "Number_of_Households_Worked");
+    // The API actually uses "Persondays_of_Central_Liability_so_far"
+    private static final List<String> PERSONDAYS = List.of(
+        "Persondays_of_Central_Liability_so_far", "Total_Persondays_Generated",
+        "Persondays_Generated", "persondays_generated", "Total_Person_Days");
+    private static final List<String> WOMEN_PERCENT = List.of(
+        "Women_Persondays_Percent", "women_persondays_percent", "percent_of_Women_Persondays");
+    private static final List<String> ONGOING_WORKS = List.of(
+        "Number_of_Ongoing_Works", "No_of_Ongoing_Works", "Ongoing_Works", "no_of_ongoing_works",
+        "OngoingWorks", "Number_of_works_ongoing", "Works_Ongoing");
+    private static final List<String> COMPLETED_WORKS = List.of(
+        "Number_of_Completed_Works", "No_of_Completed_Works", "Completed_Works", "no_of_completed_works",
+        "CompletedWorks", "Number_of_works_completed", "Works_Completed");
+    // Based on logs, API uses "Average_Wage_rate_per_day_per_person"
+    private static final List<String> AVG_WAGE = List.of(
+        "Average_Wage_rate_per_day_per_person", "avg_wage_rate", "average_wage_rate", "Average_Wage_Rate");
+    // Based on logs, API uses "Wages" (simple field name)
+    private static final List<String> TOTAL_WAGES = List.of(
+        "Wages", "Material_and_skilled_Wages", "total_wages", "Total_Wages", "Material and skilled Wages");
+
+    private final String households;
+    private final String persondays;
+    private final String womenPercent;
+    private final String ongoingWorks;
+    private final String completedWorks;
+    private final String avgWage;
+    private final String totalWages;
+    private final String womenPersondays;
+    private final String scPersondays;
+    private final String stPersondays;
+
+    private RecordMappingPlan(JsonNode sample) {
+        this.households = firstParsable(sample, HOUSEHOLDS);
+        this.persondays = firstParsable(sample, PERSONDAYS);
+        this.womenPercent = firstParsable(sample, WOMEN_PERCENT);
+        this.avgWage = firstParsable(sample, AVG_WAGE);
+        this.totalWages = firstParsable(sample, TOTAL_WAGES);
+        this.womenPersondays = sample.has("Women_Persondays") ? "Women_Persondays" : null;
+        this.scPersondays = sample.has("SC_persondays") ? "SC_persondays" : null;
+        this.stPersondays = sample.has("ST_persondays") ? "ST_persondays" : null;
+
+        // Unknown works columns: fall back to any field mentioning ongoing/completed,
+        // scanned once here rather than on every record
+        String ongoing = firstParsable(sample, ONGOING_WORKS);
+        this.ongoingWorks = ongoing != null ? ongoing : firstParsableContaining(sample, "ongoing");
+        String completed = firstParsable(sample, COMPLETED_WORKS);
+        this.completedWorks = completed != null ? completed : firstParsableContaining(sample, "completed");
+    }
+
+    public static RecordMappingPlan resolve(JsonNode sampleRecord) {
+        return new RecordMappingPlan(sampleRecord);
+    }
+
+    public PerformanceRecord map(JsonNode record) {
+        PerformanceRecord pr = new PerformanceRecord();
+        pr.setFinYear(text(record.get("fin_year")));
+        pr.setMonth(text(record.get("month")));
+        pr.setStateName(text(record.get("state_name")));
+        pr.setDistrictName(text(record.get("district_name")));
+        pr.setHouseholdsWorked(parseLong(get(record, households)));
+
+        Long persondayCount = parseLong(get(record, persondays));
+        Long womenPersondayCount = womenPersondays != null ? parseLong(record.get(womenPersondays)) : null;
+        if (persondays == null) {
+            // No total column: approximate from Women_Persondays + SC_persondays + ST_persondays
+            Long sc = scPersondays != null ? parseLong(record.get(scPersondays)) : null;
+            Long st = stPersondays != null ? parseLong(record.get(stPersondays)) : null;
+            long sum = (womenPersondayCount != null ? womenPersondayCount : 0)
+                + (sc != null ? sc : 0) + (st != null ? st : 0);
+            if (sum > 0) persondayCount = sum;
+        }
+        pr.setPersondaysGenerated(persondayCount);
+
+        Double percent = parseDouble(get(record, womenPercent));
+        if (percent == null && womenPersondayCount != null && persondayCount != null && persondayCount > 0) {
+            percent = (womenPersondayCount.doubleValue() / persondayCount.doubleValue()) * 100.0;
+        }
+        pr.setWomenPersondaysPercent(percent);
+
+        pr.setNoOfOngoingWorks(parseInt(get(record, ongoingWorks)));
+        pr.setNoOfCompletedWorks(parseInt(get(record, completedWorks)));
+        pr.setAvgWageRate(parseDouble(get(record, avgWage)));
+        pr.setTotalWages(parseDouble(get(record, totalWages)));
+        return pr;
+    }
+
+    /** Target fields with no upstream column in this response. */
+    public List<String> unmappedFields() {
+        List<String> missing = new ArrayList<>();
+        if (households == null) missing.add("households_worked");
+        if (persondays == null && womenPersondays == null && scPersondays == null && stPersondays == null) {
+            missing.add("persondays_generated");
+        }
+        if (womenPercent == null && womenPersondays == null) missing.add("women_persondays_percent");
+        if (ongoingWorks == null) missing.add("no_of_ongoing_works");
+        if (completedWorks == null) missing.add("no_of_completed_works");
+        if (avgWage == null) missing.add("avg_wage_rate");
+        if (totalWages == null) missing.add("total_wages");
+        return missing;
+    }
+
+    @Override
+    public String toString() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("households_worked", households);
+        columns.put("persondays_generated", persondays != null ? persondays : "sum(Women,SC,ST persondays)");
+        columns.put("women_persondays_percent", womenPercent != null ? womenPercent : womenPersondays);
+        columns.put("no_of_ongoing_works", ongoingWorks);
+        columns.put("no_of_completed_works", completedWorks);
+        columns.put("avg_wage_rate", avgWage);
+        columns.put("total_wages", totalWages);
+        return "RecordMappingPlan" + columns;
+    }
+
+    private static JsonNode get(JsonNode record, String field) {
+        return field == null ? null : record.get(field);
+    }
+
+    private static String firstParsable(JsonNode sample, List<String> aliases) {
+        String firstPresent = null;
+        for (String alias : aliases) {
+            JsonNode value = sample.get(alias);
+            if (value == null) continue;
+            if (parseDouble(value) != null) return alias;
+            if (firstPresent == null) firstPresent = alias;
+        }
+        return firstPresent;
+    }
+
+    private static String firstParsableContaining(JsonNode sample, String fragment) {
+        Iterator<String> names = sample.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (name.toLowerCase().contains(fragment) && parseInt(sample.get(name)) != null) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private static String text(JsonNode value) {
+        return (value != null && !value.isNull()) ? value.asText() : null;
+    }
+
+    static Long parseLong(JsonNode value) {
+        if (value == null || value.isNull()) return null;
+        if (value.isIntegralNumber()) return value.longValue();
+        if (!value.isTextual()) return null;
+        String s = value.textValue();
+        long result = 0;
+        int digits = 0;
+        boolean negative = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                // 18 digits always fit in a long; longer values are rejected like parseLong overflow
+                if (++digits > 18) return null;
+                result = result * 10 + (c - '0');
+            } else if (c == ',' || Character.isWhitespace(c)) {
+                continue;
+            } else if (c == '-' && digits == 0 && !negative) {
+                negative = true;
+            } else {
+                return null;
+            }
+        }
+        if (digits == 0) return null;
+        return negative ? -result : result;
+    }
+
+    static Integer parseInt(JsonNode value) {
+        Long parsed = parseLong(value);
+        if (parsed == null || parsed < Integer.MIN_VALUE || parsed > Integer.MAX_VALUE) return null;
+        return parsed.intValue();
+    }
+
+    static Double parseDouble(JsonNode value) {
+        if (value == null || value.isNull()) return null;
+        if (value.isNumber()) return value.doubleValue();
+        if (!value.isTextual()) return null;
+        String s = value.textValue();
+        // Plain decimals with up to 15 significant digits are exact as mantissa / 10^scale
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        boolean negative = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (mantissa == 0 && c == '0' && scale < 0) continue;
+                if (++digits > 15) return parseDoubleSlow(s);
+                mantissa = mantissa * 10 + (c - '0');
+                if (scale >= 0) scale++;
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else if (c == ',' || Character.isWhitespace(c)) {
+                continue;
+            } else if (c == '-' && digits == 0 && !negative) {
+                negative = true;
+            } else {
+                return parseDoubleSlow(s);
+            }
+        }
+        if (digits == 0 && s.indexOf('0') < 0) return null;
+        double result = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+        return negative ? -result : result;
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static Double parseDoubleSlow(String s) {
+        try {
+            String str = s.replace(",", "").trim();
+            return str.isEmpty() ? null : Double.parseDouble(str);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.mgnrega.backend.service;
+
+import com.mgnrega.backend.entity.RequestFrequency;
+import com.mgnrega.backend.repository.RequestFrequencyRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts /api/performance requests per normalized query in memory and adds
+ * the counts to request_frequencies periodically, so the warm-up after a
+ * deploy knows which districts are popular. Counting is approximate: a hit
+ * racing with a flush may be dropped.
+ */
+@Service
+public class RequestFrequencyTracker {
+    private static final Logger logger = LoggerFactory.getLogger(RequestFrequencyTracker.class);
+    private static final String UPSERT_SQL =
+        "INSERT INTO request_frequencies (request_key, state_name, district_name, month, fin_year, record_limit, hit_count, last_requested_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT (request_key) DO UPDATE SET " +
+        "hit_count = request_frequencies.hit_count + EXCLUDED.hit_count, " +
+        "state_name = EXCLUDED.state_name, district_name = EXCLUDED.district_name, " +
+        "month = EXCLUDED.month, fin_year = EXCLUDED.fin_year, " +
+        "last_requested_at = EXCLUDED.last_requested_at";
+
+    private static final class Pending {
+        final String state;
+        final String district;
+        final String month;
+        final String year;
+        final String limit;
+        final LongAdder count = new LongAdder();
+        volatile long lastRequestedAtMs;
+
+        Pending(String state, String district, String month, String year, String limit) {
+            this.state = state;
+            this.district = district;
+            this.month = month;
+            this.year = year;
+            this.limit = limit;
+        }
+    }
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final RequestFrequencyRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean useDatabase;
+    private final int maxPendingKeys;
+
+    public RequestFrequencyTracker(RequestFrequencyRepository repository,
+                                   JdbcTemplate jdbcTemplate,
+                                   @Value("${app.useDatabase:true}") boolean useDatabase,
+                                   @Value("${app.requestStatsMaxPendingKeys:10000}") int maxPendingKeys) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.useDatabase = useDatabase;
+        this.maxPendingKeys = maxPendingKeys;
+    }
+
+    public void record(String state, String district, String month, String year, String limit) {
+        // Only district queries can be answered from the database at warm-up
+        if (!useDatabase || state == null || state.isBlank() || district == null || district.isBlank()) return;
+        String key = keyOf(state, district, month, year, limit);
+        Pending entry = pending.get(key);
+        if (entry == null) {
+            // A flood of one-off queries must not grow this map without bound
+            if (pending.size() >= maxPendingKeys) return;
+            entry = pending.computeIfAbsent(key, k -> new Pending(state, district, month, year, limit));
+        }
+        entry.count.increment();
+        entry.lastRequestedAtMs = System.currentTimeMillis();
+    }
+
+    // Also on shutdown so a redeploy keeps the counts from its last minute
+    @PreDestroy
+    @Scheduled(initialDelayString = "${app.requestStatsFlushMs:60000}", fixedDelayString = "${app.requestStatsFlushMs:60000}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+        List<Object[]> rows = new ArrayList<>();
+        for (String key : pending.keySet()) {
+            Pending entry = pending.remove(key);
+            if (entry == null) continue;
+            rows.add(new Object[] {
+                key, entry.state, entry.district, entry.month, entry.year, entry.limit,
+                entry.count.sum(), new Timestamp(entry.lastRequestedAtMs)
+            });
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+            logger.debug("Flushed request counts for {} keys", rows.size());
+        } catch (Exception e) {
+            logger.warn("⚠️ Could not save request counts for {} keys: {}", rows.size(), e.getMessage());
+        }
+    }
+
+    /** Most requested queries seen within the lookback window, most popular first. */
+    public List<RequestFrequency> topRequested(int limit, int lookbackDays) {
+        if (!useDatabase || limit <= 0) return List.of();
+        return repository.findByLastRequestedAtAfterOrderByHitCountDesc(
+            LocalDateTime.now().minusDays(lookbackDays), PageRequest.of(0, limit));
+    }
+
+    public static String keyOf(String state, String district, String month, String year, String limit) {
+        return normalize(state) + "|" + normalize(district) + "|" + normalize(month) + "|" + normalize(year) + "|" + normalize(limit);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase();
+    }
+}
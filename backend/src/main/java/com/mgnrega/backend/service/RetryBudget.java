@@ -0,0 +1,39 @@
+package com.mgnrega.backend.service;
+
+/**
+ * Caps retries across all callers: each first attempt earns {@code ratio} of a
+ * retry, plus a trickle of {@code minPerSecond} so low traffic can still retry.
+ * During an outage retries stop once the balance is spent instead of
+ * multiplying the load on a failing upstream.
+ */
+public class RetryBudget {
+    private static final double MAX_BALANCE = 10.0;
+
+    private final double ratio;
+    private final double minPerSecond;
+    private double balance = MAX_BALANCE;
+    private long lastRefillNanos = System.nanoTime();
+
+    public RetryBudget(double ratio, double minPerSecond) {
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+    }
+
+    public synchronized void onRequest() {
+        refill();
+        balance = Math.min(MAX_BALANCE, balance + ratio);
+    }
+
+    public synchronized boolean tryRetry() {
+        refill();
+        if (balance < 1.0) return false;
+        balance -= 1.0;
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        balance = Math.min(MAX_BALANCE, balance + (now - lastRefillNanos) / 1_000_000_000.0 * minPerSecond);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,81 @@
+package com.mgnrega.backend.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one: the first caller runs
+ * the work, later callers wait (bounded) for its result instead of repeating it.
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxWaitMs how long a follower waits for the leader
+     * @param fallback  used by followers that time out or whose leader failed
+     */
+    public V execute(K key, Supplier<V> work, long maxWaitMs, Supplier<V> fallback) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, mine);
+        if (leader == null) {
+            try {
+                V value = work.get();
+                mine.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        }
+        try {
+            return leader.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback.get();
+        } catch (TimeoutException | ExecutionException e) {
+            return fallback.get();
+        }
+    }
+
+    /**
+     * Same coalescing for work that completes asynchronously; no thread waits.
+     * Sync and async callers of one key share the same flight.
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> work,
+                                             long maxWaitMs, Supplier<V> fallback) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, mine);
+        if (leader == null) {
+            CompletableFuture<V> started;
+            try {
+                started = work.get();
+            } catch (RuntimeException e) {
+                started = CompletableFuture.failedFuture(e);
+            }
+            started.whenComplete((value, error) -> {
+                inFlight.remove(key, mine);
+                if (error != null) {
+                    mine.completeExceptionally(error);
+                } else {
+                    mine.complete(value);
+                }
+            });
+            return mine;
+        }
+        // copy() so a timed-out follower does not complete the shared future for everyone
+        return leader.copy()
+            .orTimeout(maxWaitMs, TimeUnit.MILLISECONDS)
+            .exceptionally(error -> fallback.get());
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,39 @@
+package com.mgnrega.backend.service;
+
+import com.mgnrega.backend.repository.StatePeriodRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+/**
+ * Fills state_period_rollups from the existing rows the first time the table
+ * is there. From then on ingestion keeps it current.
+ */
+@Service
+public class StatePeriodRollupBackfill implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(StatePeriodRollupBackfill.class);
+
+    private final StatePeriodRollupRepository rollups;
+    private final DataVersions dataVersions;
+
+    public StatePeriodRollupBackfill(StatePeriodRollupRepository rollups, DataVersions dataVersions) {
+        this.rollups = rollups;
+        this.dataVersions = dataVersions;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            if (!rollups.isEmpty()) return;
+            int built = rollups.rebuildAll();
+            if (built > 0) {
+                logger.info("✅ Built {} state/month rollups from existing performance records", built);
+                dataVersions.changedAll();
+            }
+        } catch (Exception e) {
+            logger.error("❌ Could not build state/month rollups: {}", e.getMessage());
+        }
+    }
+}
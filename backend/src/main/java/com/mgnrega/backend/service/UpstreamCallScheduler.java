@@ -0,0 +1,197 @@
+package com.mgnrega.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out data.gov.in permits by priority. Waiting interactive requests
+ * always get the next permit ahead of queued refresh and bulk work, and the
+ * background classes may not take the last few permits of the bucket, so a
+ * long harvest cannot leave user-facing misses with nothing to spend.
+ */
+@Component
+public class UpstreamCallScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamCallScheduler.class);
+    private static final String RATE_LIMIT_KEY = "datagov-api";
+
+    /** Highest first. */
+    public enum Priority { INTERACTIVE, REFRESH, BULK }
+
+    private final RateLimiter rateLimiter;
+    private final Map<Priority, Integer> headroom = new EnumMap<>(Priority.class);
+    private final Map<Priority, Queue<Waiter>> queues = new EnumMap<>(Priority.class);
+    private final Map<Priority, ClassStats> stats = new EnumMap<>(Priority.class);
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "upstream-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Only touched on the dispatcher thread: when the earliest pending wake-up is due
+    private long wakeupAtNanos = Long.MAX_VALUE;
+
+    public UpstreamCallScheduler(RateLimiter rateLimiter,
+                                 @Value("${datagov.refreshReservePermits:1}") int refreshReserve,
+                                 @Value("${datagov.bulkReservePermits:3}") int bulkReserve) {
+        this.rateLimiter = rateLimiter;
+        headroom.put(Priority.INTERACTIVE, 0);
+        headroom.put(Priority.REFRESH, refreshReserve);
+        headroom.put(Priority.BULK, Math.max(refreshReserve, bulkReserve));
+        for (Priority p : Priority.values()) {
+            queues.put(p, new ConcurrentLinkedQueue<>());
+            stats.put(p, new ClassStats());
+        }
+    }
+
+    /**
+     * Completes with true once a permit is granted to this caller, or with
+     * false after {@code timeoutMs}. Never completes exceptionally.
+     */
+    public CompletableFuture<Boolean> acquire(Priority priority, long timeoutMs) {
+        ClassStats classStats = stats.get(priority);
+        classStats.requested.increment();
+        if (!waitingAtOrAbove(priority) && rateLimiter.tryAcquire(RATE_LIMIT_KEY, headroom.get(priority))) {
+            classStats.granted.increment();
+            return CompletableFuture.completedFuture(true);
+        }
+        Waiter waiter = new Waiter(System.nanoTime());
+        classStats.queued.incrementAndGet();
+        waiter.future.whenComplete((granted, error) -> {
+            classStats.queued.decrementAndGet();
+            if (Boolean.TRUE.equals(granted)) {
+                classStats.granted.increment();
+                classStats.recordWait(System.nanoTime() - waiter.enqueuedAtNanos);
+            } else {
+                classStats.timedOut.increment();
+            }
+        });
+        waiter.future.completeOnTimeout(false, timeoutMs, TimeUnit.MILLISECONDS);
+        queues.get(priority).add(waiter);
+        dispatcher.execute(this::dispatch);
+        return waiter.future;
+    }
+
+    /** Blocking form of {@link #acquire}; an interrupted caller gives its place up. */
+    public boolean await(Priority priority, long timeoutMs) throws InterruptedException {
+        CompletableFuture<Boolean> permit = acquire(priority, timeoutMs);
+        try {
+            return permit.get();
+        } catch (InterruptedException e) {
+            permit.complete(false);
+            throw e;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("availablePermits", rateLimiter.availablePermits(RATE_LIMIT_KEY));
+        for (Priority p : Priority.values()) {
+            Map<String, Object> classStats = stats.get(p).snapshot();
+            classStats.put("reservedPermits", headroom.get(p));
+            result.put(p.name().toLowerCase(), classStats);
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void close() {
+        dispatcher.shutdownNow();
+    }
+
+    // Grants permits strictly in priority order; a class short of headroom blocks the classes below it
+    private void dispatch() {
+        for (Priority p : Priority.values()) {
+            Queue<Waiter> queue = queues.get(p);
+            Waiter next;
+            while ((next = queue.peek()) != null) {
+                if (next.future.isDone()) {
+                    queue.poll();
+                    continue;
+                }
+                if (!rateLimiter.tryAcquire(RATE_LIMIT_KEY, headroom.get(p))) {
+                    scheduleWakeup(rateLimiter.nanosUntilAvailable(RATE_LIMIT_KEY, headroom.get(p)));
+                    return;
+                }
+                queue.poll();
+                if (!next.future.complete(true)) {
+                    // Timed out a moment ago; the permit is spent either way
+                    logger.debug("Upstream permit granted after {} waiter gave up", p);
+                }
+            }
+        }
+    }
+
+    private void scheduleWakeup(long delayNanos) {
+        long at = System.nanoTime() + Math.max(delayNanos, TimeUnit.MILLISECONDS.toNanos(1));
+        if (at - wakeupAtNanos >= 0) return;
+        wakeupAtNanos = at;
+        dispatcher.schedule(() -> {
+            wakeupAtNanos = Long.MAX_VALUE;
+            dispatch();
+        }, at - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private boolean waitingAtOrAbove(Priority priority) {
+        for (Priority p : Priority.values()) {
+            if (stats.get(p).queued.get() > 0) return true;
+            if (p == priority) return false;
+        }
+        return false;
+    }
+
+    private static final class Waiter {
+        final long enqueuedAtNanos;
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        Waiter(long enqueuedAtNanos) {
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+    }
+
+    private static final class ClassStats {
+        final LongAdder requested = new LongAdder();
+        final LongAdder granted = new LongAdder();
+        final LongAdder timedOut = new LongAdder();
+        final AtomicInteger queued = new AtomicInteger();
+        final LongAdder waitedGrants = new LongAdder();
+        final LongAdder totalWaitNanos = new LongAdder();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+
+        void recordWait(long nanos) {
+            waitedGrants.increment();
+            totalWaitNanos.add(nanos);
+            maxWaitNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> s = new LinkedHashMap<>();
+            long waited = waitedGrants.sum();
+            s.put("queueDepth", queued.get());
+            s.put("requested", requested.sum());
+            s.put("granted", granted.sum());
+            s.put("timedOut", timedOut.sum());
+            s.put("queuedGrants", waited);
+            s.put("avgWaitMs", waited == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum() / waited));
+            s.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+            return s;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.mgnrega.backend.service;
+
+import java.io.IOException;
+
+/**
+ * No data.gov.in permit was granted within the caller's wait, so the call was
+ * never sent. Not an upstream failure: it is neither retried nor counted by
+ * the circuit breaker.
+ */
+public class UpstreamPermitException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public UpstreamPermitException(UpstreamCallScheduler.Priority priority, long waitMs) {
+        super("No " + priority.name().toLowerCase() + " upstream permit within " + waitMs + " ms");
+    }
+}
@@ -0,0 +1,143 @@
+package com.mgnrega.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(OutputCaptureExtension.class)
+class InboundTrafficFilterTest {
+    // One request per client: a second one from the same client is turned away
+    private final InboundTrafficFilter filter = new InboundTrafficFilter(1, 1, "X-Forwarded-For", "trusted-key",
+        "127.0.0.1, 10.0.0.0/8, bad/entry", 20, 2, 200, 2000);
+
+    @Test
+    void ipHeaderFromAnUntrustedPeerIsIgnored() throws Exception {
+        assertThat(status(request("203.0.113.7", "198.51.100.1"))).isEqualTo(200);
+
+        assertThat(status(request("203.0.113.7", "198.51.100.2"))).isEqualTo(429);
+    }
+
+    @Test
+    void clientIsTheLastHopThatIsNotATrustedProxy() throws Exception {
+        assertThat(status(request("10.1.2.3", "198.51.100.1, 10.9.9.9"))).isEqualTo(200);
+
+        // Hops before the client are client-supplied and change nothing
+        assertThat(status(request("10.4.5.6", "192.0.2.99, 198.51.100.1"))).isEqualTo(429);
+        assertThat(status(request("127.0.0.1", "198.51.100.1, 198.51.100.2"))).isEqualTo(200);
+    }
+
+    @Test
+    void peerOutsideTheTrustedRangeIsNotAProxy() throws Exception {
+        assertThat(status(request("11.0.0.1", "198.51.100.1"))).isEqualTo(200);
+
+        assertThat(status(request("11.0.0.1", "198.51.100.2"))).isEqualTo(429);
+    }
+
+    @Test
+    void hostNamesInTheHeaderAreKeptAsTheyAre() throws Exception {
+        assertThat(status(request("10.0.0.1", "localhost"))).isEqualTo(200);
+
+        assertThat(status(request("10.0.0.1", "localhost"))).isEqualTo(429);
+    }
+
+    @Test
+    void onlyConfiguredApiKeysGetABucketOfTheirOwn() throws Exception {
+        MockHttpServletRequest first = request("203.0.113.7", null);
+        assertThat(status(first)).isEqualTo(200);
+
+        MockHttpServletRequest unknownKey = request("203.0.113.7", null);
+        unknownKey.addHeader("X-API-Key", "made-up");
+        assertThat(status(unknownKey)).isEqualTo(429);
+
+        MockHttpServletRequest trustedKey = request("203.0.113.7", null);
+        trustedKey.addHeader("X-API-Key", " trusted-key ");
+        assertThat(status(trustedKey)).isEqualTo(200);
+    }
+
+    @Test
+    void untrustedPrivatePeerSendingTheHeaderIsWarnedAboutOnce(CapturedOutput output) throws Exception {
+        status(request("192.168.1.20", "198.51.100.1"));
+        status(request("192.168.1.21", "198.51.100.1"));
+
+        assertThat(output.getOut().split("not in app.trustedProxies", -1)).hasSize(2);
+        assertThat(output.getOut()).contains("192.168.1.20");
+    }
+
+    @Test
+    void requestsAreCountedAgainstTheMappingThatServesThem() throws Exception {
+        InboundTrafficFilter generous = new InboundTrafficFilter(600, 100, "", "", "", 20, 2, 200, 2000);
+        registerEndpoints(generous, "/api/items/{id}", "/api/items/latest", "/api/items");
+
+        status(generous, request("/api/items/42", "203.0.113.7", null));
+        status(generous, request("/api/items/latest", "203.0.113.7", null));
+        status(generous, request("/api/items/", "203.0.113.7", null));
+        status(generous, request("/api/unmapped", "203.0.113.7", null));
+
+        assertThat(completed(generous, "/api/items/{id}")).isEqualTo(1L);
+        assertThat(completed(generous, "/api/items/latest")).isEqualTo(1L);
+        assertThat(completed(generous, "/api/items")).isEqualTo(1L);
+        assertThat(completed(generous, "other")).isEqualTo(1L);
+    }
+
+    @Test
+    void healthChecksAreNeverLimited() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(status(request("/api/health", "203.0.113.7", null))).isEqualTo(200);
+        }
+    }
+
+    private int status(MockHttpServletRequest request) throws Exception {
+        return status(filter, request);
+    }
+
+    private static int status(InboundTrafficFilter filter, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    private static MockHttpServletRequest request(String remote, String forwarded) {
+        return request("/api/performance", remote, forwarded);
+    }
+
+    private static MockHttpServletRequest request(String uri, String remote, String forwarded) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setRemoteAddr(remote);
+        if (forwarded != null) request.addHeader("X-Forwarded-For", forwarded);
+        return request;
+    }
+
+    private static void registerEndpoints(InboundTrafficFilter filter, String... paths) {
+        RequestMappingHandlerMapping mapping = mock(RequestMappingHandlerMapping.class);
+        Map<RequestMappingInfo, HandlerMethod> methods = new HashMap<>();
+        for (String path : paths) {
+            methods.put(RequestMappingInfo.paths(path).build(), mock(HandlerMethod.class));
+        }
+        when(mapping.getHandlerMethods()).thenReturn(methods);
+        ApplicationContext context = mock(ApplicationContext.class);
+        when(context.getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class)).thenReturn(mapping);
+        filter.registerEndpoints(new ContextRefreshedEvent(context));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object completed(InboundTrafficFilter filter, String endpoint) {
+        Map<String, Object> endpoints = (Map<String, Object>) filter.stats().get("endpoints");
+        return ((Map<String, Object>) endpoints.get(endpoint)).get("completed");
+    }
+}
@@ -0,0 +1,97 @@
+package com.mgnrega.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedCacheTest {
+    private static final long TTL_MS = 60_000;
+
+    // Room for three entries of weight 10
+    private final BoundedCache<String, String> cache = new BoundedCache<>(TTL_MS, 1_000, 30, (k, v) -> 10);
+
+    @Test
+    void newKeyAskedForMoreOftenDisplacesTheLeastRecentlyUsed() {
+        fill();
+        cache.get("a");
+        cache.get("d");
+        cache.get("d");
+
+        cache.put("d", "D");
+
+        assertThat(cache.get("d")).isEqualTo("D");
+        assertThat(cache.get("a")).isEqualTo("A");
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.stats()).containsEntry("evictions", 1L).containsEntry("weightBytes", 30L);
+    }
+
+    @Test
+    void oneOffKeyIsNotAdmittedOverAPopularVictim() {
+        fill();
+        cache.get("a");
+        cache.get("a");
+
+        cache.put("e", "E");
+
+        assertThat(cache.get("e")).isNull();
+        assertThat(cache.get("a")).isEqualTo("A");
+        assertThat(cache.stats()).containsEntry("rejections", 1L).containsEntry("size", 3);
+    }
+
+    @Test
+    void residentKeyIsReplacedWithoutAnAdmissionCheck() {
+        fill();
+        cache.put("b", "B2");
+
+        assertThat(cache.get("b")).isEqualTo("B2");
+        assertThat(cache.stats()).containsEntry("rejections", 0L).containsEntry("weightBytes", 30L);
+    }
+
+    @Test
+    void entryHeavierThanTheWholeCacheIsRejected() {
+        BoundedCache<String, String> small = new BoundedCache<>(TTL_MS, 0, 30, (k, v) -> v.length());
+
+        small.put("big", "x".repeat(31));
+
+        assertThat(small.get("big")).isNull();
+        assertThat(small.stats()).containsEntry("rejections", 1L).containsEntry("weightBytes", 0L);
+    }
+
+    @Test
+    void expiredEntryIsOnlyServedAsStaleWithinTheGracePeriod() {
+        long now = System.currentTimeMillis();
+        cache.putUntil("recent", "R", now - 10);
+        cache.putUntil("old", "O", now - 10_000);
+
+        assertThat(cache.get("recent")).isNull();
+        assertThat(cache.getStale("recent")).isEqualTo("R");
+        assertThat(cache.getStale("old")).isNull();
+    }
+
+    @Test
+    void invalidateReleasesTheEntrysWeight() {
+        fill();
+        cache.invalidate("a");
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.stats()).containsEntry("weightBytes", 20L).containsEntry("size", 2);
+    }
+
+    @Test
+    void sketchCountsAreCappedAndFadeWithAge() {
+        BoundedCache.FrequencySketch sketch = new BoundedCache.FrequencySketch(64);
+        for (int i = 0; i < 20; i++) sketch.increment("hot");
+        assertThat(sketch.frequency("hot")).isEqualTo(15);
+        assertThat(sketch.frequency("cold")).isZero();
+
+        // 10 * width additions halve every counter
+        for (int i = 0; i < 640; i++) sketch.increment("key" + i);
+        assertThat(sketch.frequency("hot")).isLessThan(15);
+    }
+
+    private void fill() {
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+    }
+}
@@ -0,0 +1,84 @@
+package com.mgnrega.backend.service;
+
+import com.mgnrega.backend.entity.HarvestCheckpoint;
+import com.mgnrega.backend.repository.HarvestCheckpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkHarvesterTest {
+    private static final int PAGE_SIZE = 100;
+
+    private PerformanceDataService dataService;
+    private HarvestCheckpointRepository checkpoints;
+    private BulkHarvester harvester;
+
+    @BeforeEach
+    void setUp() {
+        dataService = mock(PerformanceDataService.class);
+        checkpoints = mock(HarvestCheckpointRepository.class);
+        when(checkpoints.findById(anyString())).thenReturn(Optional.empty());
+        when(checkpoints.save(any(HarvestCheckpoint.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        harvester = new BulkHarvester(dataService, checkpoints, "resource", PAGE_SIZE, 2, 1, 0);
+    }
+
+    @Test
+    void checkpointAdvancesOnlyOverContiguousFinishedPages() {
+        HarvestCheckpoint checkpoint = checkpoint();
+        BulkHarvester.PageTracker tracker = harvester.new PageTracker(checkpoint);
+
+        tracker.completed(200, 7);
+        tracker.completed(100, 5);
+        assertThat(checkpoint.getNextOffset()).isZero();
+        assertThat(tracker.isDone(100)).isTrue();
+        assertThat(tracker.isDone(0)).isFalse();
+
+        tracker.completed(0, 3);
+        assertThat(checkpoint.getNextOffset()).isEqualTo(300);
+        assertThat(checkpoint.getRecordsSaved()).isEqualTo(15);
+        assertThat(tracker.isDone(200)).isTrue();
+        assertThat(tracker.isDone(300)).isFalse();
+    }
+
+    @Test
+    void harvestWithoutTotalContinuesPastPagesWhoseRecordsWereAllSkipped() throws Exception {
+        when(dataService.ingestFromUpstream(anyString(), anyMap(), any(), anyLong()))
+            .thenReturn(new IngestResult(10, 10, -1))
+            .thenReturn(new IngestResult(0, 10, -1))
+            .thenReturn(new IngestResult(4, 10, -1))
+            .thenReturn(new IngestResult(0, 0, -1));
+
+        HarvestCheckpoint checkpoint = harvester.start("2024-2025");
+
+        // Every save is of this one checkpoint, so the match holds once it has completed
+        verify(checkpoints, timeout(5000).atLeastOnce())
+            .save(argThat(c -> c.getStatus() == HarvestCheckpoint.Status.COMPLETED));
+        assertThat(checkpoint.getNextOffset()).isEqualTo(4 * PAGE_SIZE);
+        assertThat(checkpoint.getRecordsSaved()).isEqualTo(14);
+        verify(dataService, times(4)).ingestFromUpstream(anyString(), argThat((Map<String, String> q) ->
+            "2024-2025".equals(q.get("filters[fin_year]"))), any(), anyLong());
+    }
+
+    private static HarvestCheckpoint checkpoint() {
+        HarvestCheckpoint checkpoint = new HarvestCheckpoint();
+        checkpoint.setJobKey("resource:all");
+        checkpoint.setPageSize(PAGE_SIZE);
+        checkpoint.setNextOffset(0L);
+        checkpoint.setRecordsSaved(0L);
+        return checkpoint;
+    }
+}
@@ -0,0 +1,56 @@
+package com.mgnrega.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachedResponseTest {
+
+    @Test
+    void smallBodiesAreNotCompressed() {
+        CachedResponse response = CachedResponse.of("{\"records\":[]}");
+
+        assertThat(response.gzipBody()).isNull();
+        assertThat(new String(response.body(), StandardCharsets.UTF_8)).isEqualTo("{\"records\":[]}");
+    }
+
+    @Test
+    void largeBodiesCarryAGzipVariantOfTheSameBytes() throws IOException {
+        String json = "{\"records\":[" + "{\"district\":\"Agra\",\"month\":\"Jan\"},".repeat(100) + "{}]}";
+        CachedResponse response = CachedResponse.of(json);
+
+        assertThat(response.gzipBody()).isNotNull().hasSizeLessThan(response.body().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.gzipBody()))) {
+            assertThat(in.readAllBytes()).isEqualTo(response.body());
+        }
+        assertThat(response.weight()).isGreaterThan(response.body().length + response.gzipBody().length);
+    }
+
+    @Test
+    void etagIsWeakAndFollowsTheContent() {
+        CachedResponse first = CachedResponse.of("{\"a\":1}");
+
+        assertThat(first.etag()).startsWith("W/\"").endsWith("\"").hasSize(2 + 1 + 32 + 1);
+        assertThat(CachedResponse.of("{\"a\":1}").etag()).isEqualTo(first.etag());
+        assertThat(CachedResponse.of("{\"a\":2}").etag()).isNotEqualTo(first.etag());
+    }
+
+    @Test
+    void ifNoneMatchComparesWeaklyAndAcceptsListsAndWildcard() {
+        CachedResponse response = CachedResponse.of("{\"a\":1}");
+        String strong = response.etag().substring(2);
+
+        assertThat(response.matches(response.etag())).isTrue();
+        assertThat(response.matches(strong)).isTrue();
+        assertThat(response.matches("\"other\", " + strong)).isTrue();
+        assertThat(response.matches("*")).isTrue();
+        assertThat(response.matches("\"other\"")).isFalse();
+        assertThat(response.matches(" ")).isFalse();
+        assertThat(response.matches(null)).isFalse();
+    }
+}
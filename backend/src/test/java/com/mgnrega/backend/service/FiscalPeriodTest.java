@@ -0,0 +1,63 @@
+package com.mgnrega.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FiscalPeriodTest {
+
+    @Test
+    void januaryToMarchBelongToTheSecondYearOfTheFinancialYear() {
+        assertThat(FiscalPeriod.periodKey("2024-2025", "Apr")).isEqualTo(202404);
+        assertThat(FiscalPeriod.periodKey("2024-2025", "Dec")).isEqualTo(202412);
+        assertThat(FiscalPeriod.periodKey("2024-2025", "Jan")).isEqualTo(202501);
+        assertThat(FiscalPeriod.periodKey("2024-2025", "March")).isEqualTo(202503);
+    }
+
+    @Test
+    void monthNamesAreMatchedOnTheirFirstThreeLettersInAnyCase() {
+        assertThat(FiscalPeriod.periodKey(" 2023-2024 ", " SEPTEMBER ")).isEqualTo(202309);
+        assertThat(FiscalPeriod.monthNumber("feb")).isEqualTo(2);
+        assertThat(FiscalPeriod.monthNumber("Fe")).isEqualTo(-1);
+        assertThat(FiscalPeriod.monthNumber("Smarch")).isEqualTo(-1);
+    }
+
+    @Test
+    void unparseableInputHasNoKey() {
+        assertThat(FiscalPeriod.periodKey(null, "Jan")).isNull();
+        assertThat(FiscalPeriod.periodKey("FY24", "Jan")).isNull();
+        assertThat(FiscalPeriod.periodKey("2024-2025", null)).isNull();
+        assertThat(FiscalPeriod.periodKey("2024-2025", "13")).isNull();
+    }
+
+    @Test
+    void keysOrderChronologicallyAcrossTheYearBoundary() {
+        assertThat(FiscalPeriod.periodKey("2024-2025", "Mar"))
+            .isGreaterThan(FiscalPeriod.periodKey("2024-2025", "Dec"))
+            .isLessThan(FiscalPeriod.periodKey("2025-2026", "Apr"));
+        assertThat(FiscalPeriod.periodKey(LocalDate.of(2025, 1, 31))).isEqualTo(202501);
+    }
+
+    @Test
+    void arithmeticWrapsAroundDecember() {
+        assertThat(FiscalPeriod.next(202411)).isEqualTo(202412);
+        assertThat(FiscalPeriod.next(202412)).isEqualTo(202501);
+        assertThat(FiscalPeriod.minusMonths(202503, 3)).isEqualTo(202412);
+        assertThat(FiscalPeriod.minusMonths(202501, 13)).isEqualTo(202312);
+        assertThat(FiscalPeriod.minusMonths(202406, 0)).isEqualTo(202406);
+        assertThat(FiscalPeriod.monthsBetween(202411, 202502)).isEqualTo(3);
+        assertThat(FiscalPeriod.monthsBetween(202502, 202411)).isEqualTo(-3);
+    }
+
+    @Test
+    void finYearAndMonthLabelRoundTripTheUpstreamStrings() {
+        assertThat(FiscalPeriod.finYear(202503)).isEqualTo("2024-2025");
+        assertThat(FiscalPeriod.finYear(202504)).isEqualTo("2025-2026");
+        assertThat(FiscalPeriod.monthLabel(202501, "Feb")).isEqualTo("Jan");
+        assertThat(FiscalPeriod.monthLabel(202501, "FEB")).isEqualTo("JAN");
+        assertThat(FiscalPeriod.monthLabel(202509, "February")).isEqualTo("September");
+        assertThat(FiscalPeriod.monthLabel(202509, null)).isEqualTo("Sep");
+    }
+}
@@ -0,0 +1,55 @@
+package com.mgnrega.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NameCanonicalizerTest {
+    private final NameCanonicalizer names = new NameCanonicalizer("");
+
+    @Test
+    void caseSpacingAndPunctuationFoldToOneSpelling() {
+        assertThat(names.state("Uttar Pradesh")).isEqualTo("UTTAR PRADESH");
+        assertThat(names.state("  uttar   pradesh ")).isEqualTo("UTTAR PRADESH");
+        assertThat(names.state("Uttar-Pradesh")).isEqualTo("UTTAR PRADESH");
+        assertThat(names.district("UTTAR PRADESH", "Sant Kabir Nagar.")).isEqualTo("SANT KABIR NAGAR");
+        assertThat(names.state("Ｕｔｔａｒ Ｐｒａｄｅｓｈ")).isEqualTo("UTTAR PRADESH");
+    }
+
+    @Test
+    void blankNamesHaveNoCanonicalForm() {
+        assertThat(names.state(null)).isNull();
+        assertThat(names.state("  ")).isNull();
+        assertThat(names.district("UTTAR PRADESH", "().")).isNull();
+    }
+
+    @Test
+    void oldAndShortNamesResolveThroughAliases() {
+        assertThat(names.state("Orissa")).isEqualTo("ODISHA");
+        assertThat(names.state("J&K")).isEqualTo("JAMMU AND KASHMIR");
+        assertThat(names.district("UTTAR PRADESH", "Allahabad")).isEqualTo("PRAYAGRAJ");
+        assertThat(names.district("HARYANA", "gurgaon")).isEqualTo("GURUGRAM");
+        // District aliases are per state
+        assertThat(names.district("BIHAR", "Allahabad")).isEqualTo("ALLAHABAD");
+    }
+
+    @Test
+    void configuredAliasesMayNameTheStateByItsAlias() {
+        NameCanonicalizer configured = new NameCanonicalizer("Orissa/Baleshwar=Balasore, bad alias");
+
+        assertThat(configured.district(configured.state("Odisha"), "Baleshwar")).isEqualTo("BALASORE");
+        assertThat(configured.state("bad alias")).isEqualTo("BAD ALIAS");
+    }
+
+    @Test
+    void upstreamFiltersUseTheLatestSpellingSeen() {
+        assertThat(names.upstreamState("uttar pradesh")).isEqualTo("UTTAR PRADESH");
+
+        names.observe(" Uttar Pradesh ", "Agra");
+
+        assertThat(names.upstreamState("UTTAR PRADESH")).isEqualTo("Uttar Pradesh");
+        assertThat(names.upstreamDistrict("uttar pradesh", "AGRA")).isEqualTo("Agra");
+        assertThat(names.upstreamDistrict("UTTAR PRADESH", "Mathura")).isEqualTo("MATHURA");
+        assertThat(names.upstreamState(" ")).isEqualTo(" ");
+    }
+}
@@ -0,0 +1,100 @@
+package com.mgnrega.backend.service;
+
+import com.mgnrega.backend.service.PerformanceSnapshot.StateBlock;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PerformanceSnapshotTest {
+
+    @Test
+    void rowsAreOrderedNewestPeriodFirstAndUnplaceableRowsDropped() {
+        StateBlock block = StateBlock.build("UTTAR PRADESH", 3, List.of(
+            row("AGRA", "2024-2025", "Apr", 100L),
+            row("MATHURA", "2024-2025", "Jan", 200L),
+            row("AGRA", "2024-2025", "Jan", 300L),
+            row(null, "2024-2025", "Jan", 400L),
+            row("AGRA", "2024-2025", "Sometime", 500L)), Map.of());
+
+        assertThat(block.state()).isEqualTo("UTTAR PRADESH");
+        assertThat(block.rowCount()).isEqualTo(3);
+        assertThat(block.districtNames()).containsExactly("AGRA", "MATHURA");
+        assertThat(block.periodIndex(202501)).isZero();
+        assertThat(block.periodIndex(202404)).isEqualTo(1);
+        assertThat(block.periodIndex(202412)).isEqualTo(-1);
+        assertThat(block.periodIndex(null)).isEqualTo(-1);
+        assertThat(block.finYear(0)).isEqualTo("2024-2025");
+        assertThat(block.month(0)).isEqualTo("Jan");
+    }
+
+    @Test
+    void districtRowFallsBackToTheNewestWhenThePeriodIsMissing() {
+        StateBlock block = StateBlock.build("UTTAR PRADESH", 1, List.of(
+            row("AGRA", "2024-2025", "Apr", 100L),
+            row("AGRA", "2024-2025", "Jan", 300L),
+            row("MATHURA", "2024-2025", "Apr", 200L)), Map.of());
+        int january = block.periodIndex(202501);
+        int april = block.periodIndex(202404);
+
+        assertThat(block.householdsWorked(block.districtRow("AGRA", april))).isEqualTo(100L);
+        assertThat(block.householdsWorked(block.districtRow("AGRA", january))).isEqualTo(300L);
+        assertThat(block.householdsWorked(block.districtRow("MATHURA", january))).isEqualTo(200L);
+        assertThat(block.householdsWorked(block.districtRow("AGRA", -1))).isEqualTo(300L);
+        assertThat(block.districtRow("LUCKNOW", april)).isEqualTo(-1);
+        assertThat(block.districtRow(null, april)).isEqualTo(-1);
+    }
+
+    @Test
+    void averagesComeFromTheRollupTotals() {
+        StateBlock block = StateBlock.build("UTTAR PRADESH", 1, List.of(
+            row("AGRA", "2024-2025", "Apr", 100L),
+            row("AGRA", "2024-2025", "May", 100L)), Map.of(
+            202404, new long[] {300, 3, 40, 2},
+            202405, new long[] {0, 0, 20, 2}));
+        int april = block.periodIndex(202404);
+        int may = block.periodIndex(202405);
+
+        assertThat(block.averagePersondays(april)).isEqualTo(100.0);
+        assertThat(block.averageHouseholds(april)).isEqualTo(20.0);
+        assertThat(block.averagePersondays(may)).isNaN();
+        // The whole history weighs every reporting district equally
+        assertThat(block.averagePersondays(-1)).isEqualTo(100.0);
+        assertThat(block.averageHouseholds(-1)).isEqualTo(15.0);
+    }
+
+    @Test
+    void nullMetricsStayNullBeyondTheFirstBitmapWord() {
+        List<PerformanceSnapshot.Row> rows = new ArrayList<>();
+        String[] months = {"Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec", "Jan", "Feb", "Mar"};
+        for (int year = 2015; year < 2021; year++) {
+            for (String month : months) {
+                // Every third row has no households figure
+                rows.add(row("AGRA", year + "-" + (year + 1), month, rows.size() % 3 == 0 ? null : (long) rows.size()));
+            }
+        }
+        StateBlock block = StateBlock.build("UTTAR PRADESH", 1, rows, Map.of());
+
+        assertThat(block.rowCount()).isEqualTo(72);
+        for (int i = 0; i < rows.size(); i++) {
+            PerformanceSnapshot.Row r = rows.get(i);
+            int row = block.districtRow("AGRA", block.periodIndex(r.period));
+            assertThat(block.householdsWorked(row)).isEqualTo(r.households);
+            assertThat(block.womenPersondaysPercent(row)).isNull();
+        }
+    }
+
+    private static PerformanceSnapshot.Row row(String district, String finYear, String month, Long households) {
+        PerformanceSnapshot.Row r = new PerformanceSnapshot.Row();
+        r.district = district;
+        r.finYear = finYear;
+        r.month = month;
+        Integer period = FiscalPeriod.periodKey(finYear, month);
+        r.period = period == null ? 0 : period;
+        r.households = households;
+        return r;
+    }
+}
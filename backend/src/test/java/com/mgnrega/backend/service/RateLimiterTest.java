@@ -0,0 +1,96 @@
+package com.mgnrega.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimiterTest {
+    // One permit a minute: nothing refills while a test runs
+    private final RateLimiter slow = new RateLimiter(1, 3);
+
+    @Test
+    void burstIsFreeAtOnceAndThenDenied() {
+        assertThat(slow.availablePermits("k")).isEqualTo(3);
+        assertThat(slow.allowRequest("k")).isTrue();
+        assertThat(slow.availablePermits("k")).isEqualTo(2);
+        assertThat(slow.allowRequest("k")).isTrue();
+        assertThat(slow.allowRequest("k")).isTrue();
+
+        assertThat(slow.allowRequest("k")).isFalse();
+        assertThat(slow.availablePermits("k")).isZero();
+        assertThat(slow.nanosUntilAvailable("k", 0))
+            .isPositive()
+            .isLessThanOrEqualTo(TimeUnit.MINUTES.toNanos(1));
+    }
+
+    @Test
+    void keysHaveSeparateBuckets() {
+        for (int i = 0; i < 3; i++) slow.allowRequest("a");
+
+        assertThat(slow.allowRequest("a")).isFalse();
+        assertThat(slow.allowRequest("b")).isTrue();
+    }
+
+    @Test
+    void headroomKeepsPermitsInReserve() {
+        assertThat(slow.tryAcquire("k", 1)).isTrue();
+        assertThat(slow.tryAcquire("k", 1)).isTrue();
+        // Only one is left, and headroom 1 must leave it free
+        assertThat(slow.tryAcquire("k", 1)).isFalse();
+        assertThat(slow.nanosUntilAvailable("k", 0)).isZero();
+        assertThat(slow.tryAcquire("k", 0)).isTrue();
+    }
+
+    @Test
+    void headroomOfTheWholeBurstStillLeavesTheLastPermitUsable() {
+        assertThat(slow.tryAcquire("k", 10)).isTrue();
+        assertThat(slow.tryAcquire("k", 10)).isFalse();
+    }
+
+    @Test
+    void resetRefillsTheBucket() {
+        for (int i = 0; i < 3; i++) slow.allowRequest("k");
+
+        slow.reset("k");
+
+        assertThat(slow.availablePermits("k")).isEqualTo(3);
+    }
+
+    @Test
+    void acquireWaitsForAPermitDueWithinTheTimeout() throws Exception {
+        // A permit every 100 ms, no burst
+        RateLimiter limiter = new RateLimiter(600, 1);
+        assertThat(limiter.acquire("k", 0).getNow(false)).isTrue();
+
+        long started = System.nanoTime();
+        CompletableFuture<Boolean> next = limiter.acquire("k", 1000);
+
+        assertThat(next.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.nanoTime() - started).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void acquireGivesUpAtOnceWhenThePermitIsDueTooLate() throws Exception {
+        slow.allowRequest("k");
+        slow.allowRequest("k");
+        slow.allowRequest("k");
+
+        CompletableFuture<Boolean> permit = slow.acquire("k", 10);
+
+        assertThat(permit.isDone()).isTrue();
+        assertThat(permit.get()).isFalse();
+        // Nothing was reserved: the wait did not grow past one interval
+        assertThat(slow.nanosUntilAvailable("k", 0)).isLessThanOrEqualTo(TimeUnit.MINUTES.toNanos(1));
+        assertThat(slow.awaitPermit("k", 10)).isFalse();
+    }
+
+    @Test
+    void rejectsANonPositiveRateOrEmptyBurst() {
+        assertThatThrownBy(() -> new RateLimiter(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RateLimiter(10, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}